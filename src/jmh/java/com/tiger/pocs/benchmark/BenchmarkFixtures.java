@@ -0,0 +1,49 @@
+package com.tiger.pocs.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records of {@code data-test.json} shared by the benchmarks, one per array element, each paired with its event
+ * type and the topic it would arrive on.
+ */
+public final class BenchmarkFixtures {
+
+    public record Sample(EventType eventType, String topic, String payload) {
+    }
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<Sample> samples(ObjectMapper objectMapper) {
+        var samples = new ArrayList<Sample>();
+        try (InputStream input = BenchmarkFixtures.class.getResourceAsStream("/data-test.json")) {
+            JsonNode data = objectMapper.readTree(input);
+            data.fields().forEachRemaining(group -> {
+                var eventType = EventType.fromValue(group.getKey());
+                var topic = group.getKey() + "Topic";
+                group.getValue().forEach(sample -> samples.add(new Sample(eventType, topic, sample.toString())));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read data-test.json", e);
+        }
+        return samples;
+    }
+
+    /**
+     * Benchmarks run without Spring, where Logback would otherwise log every record at DEBUG.
+     */
+    public static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
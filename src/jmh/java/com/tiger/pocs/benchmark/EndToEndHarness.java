@@ -0,0 +1,403 @@
+package com.tiger.pocs.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tiger.pocs.App;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the whole application against an in-process KRaft broker, with the {@link HarnessSink} standing in for
+ * Mongo, and drives a weighted mix of the {@code data-test.json} records across the five topics. After a warm-up
+ * it measures sustained throughput, consumer lag and end-to-end latency, and writes them as JSON so runs can be
+ * compared between commits.
+ * <p>
+ * Options: {@code --duration=60s --warmup=10s --rate=1000 (msgs/sec, 0 = unbounded) --partitions=3
+ * --mix=clients:1,accounts:1,users:1,userAccess:1,logOffsets:1 --drain-timeout=30s
+ * --report=target/e2e-report.json}. Any other {@code --key=value} is passed to the application, e.g.
+ * {@code --ingestion.coalescing.enabled=true}.
+ */
+public final class EndToEndHarness {
+
+    private static final Map<String, String> TOPIC_VARIABLES = Map.of(
+            "clients", "CLIENTS_TOPIC",
+            "accounts", "ACCOUNTS_TOPIC",
+            "users", "USERS_TOPIC",
+            "logOffsets", "LOG_OFFSET_TOPIC",
+            "userAccess", "USER_ACCESS_TOPIC");
+
+    private final Map<String, String> options;
+    private final Map<String, String> applicationArgs;
+    private final List<BenchmarkFixtures.Sample> schedule;
+    private final HarnessSink sink = new HarnessSink();
+    private final LongAdder produced = new LongAdder();
+    private final AtomicLong maxLag = new AtomicLong();
+    private final LongAdder lagSamples = new LongAdder();
+    private final LongAdder lagTotal = new LongAdder();
+
+    private EndToEndHarness(Map<String, String> options, Map<String, String> applicationArgs,
+                            List<BenchmarkFixtures.Sample> schedule) {
+        this.options = options;
+        this.applicationArgs = applicationArgs;
+        this.schedule = schedule;
+    }
+
+    public static void main(String[] args) {
+        var options = new LinkedHashMap<>(Map.of(
+                "duration", "60s", "warmup", "10s", "rate", "1000", "partitions", "3",
+                "mix", "clients:1,accounts:1,users:1,userAccess:1,logOffsets:1",
+                "drain-timeout", "30s", "report", "target/e2e-report.json"));
+        var applicationArgs = new LinkedHashMap<String, String>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            String key = arg.substring(2, separator);
+            (options.containsKey(key) ? options : applicationArgs).put(key, arg.substring(separator + 1));
+        }
+
+        var samples = BenchmarkFixtures.samples(new ObjectMapper());
+        try {
+            new EndToEndHarness(options, applicationArgs, schedule(samples, options.get("mix"))).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            // Kafka and Netty threads would otherwise keep the JVM alive
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Interleaves the samples so that each fixture group appears as often as its weight in the mix.
+     */
+    static List<BenchmarkFixtures.Sample> schedule(List<BenchmarkFixtures.Sample> samples, String mix) {
+        Map<String, List<BenchmarkFixtures.Sample>> byGroup = samples.stream()
+                .collect(Collectors.groupingBy(sample -> sample.topic().substring(0, sample.topic().length() - "Topic".length()),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        var schedule = new ArrayList<BenchmarkFixtures.Sample>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            var group = byGroup.get(parts[0]);
+            if (group == null) {
+                throw new IllegalArgumentException("Unknown topic group '" + parts[0] + "', available: " + byGroup.keySet());
+            }
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            for (int i = 0; i < weight * group.size(); i++) {
+                schedule.add(group.get(i % group.size()));
+            }
+        }
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("The message mix is empty");
+        }
+        Collections.shuffle(schedule, new Random(42));
+        return schedule;
+    }
+
+    private void run() throws Exception {
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration drainTimeout = DurationStyle.detectAndParse(options.get("drain-timeout"));
+        long rate = Long.parseLong(options.get("rate"));
+        List<String> topics = schedule.stream().map(BenchmarkFixtures.Sample::topic).distinct().toList();
+
+        var broker = new EmbeddedKafkaKraftBroker(1, Integer.parseInt(options.get("partitions")),
+                TOPIC_VARIABLES.keySet().stream().map(group -> group + "Topic").toArray(String[]::new));
+        broker.afterPropertiesSet();
+        String bootstrapServers = broker.getBrokersAsString();
+
+        ConfigurableApplicationContext context = null;
+        ScheduledExecutorService lagSampler = Executors.newSingleThreadScheduledExecutor();
+        try (var producer = new KafkaProducer<String, String>(producerConfig(bootstrapServers));
+             var admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+
+            var application = new SpringApplicationBuilder(App.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(applicationDefaults(bootstrapServers))
+                    .initializers(applicationContext ->
+                            applicationContext.getBeanFactory().registerSingleton("harnessSink", sink))
+                    .run(applicationArgs());
+            context = application;
+
+            List<String> groups = TOPIC_VARIABLES.values().stream()
+                    .map(variable -> application.getEnvironment().getProperty(variable + "_GROUP_ID")).toList();
+            lagSampler.scheduleAtFixedRate(() -> sampleLag(admin, groups), 1, 1, TimeUnit.SECONDS);
+
+            log("Warming up for %s against %s", warmup, bootstrapServers);
+            produce(producer, warmup, rate);
+            sink.takeLatencies();
+            resetLag();
+
+            log("Measuring for %s", duration);
+            long persistedBefore = sink.persisted();
+            long producedBefore = produced.sum();
+            long start = System.nanoTime();
+            produce(producer, duration, rate);
+            producer.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long persistedDuring = sink.persisted() - persistedBefore;
+            long producedDuring = produced.sum() - producedBefore;
+
+            long drainStart = System.nanoTime();
+            long deadline = drainStart + drainTimeout.toNanos();
+            while (sink.persisted() < produced.sum() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            double drainSeconds = (System.nanoTime() - drainStart) / 1e9;
+            lagSampler.shutdownNow();
+            long finalLag = totalLag(admin, groups);
+
+            var report = report(topics, seconds, producedDuring, persistedDuring, drainSeconds, finalLag);
+            Path path = Path.of(options.get("report"));
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+            log("Sustained %.0f msgs/sec, p99 %s us, max lag %d - report written to %s",
+                    persistedDuring / seconds, ((Map<?, ?>) report.get("latencyMicros")).get("p99"), maxLag.get(), path);
+        } finally {
+            lagSampler.shutdownNow();
+            if (context != null) {
+                context.close();
+            }
+            broker.destroy();
+        }
+    }
+
+    private void produce(KafkaProducer<String, String> producer, Duration duration, long rate) {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        long sent = 0;
+
+        for (long now = start; now < end; now = System.nanoTime()) {
+            if (intervalNanos > 0) {
+                long due = start + sent * intervalNanos;
+                if (due > now) {
+                    LockSupport.parkNanos(due - now);
+                    continue;
+                }
+            }
+            var sample = schedule.get((int) (produced.sum() % schedule.size()));
+            var record = new ProducerRecord<String, String>(sample.topic(), Long.toString(sent), sample.payload());
+            record.headers().add(HarnessSink.SENT_HEADER,
+                    Long.toString(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+            producer.send(record);
+            produced.increment();
+            sent++;
+        }
+    }
+
+    private void sampleLag(AdminClient admin, List<String> groups) {
+        try {
+            long lag = totalLag(admin, groups);
+            maxLag.accumulateAndGet(lag, Math::max);
+            lagTotal.add(lag);
+            lagSamples.increment();
+        } catch (Exception e) {
+            log("Lag sample failed - %s", e.getMessage());
+        }
+    }
+
+    private void resetLag() {
+        maxLag.set(0);
+        lagTotal.reset();
+        lagSamples.reset();
+    }
+
+    /**
+     * Records between the committed offset of each consumer group and the end of its partitions.
+     */
+    private static long totalLag(AdminClient admin, List<String> groups) throws Exception {
+        long lag = 0;
+        for (String group : groups) {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+                    .partitionsToOffsetAndMetadata().get(5, TimeUnit.SECONDS);
+            if (committed.isEmpty()) continue;
+
+            var latest = admin.listOffsets(committed.keySet().stream()
+                            .collect(Collectors.toMap(Function.identity(), ignored -> OffsetSpec.latest())))
+                    .all().get(5, TimeUnit.SECONDS);
+            for (var entry : committed.entrySet()) {
+                long offset = entry.getValue() != null ? entry.getValue().offset() : 0;
+                lag += Math.max(0, latest.get(entry.getKey()).offset() - offset);
+            }
+        }
+        return lag;
+    }
+
+    private Map<String, Object> report(List<String> topics, double seconds, long produced, long persisted,
+                                       double drainSeconds, long finalLag) {
+        var latencies = sink.takeLatencies();
+        var combined = new Histogram(3);
+        latencies.values().forEach(combined::add);
+
+        var perTopic = new LinkedHashMap<String, Object>();
+        var persistedByTopic = sink.persistedByTopic();
+        for (String topic : topics) {
+            var topicReport = new LinkedHashMap<String, Object>();
+            topicReport.put("persisted", persistedByTopic.getOrDefault(topic, 0L));
+            topicReport.put("latencyMicros", percentiles(latencies.get(topic)));
+            perTopic.put(topic, topicReport);
+        }
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("commit", gitCommit());
+        report.put("options", options);
+        report.put("applicationArgs", applicationArgs);
+        report.put("measuredSeconds", round(seconds));
+        report.put("produced", produced);
+        report.put("persisted", persisted);
+        report.put("producedPerSecond", round(produced / seconds));
+        report.put("persistedPerSecond", round(persisted / seconds));
+        report.put("drainSeconds", round(drainSeconds));
+        report.put("lag", Map.of(
+                "max", maxLag.get(),
+                "mean", lagSamples.sum() > 0 ? round((double) lagTotal.sum() / lagSamples.sum()) : 0,
+                "final", finalLag));
+        report.put("latencyMicros", percentiles(combined));
+        report.put("topics", perTopic);
+        return report;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        var percentiles = new LinkedHashMap<String, Object>();
+        long count = histogram != null ? histogram.getTotalCount() : 0;
+        percentiles.put("count", count);
+        if (count == 0) return percentiles;
+
+        percentiles.put("p50", histogram.getValueAtPercentile(50));
+        percentiles.put("p99", histogram.getValueAtPercentile(99));
+        percentiles.put("p999", histogram.getValueAtPercentile(99.9));
+        percentiles.put("max", histogram.getMaxValue());
+        percentiles.put("mean", round(histogram.getMean()));
+        return percentiles;
+    }
+
+    /**
+     * Placeholders {@code application.yml} expects from the environment, plus the harness sink and no journal.
+     */
+    private Map<String, Object> applicationDefaults(String bootstrapServers) {
+        var defaults = new HashMap<String, Object>();
+        defaults.put("APP_NAME", "pocs-harness");
+        defaults.put("SERVER_PORT", "0");
+        defaults.put("MONGODB_HOST", "localhost");
+        defaults.put("MONGODB_PORT", "27017");
+        defaults.put("MONGODB_DATABASE", "pocs_harness");
+        defaults.put("CONFLUENT_BOOTSTRAP_SERVERS", bootstrapServers);
+        defaults.put("CONFLUENT_GROUP_ID", "pocs-harness");
+        defaults.put("CONFLUENT_SECURITY_ENABLED", "false");
+        defaults.put("CONFLUENT_SECURITY_PROTOCOL", "PLAINTEXT");
+        defaults.put("CONFLUENT_SASL_MECHANISM", "PLAIN");
+        defaults.put("CONFLUENT_API_KEY", "");
+        defaults.put("CONFLUENT_API_SECRET", "");
+        defaults.put("CONFLUENT_TRUSTSTORE_LOCATION", "");
+        defaults.put("CONFLUENT_TRUSTSTORE_PASSWORD", "");
+        defaults.put("CONFLUENT_SKIP_HOSTNAME_VERIFICATION", "true");
+        defaults.put("CONFLUENT_SSL_ENDPOINT_IDENTIFICATION_ALGORITHM", "");
+        defaults.put("CONFLUENT_SSL_TRUSTSTORE_TYPE", "JKS");
+        defaults.put("CONFLUENT_SSL_CHECK_HOSTNAME", "false");
+        defaults.put("CONFLUENT_KEY_DESERIALIZER", "org.apache.kafka.common.serialization.StringDeserializer");
+        defaults.put("CONFLUENT_VALUE_DESERIALIZER", "org.apache.kafka.common.serialization.StringDeserializer");
+        defaults.put("CONFLUENT_AUTO_OFFSET_RESET", "earliest");
+        defaults.put("CONFLUENT_ENABLE_AUTO_COMMIT", "false");
+        defaults.put("CONFLUENT_SESSION_TIMEOUT", "30s");
+        defaults.put("CONFLUENT_HEARTBEAT_INTERVAL", "3s");
+        defaults.put("CONFLUENT_MAX_POLL_RECORDS", "500");
+        defaults.put("CONFLUENT_MAX_POLL_INTERVAL", "5m");
+        defaults.put("CONFLUENT_RECONNECT_BACKOFF", "50ms");
+        defaults.put("CONFLUENT_RETRY_BACKOFF", "100ms");
+        defaults.put("CONFLUENT_REQUEST_TIMEOUT", "30000");
+        defaults.put("TOPIC_AUTO_SUBSCRIBE", "true");
+        TOPIC_VARIABLES.forEach((group, variable) -> {
+            defaults.put(variable + "_NAME", group + "Topic");
+            defaults.put(variable + "_GROUP_ID", "pocs-harness-" + group);
+        });
+        defaults.put("INGESTION_DEFAULT_SINK", HarnessSink.NAME);
+        defaults.put("INGESTION_JOURNAL_ENABLED", "false");
+        defaults.put("INGESTION_QUARANTINE_ENABLED", "false");
+        return defaults;
+    }
+
+    /**
+     * The test resources shadow {@code application.yml} on this classpath, so the main one is named explicitly.
+     * Per-record logging would dominate the measurement, so the application runs at WARN unless overridden.
+     */
+    private String[] applicationArgs() {
+        var args = new LinkedHashMap<String, String>();
+        args.put("spring.config.location",
+                App.class.getProtectionDomain().getCodeSource().getLocation() + "application.yml");
+        args.put("logging.level.root", "WARN");
+        args.put("logging.level.com.tiger.pocs", "WARN");
+        args.put("logging.level.org.mongodb.driver", "ERROR");
+        args.putAll(applicationArgs);
+        return args.entrySet().stream().map(entry -> "--" + entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
+    }
+
+    private static Map<String, Object> producerConfig(String bootstrapServers) {
+        return Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.ACKS_CONFIG, "1",
+                ProducerConfig.LINGER_MS_CONFIG, 1);
+    }
+
+    private static String gitCommit() {
+        try {
+            var process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return process.waitFor() == 0 ? output : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[HARNESS] " + format + "%n", args);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tiger.pocs.benchmark;
+
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.sink.PersistenceSink;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mongo stand-in for {@link EndToEndHarness}: counts every persisted entity and records the latency from the
+ * producer's send time, carried in the {@value #SENT_HEADER} header, to the moment the write is subscribed.
+ * Coalesced writes only reach {@link #saveAll} with their coordinates, so they are counted without a latency.
+ */
+class HarnessSink implements PersistenceSink {
+
+    static final String NAME = "harness";
+    static final String SENT_HEADER = "harness-sent-nanos";
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LongAdder persisted = new LongAdder();
+    private final Map<String, LongAdder> persistedByTopic = new ConcurrentHashMap<>();
+    private final Map<String, Recorder> latencyByTopic = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Mono<Void> persistEntity(Object entity, EventType eventType, Message<?> message) {
+        return Mono.fromRunnable(() -> {
+            long now = System.nanoTime();
+            String topic = message != null && message.getTopic() != null ? message.getTopic() : eventType.name();
+            count(topic, 1);
+
+            String sent = message != null && message.getHeaders() != null ? message.getHeaders().get(SENT_HEADER) : null;
+            if (sent != null) {
+                long micros = TimeUnit.NANOSECONDS.toMicros(now - Long.parseLong(sent));
+                latencyByTopic.computeIfAbsent(topic, ignored -> new Recorder(MAX_LATENCY_MICROS, 3))
+                        .recordValue(Math.min(Math.max(micros, 0), MAX_LATENCY_MICROS));
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> saveAll(EventType eventType, Map<?, KafkaCoordinates> entities) {
+        return Mono.fromRunnable(() -> entities.values().forEach(coordinates ->
+                count(coordinates != null ? coordinates.topic() : eventType.name(), 1)));
+    }
+
+    long persisted() {
+        return persisted.sum();
+    }
+
+    Map<String, Long> persistedByTopic() {
+        var counts = new TreeMap<String, Long>();
+        persistedByTopic.forEach((topic, count) -> counts.put(topic, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Latencies recorded since the previous call, per topic; the warm-up interval is discarded this way.
+     */
+    Map<String, Histogram> takeLatencies() {
+        var histograms = new TreeMap<String, Histogram>();
+        latencyByTopic.forEach((topic, recorder) -> histograms.put(topic, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    private void count(String topic, int records) {
+        persisted.add(records);
+        persistedByTopic.computeIfAbsent(topic, ignored -> new LongAdder()).add(records);
+    }
+}
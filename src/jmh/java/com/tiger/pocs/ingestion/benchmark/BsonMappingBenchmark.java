@@ -0,0 +1,78 @@
+package com.tiger.pocs.ingestion.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.benchmark.BenchmarkFixtures;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.RawEntity;
+import com.tiger.pocs.ingestion.service.EntityReaderRegistry;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a {@code data-test.json} payload into the BSON document that gets written: entity binding
+ * followed by {@link MappingMongoConverter}, against the raw pass-through parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BsonMappingBenchmark {
+
+    private EntityReaderRegistry readerRegistry;
+    private MappingMongoConverter converter;
+    private List<BenchmarkFixtures.Sample> samples;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        readerRegistry = new EntityReaderRegistry(objectMapper, new IngestionProperties());
+
+        var conversions = new MongoCustomConversions(List.of());
+        var mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        samples = BenchmarkFixtures.samples(objectMapper);
+    }
+
+    @Benchmark
+    public void entityMapping(Blackhole blackhole) throws IOException {
+        for (var sample : samples) {
+            Object entity = readerRegistry.readerFor(sample.eventType()).readValue(sample.payload());
+            var document = new Document();
+            converter.write(entity, document);
+            blackhole.consume(document);
+        }
+    }
+
+    @Benchmark
+    public void rawPassThrough(Blackhole blackhole) {
+        for (var sample : samples) {
+            blackhole.consume(RawEntity.parse(readerRegistry.entityTypeFor(sample.eventType()), sample.payload()));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tiger.pocs.ingestion.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.benchmark.BenchmarkFixtures;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.MessageProcessedEvent;
+import com.tiger.pocs.ingestion.service.EntityReaderRegistry;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.service.EventTypeMapping;
+import com.tiger.pocs.ingestion.service.PayloadConverter;
+import com.tiger.pocs.ingestion.service.PayloadValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion side of the hot path, one {@code data-test.json} record per invocation: topic mapping, payload
+ * validation and entity conversion. Run with {@code -prof gc} (the profile default) for allocations per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionHotPathBenchmark {
+
+    private final EventTypeMapping eventTypeMapping = new EventTypeMapping();
+    private final PayloadValidator payloadValidator = new PayloadValidator();
+    private PayloadConverter payloadConverter;
+    private List<BenchmarkFixtures.Sample> samples;
+    private MessageProcessedEvent[] events;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        payloadConverter = new PayloadConverter(new EntityReaderRegistry(objectMapper, new IngestionProperties()));
+        samples = BenchmarkFixtures.samples(objectMapper);
+
+        events = new MessageProcessedEvent[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            var sample = samples.get(i);
+            events[i] = MessageProcessedEvent.builder()
+                    .message(Message.<String>builder().topic(sample.topic()).key("key-" + i).value(sample.payload()).build())
+                    .handlerName("BenchmarkEventProcessor")
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public EventType getEventTypeForTopic() {
+        return eventTypeMapping.getEventTypeForTopic(samples.get(next()).topic());
+    }
+
+    @Benchmark
+    public String validateAndExtractPayload() {
+        return payloadValidator.validateAndExtractPayload(events[next()]);
+    }
+
+    @Benchmark
+    public Object convertToEntity() {
+        var sample = samples.get(next());
+        return payloadConverter.convertToEntity(sample.payload(), sample.eventType());
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == events.length ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,80 @@
+package com.tiger.pocs.ingestion.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.benchmark.BenchmarkFixtures;
+import com.tiger.pocs.ingestion.domain.AccountEntity;
+import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.LogOffsetEntity;
+import com.tiger.pocs.ingestion.domain.UserAccessEntity;
+import com.tiger.pocs.ingestion.domain.UserEntity;
+import com.tiger.pocs.ingestion.service.EntityReaderRegistry;
+import com.tiger.pocs.ingestion.service.PayloadConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former {@code readValue(payload, Class)} switch against the precompiled reader registry, with and
+ * without Blackbird, over every sample of {@code data-test.json}. Each invocation converts the whole sample set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadConversionBenchmark {
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private ObjectMapper objectMapper;
+    private PayloadConverter converter;
+    private List<BenchmarkFixtures.Sample> samples;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        var properties = new IngestionProperties();
+        properties.getConversion().setBlackbirdEnabled(blackbird);
+        converter = new PayloadConverter(new EntityReaderRegistry(objectMapper, properties));
+
+        samples = BenchmarkFixtures.samples(objectMapper);
+    }
+
+    @Benchmark
+    public void readValueByClass(Blackhole blackhole) throws IOException {
+        for (var sample : samples) {
+            blackhole.consume(switch (sample.eventType()) {
+                case CLIENT -> objectMapper.readValue(sample.payload(), ClientEntity.class);
+                case ACCOUNT -> objectMapper.readValue(sample.payload(), AccountEntity.class);
+                case USER -> objectMapper.readValue(sample.payload(), UserEntity.class);
+                case USER_ACCESS -> objectMapper.readValue(sample.payload(), UserAccessEntity.class);
+                case LOG_OFFSET -> objectMapper.readValue(sample.payload(), LogOffsetEntity.class);
+                case UNKNOWN -> null;
+            });
+        }
+    }
+
+    @Benchmark
+    public void readerRegistry(Blackhole blackhole) {
+        for (var sample : samples) {
+            blackhole.consume(converter.convertToEntity(sample.payload(), sample.eventType()));
+        }
+    }
+}
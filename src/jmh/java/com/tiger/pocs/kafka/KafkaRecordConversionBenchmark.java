@@ -0,0 +1,78 @@
+package com.tiger.pocs.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.benchmark.BenchmarkFixtures;
+import com.tiger.pocs.kafka.domain.KafkaEventConverter;
+import com.tiger.pocs.kafka.domain.KafkaMessage;
+import com.tiger.pocs.ingestion.domain.MessageProcessedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer side of the hot path, one {@code data-test.json} record per invocation: mapping the Kafka
+ * {@link ConsumerRecord} to a {@link KafkaMessage} and that to the ingestion event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaRecordConversionBenchmark {
+
+    private final KafkaEventConverter eventConverter = new KafkaEventConverter();
+    private ConsumerRecord<String, String>[] records;
+    private KafkaMessage<String>[] messages;
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        var samples = BenchmarkFixtures.samples(new ObjectMapper());
+        records = new ConsumerRecord[samples.size()];
+        messages = new KafkaMessage[samples.size()];
+
+        for (int i = 0; i < samples.size(); i++) {
+            var sample = samples.get(i);
+            var headers = new RecordHeaders()
+                    .add("eventType", sample.eventType().name().getBytes(StandardCharsets.UTF_8))
+                    .add("trace.id", ("trace-" + i).getBytes(StandardCharsets.UTF_8));
+            records[i] = new ConsumerRecord<>(sample.topic(), 0, i, System.currentTimeMillis(),
+                    TimestampType.CREATE_TIME, -1, sample.payload().length(), "key-" + i, sample.payload(),
+                    headers, Optional.empty());
+            messages[i] = TopicKafkaConsumer.convertToKafkaMessage(records[i]);
+        }
+    }
+
+    @Benchmark
+    public KafkaMessage<String> convertToKafkaMessage() {
+        return TopicKafkaConsumer.convertToKafkaMessage(records[next()]);
+    }
+
+    @Benchmark
+    public MessageProcessedEvent convertToIngestionEvent() {
+        return eventConverter.convertToIngestionEvent(messages[next()], "BenchmarkEventProcessor");
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == records.length ? 0 : index + 1;
+        return index;
+    }
+}
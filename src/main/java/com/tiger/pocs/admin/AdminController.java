@@ -0,0 +1,205 @@
+package com.tiger.pocs.admin;
+
+import com.tiger.pocs.ingestion.service.LatencyTracker;
+import com.tiger.pocs.ingestion.service.PipelineLogger;
+import com.tiger.pocs.jfr.FlightRecorderService;
+import com.tiger.pocs.kafka.AdmissionFilter;
+import com.tiger.pocs.loadgen.LoadGenerator;
+import com.tiger.pocs.loadgen.LoadProfile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final LatencyTracker latencyTracker;
+    private final FlightRecorderService flightRecorderService;
+    private final PipelineLogger pipelineLogger;
+    private final LoadGenerator loadGenerator;
+    private final AdmissionFilter admissionFilter;
+
+    /**
+     * Latency percentiles in milliseconds per topic and pipeline segment, e.g.
+     * {@code {"clientsTopic": {"persistence": {"count": 120, "p50": 3.1, "p99": 41.9, "p999": 80.2, "max": 95.0}}}}.
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<Map<String, Map<String, Map<String, Double>>>> getLatency() {
+        return ResponseEntity.ok(latencyTracker.snapshot());
+    }
+
+    /**
+     * Sample rates of the pipeline log, e.g. {@code {"clientsTopic": 1.0, "default": 0.001}}.
+     */
+    @GetMapping("/logging")
+    public ResponseEntity<Map<String, Double>> getLogSampleRates() {
+        return ResponseEntity.ok(pipelineLogger.sampleRates());
+    }
+
+    @PutMapping("/logging/sample-rate")
+    public ResponseEntity<Map<String, Double>> setDefaultLogSampleRate(@RequestParam double rate) {
+        try {
+            pipelineLogger.setDefaultSampleRate(rate);
+            return ResponseEntity.ok(pipelineLogger.sampleRates());
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Overrides the share of the topic's persisted records that are logged, from 0 (none) to 1 (all).
+     */
+    @PutMapping("/logging/topics/{topic}")
+    public ResponseEntity<Map<String, Double>> setTopicLogSampleRate(@PathVariable String topic, @RequestParam double rate) {
+        try {
+            pipelineLogger.setSampleRate(topic, rate);
+            return ResponseEntity.ok(pipelineLogger.sampleRates());
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/logging/topics/{topic}")
+    public ResponseEntity<Map<String, Double>> clearTopicLogSampleRate(@PathVariable String topic) {
+        pipelineLogger.clearSampleRate(topic);
+        return ResponseEntity.ok(pipelineLogger.sampleRates());
+    }
+
+    /**
+     * Admission limits of {@code POST /kafka}, requests in flight and rejections, e.g.
+     * {@code {"maxConcurrent": 512, "caller": {"ratePerSecond": 500.0, "burst": 1000}, "topics": {}, ...}}.
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmission() {
+        return ResponseEntity.ok(admissionFilter.limits());
+    }
+
+    @PutMapping("/admission/max-concurrent")
+    public ResponseEntity<Map<String, Object>> setAdmissionMaxConcurrent(@RequestParam int max) {
+        try {
+            admissionFilter.setMaxConcurrent(max);
+            return ResponseEntity.ok(admissionFilter.limits());
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Replaces the token bucket of every caller; {@code rate=0} lifts the limit.
+     */
+    @PutMapping("/admission/caller")
+    public ResponseEntity<Map<String, Object>> setAdmissionCallerLimit(
+            @RequestParam double rate, @RequestParam(defaultValue = "0") int burst) {
+        try {
+            admissionFilter.setCallerLimit(rate, burst);
+            return ResponseEntity.ok(admissionFilter.limits());
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PutMapping("/admission/topics/{topic}")
+    public ResponseEntity<Map<String, Object>> setAdmissionTopicLimit(
+            @PathVariable String topic, @RequestParam double rate, @RequestParam int burst) {
+        try {
+            admissionFilter.setTopicLimit(topic, rate, burst);
+            return ResponseEntity.ok(admissionFilter.limits());
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/admission/topics/{topic}")
+    public ResponseEntity<Map<String, Object>> clearAdmissionTopicLimit(@PathVariable String topic) {
+        admissionFilter.clearTopicLimit(topic);
+        return ResponseEntity.ok(admissionFilter.limits());
+    }
+
+    /**
+     * Starts publishing synthetic records, e.g. {@code {"rate": 5000, "duration": "PT5M", "keyCardinality": 10000,
+     * "mix": {"clientsTopic": 3, "userAccessTopic": 1}}}; without a body the {@link LoadProfile} defaults apply.
+     */
+    @PostMapping("/load/start")
+    public ResponseEntity<Map<String, Object>> startLoad(@RequestBody(required = false) LoadProfile profile) {
+        try {
+            return ResponseEntity.ok(loadGenerator.start(profile != null ? profile : LoadProfile.defaults()));
+        } catch (IllegalStateException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", exception.getMessage()));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().body(Map.of("error", exception.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of the current or last load run: sent, acknowledged and failed records, the achieved rate and the
+     * producer latency percentiles in milliseconds.
+     */
+    @GetMapping("/load")
+    public ResponseEntity<Map<String, Object>> getLoad() {
+        return ResponseEntity.ok(loadGenerator.report());
+    }
+
+    @PostMapping("/load/stop")
+    public ResponseEntity<Map<String, Object>> stopLoad() {
+        return ResponseEntity.ok(loadGenerator.stop());
+    }
+
+    /**
+     * Starts a Flight Recorder recording with the JDK's {@code default} (low overhead) or {@code profile} settings.
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<Map<String, Object>> startRecording(
+            @RequestParam(defaultValue = "default") String settings, @RequestParam(defaultValue = "PT10M") Duration maxAge) {
+
+        try {
+            return ResponseEntity.ok(flightRecorderService.start(settings, maxAge));
+        } catch (IllegalStateException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", exception.getMessage()));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().body(Map.of("error", exception.getMessage()));
+        }
+    }
+
+    @GetMapping("/jfr")
+    public ResponseEntity<Map<String, Object>> getRecording() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    /**
+     * Dumps the running recording to disk and returns the file, ready to open in JDK Mission Control.
+     */
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<Resource> dumpRecording() {
+        try {
+            Path file = flightRecorderService.dump();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                    .body(new FileSystemResource(file));
+        } catch (IllegalStateException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception exception) {
+            log.error("Failed to dump the JFR recording", exception);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<Map<String, Object>> stopRecording() {
+        flightRecorderService.stop();
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+}
@@ -0,0 +1,41 @@
+package com.tiger.pocs.ingestion.config;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.service.AdaptiveConcurrencyLimiter;
+import com.tiger.pocs.ingestion.service.DurabilityPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+@Configuration
+@EnableConfigurationProperties(IngestionProperties.class)
+public class IngestionConfiguration {
+
+    @Bean
+    public DurabilityPolicy durabilityPolicy(IngestionProperties properties) {
+        return new DurabilityPolicy(properties.getPersistence());
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter persistenceConcurrencyLimiter(IngestionProperties properties,
+                                                                    MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter(properties.getPersistence().getConcurrency(), meterRegistry);
+    }
+
+    /**
+     * Replaces the auto-configured template so its write concern resolver is set once, when it is built, rather
+     * than by whichever bean happens to use it first.
+     */
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory,
+                                                       MongoConverter converter, DurabilityPolicy durabilityPolicy) {
+        var template = new ReactiveMongoTemplate(databaseFactory, converter);
+        // Direct saves pick up the per-collection write concern; collections without settings keep the default
+        template.setWriteConcernResolver(durabilityPolicy);
+        return template;
+    }
+}
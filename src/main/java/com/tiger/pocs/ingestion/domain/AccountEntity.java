@@ -14,7 +14,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @AllArgsConstructor
 @Document(collection = "accounts")
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AccountEntity {
+public class AccountEntity implements VersionedEntity {
     @Id
     private String id;
+    private Long version;
 }
\ No newline at end of file
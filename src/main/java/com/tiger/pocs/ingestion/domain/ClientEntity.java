@@ -14,9 +14,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @AllArgsConstructor
 @Document(collection = "clients")
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class ClientEntity {
+public class ClientEntity implements VersionedEntity {
 
     @Id
     private String id;
+    private Long version;
 }
 
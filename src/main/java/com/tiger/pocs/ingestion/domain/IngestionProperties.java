@@ -0,0 +1,256 @@
+package com.tiger.pocs.ingestion.domain;
+
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.service.PayloadConversionException;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+@Data
+@ConfigurationProperties(prefix = "ingestion")
+public class IngestionProperties {
+
+    private Detection detection = new Detection();
+    private Conversion conversion = new Conversion();
+    private Envelope envelope = new Envelope();
+    private Coalescing coalescing = new Coalescing();
+    private Persistence persistence = new Persistence();
+    private Journal journal = new Journal();
+    private Sinks sinks = new Sinks();
+    private Quarantine quarantine = new Quarantine();
+    private Latency latency = new Latency();
+    private Logging logging = new Logging();
+
+    @Data
+    public static class Detection {
+        private String headerName = "eventType";
+        private String discriminatorField = "eventType";
+        private boolean payloadPeekEnabled = true;
+    }
+
+    @Data
+    public static class Conversion {
+        private boolean blackbirdEnabled;
+        /**
+         * Event types whose payloads are written as raw BSON documents instead of being bound to their entity class.
+         */
+        private Set<EventType> passThroughEventTypes = EnumSet.noneOf(EventType.class);
+    }
+
+    /**
+     * Splitting of multi-record envelope payloads into one record per array element.
+     */
+    @Data
+    public static class Envelope {
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Coalescing {
+        private boolean enabled;
+        private Duration window = Duration.ofMillis(200);
+        private int maxBatchSize = 500;
+        private Set<EventType> eventTypes = EnumSet.of(EventType.CLIENT, EventType.ACCOUNT, EventType.USER);
+    }
+
+    @Data
+    public static class Persistence {
+        private boolean bulkEnabled;
+        private Concurrency concurrency = new Concurrency();
+        private WriteRetry retry = new WriteRetry();
+        private Map<String, CollectionSettings> collections = new ConcurrentHashMap<>();
+
+        /**
+         * Settings of a target collection; collections without an explicit entry use the defaults.
+         */
+        public CollectionSettings settingsFor(String collection) {
+            return collections.computeIfAbsent(collection, ignored -> new CollectionSettings());
+        }
+    }
+
+    @Data
+    public static class CollectionSettings {
+        private int maxDocuments = 500;
+        private DataSize maxBytes = DataSize.ofMegabytes(4);
+        private Duration maxLatency = Duration.ofMillis(50);
+        private WriteMode writeMode = WriteMode.REPLACE;
+        private Durability durability = new Durability();
+        private Storage storage = Storage.DOCUMENT;
+        private TimeSeries timeSeries = new TimeSeries();
+
+        /**
+         * Time-series collections only accept inserts, whatever write mode is configured.
+         */
+        public WriteMode effectiveWriteMode() {
+            return storage == Storage.TIME_SERIES ? WriteMode.INSERT : writeMode;
+        }
+    }
+
+    /**
+     * Measurement layout of a time-series collection: the configured meta fields are moved into a
+     * {@code meta} subdocument and buckets expire after {@code expireAfter}.
+     */
+    @Data
+    public static class TimeSeries {
+        private String timeField = "timestamp";
+        private List<String> metaFields = new ArrayList<>();
+        private TimeSeriesGranularity granularity = TimeSeriesGranularity.SECONDS;
+        private Duration expireAfter;
+    }
+
+    /**
+     * Write concern and bulk ordering of a collection; unset values keep the client defaults.
+     */
+    @Data
+    public static class Durability {
+        private String w;
+        private Boolean journal;
+        private Duration wtimeout;
+        private boolean ordered;
+    }
+
+    /**
+     * AIMD limit on in-flight Mongo writes: grows by one while writes stay under the latency target,
+     * shrinks by the backoff ratio on slow or failed writes.
+     */
+    @Data
+    public static class Concurrency {
+        private boolean enabled = true;
+        private int initialLimit = 16;
+        private int minLimit = 1;
+        private int maxLimit = 256;
+        private Duration latencyThreshold = Duration.ofMillis(250);
+        private double backoffRatio = 0.9;
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Local write-ahead journal taking the writes Mongo could not accept, drained back in bulk once it recovers.
+     */
+    @Data
+    public static class Journal {
+        private boolean enabled;
+        private String directory = "data/journal/persistence";
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+        private boolean forceOnAppend;
+        private int drainBatchSize = 1000;
+        private int maxBatchesPerDrain = 10;
+        private Duration drainTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Collection receiving records whose payload could not be converted, written in batches of up to
+     * {@code maxBatchSize} or every {@code window}. Payloads beyond {@code maxPayloadSize} are truncated.
+     * A batch Mongo does not accept is retried up to {@code maxRetries} times from {@code retryBackoff}, doubling up
+     * to {@code maxRetryBackoff}, and then dropped. At most about {@code queueCapacity} records wait for a batch.
+     */
+    @Data
+    public static class Quarantine {
+        private boolean enabled = true;
+        private String collection = "quarantine";
+        private int maxBatchSize = 500;
+        private Duration window = Duration.ofMillis(200);
+        private DataSize maxPayloadSize = DataSize.ofKilobytes(64);
+        private int queueCapacity = 10_000;
+        private int maxRetries = 5;
+        private Duration retryBackoff = Duration.ofSeconds(1);
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Resubscriptions of a failed write, {@code backoff} apart and growing exponentially. Once exhausted the last
+     * error is propagated as is; unconvertible documents fail straight away, as no retry can fix them.
+     */
+    @Data
+    public static class WriteRetry {
+        private int maxRetries = 3;
+        private Duration backoff = Duration.ofMillis(200);
+
+        public Retry toSpec() {
+            return Retry.backoff(maxRetries, backoff)
+                    .filter(error -> !(error instanceof PayloadConversionException))
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        }
+    }
+
+    /**
+     * Per-topic, per-stage latency histograms; percentiles cover a sliding window of {@code expiry}.
+     */
+    @Data
+    public static class Latency {
+        private boolean enabled = true;
+        private List<Double> percentiles = List.of(0.5, 0.99, 0.999);
+        private Duration expiry = Duration.ofMinutes(2);
+    }
+
+    /**
+     * Share of successfully persisted records that get a pipeline log line, from 0 (none) to 1 (all), with
+     * overrides per topic. Failures are always logged. Both can be changed at runtime through {@code /admin/logging}.
+     */
+    @Data
+    public static class Logging {
+        private double sampleRate = 0.001;
+        private Map<String, Double> topics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Destination of each event type: {@code mongo}, {@code memory} or {@code file}. Event types without an entry
+     * go to {@code defaultSink}.
+     */
+    @Data
+    public static class Sinks {
+        private String defaultSink = "mongo";
+        private Map<EventType, String> eventTypes = new EnumMap<>(EventType.class);
+        private Memory memory = new Memory();
+        private File file = new File();
+    }
+
+    /**
+     * Only the most recent {@code maxRetained} entities are kept; all of them are counted.
+     */
+    @Data
+    public static class Memory {
+        private int maxRetained = 10_000;
+    }
+
+    /**
+     * Entities are appended as NDJSON to {@code directory/<event type>/}, rolling to a new file at {@code segmentSize}.
+     */
+    @Data
+    public static class File {
+        private String directory = "data/sinks";
+        private DataSize segmentSize = DataSize.ofMegabytes(128);
+    }
+
+    public enum Storage {
+        DOCUMENT, TIME_SERIES
+    }
+
+    public enum WriteMode {
+        /** Blind upsert by {@code _id}. */
+        REPLACE,
+        /** Upsert only when the stored {@code version} is lower than the incoming one; always bulk. */
+        VERSION_GUARDED,
+        /**
+         * Stores the record's Kafka coordinates under {@code _kafka} and upserts only when they are newer than the
+         * stored ones for the same topic-partition, so redelivered records are skipped; always bulk.
+         */
+        OFFSET_GUARDED,
+        /** Plain insert, used for append-only measurements such as time-series collections; always bulk. */
+        INSERT
+    }
+}
@@ -0,0 +1,54 @@
+package com.tiger.pocs.ingestion.domain;
+
+import org.bson.Document;
+
+/**
+ * Topic, partition and offset of the record a document was written from, stored under {@code _kafka}.
+ * Records split out of one envelope share its offset and are told apart by their {@code envelopeIndex}, from 1,
+ * which is only stored for them.
+ */
+public record KafkaCoordinates(String topic, int partition, long offset, int envelopeIndex) {
+
+    public static final String FIELD = "_kafka";
+    public static final String TOPIC_PATH = FIELD + ".topic";
+    public static final String PARTITION_PATH = FIELD + ".partition";
+    public static final String OFFSET_PATH = FIELD + ".offset";
+    public static final String ENVELOPE_INDEX_PATH = FIELD + ".envelopeIndex";
+
+    public KafkaCoordinates(String topic, int partition, long offset) {
+        this(topic, partition, offset, 0);
+    }
+
+    public static KafkaCoordinates of(Message<?> message) {
+        if (message == null || message.getTopic() == null) return null;
+
+        return new KafkaCoordinates(message.getTopic(), message.getPartition(), message.getOffset(),
+                message.getEnvelopeIndex());
+    }
+
+    public static KafkaCoordinates from(Document document) {
+        if (!(document.get(FIELD) instanceof Document kafka)) return null;
+
+        return new KafkaCoordinates(kafka.getString("topic"),
+                ((Number) kafka.get("partition")).intValue(),
+                ((Number) kafka.get("offset")).longValue(),
+                kafka.get("envelopeIndex") instanceof Number index ? index.intValue() : 0);
+    }
+
+    /**
+     * Whether this record was consumed before {@code other}; only meaningful within one topic-partition.
+     */
+    public boolean isBefore(KafkaCoordinates other) {
+        return offset < other.offset || (offset == other.offset && envelopeIndex < other.envelopeIndex);
+    }
+
+    public Document toDocument() {
+        var document = new Document("topic", topic)
+                .append("partition", partition)
+                .append("offset", offset);
+        if (envelopeIndex > 0) {
+            document.append("envelopeIndex", envelopeIndex);
+        }
+        return document;
+    }
+}
@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,4 +19,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class LogOffsetEntity {
     @Id
     private String id;
+    private String topic;
+    private Integer partition;
+    private Long offset;
+    private Instant timestamp;
+    private String consumerGroup;
+    private String status;
 }
\ No newline at end of file
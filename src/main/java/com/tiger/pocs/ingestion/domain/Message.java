@@ -15,6 +15,12 @@ public class Message<T> {
     private String topic;
     private int partition;
     private long offset;
+    /**
+     * Position, from 1, of a record split out of an envelope; 0 for a record consumed as is.
+     */
+    private int envelopeIndex;
     private Instant timestamp;
     private Map<String, String> headers;
+    private MessageAcknowledgment acknowledgment;
+    private RecordTimings timings;
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.tiger.pocs.ingestion.domain;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Acknowledgment handle travelling with a record through the ingestion pipeline.
+ * The consumer acknowledges on return unless a later stage deferred it to acknowledge
+ * once the record is durably written.
+ */
+public final class MessageAcknowledgment {
+
+    private final Runnable delegate;
+    private final AtomicBoolean deferred = new AtomicBoolean();
+    private final AtomicBoolean acknowledged = new AtomicBoolean();
+
+    private MessageAcknowledgment(Runnable delegate) {
+        this.delegate = delegate;
+    }
+
+    public static MessageAcknowledgment of(Runnable delegate) {
+        return new MessageAcknowledgment(delegate);
+    }
+
+    public void defer() {
+        deferred.set(true);
+    }
+
+    public boolean isDeferred() {
+        return deferred.get();
+    }
+
+    public boolean isAcknowledged() {
+        return acknowledged.get();
+    }
+
+    /**
+     * Acknowledges the underlying record at most once, whichever stage gets there first.
+     */
+    public void acknowledge() {
+        if (acknowledged.compareAndSet(false, true)) {
+            delegate.run();
+        }
+    }
+}
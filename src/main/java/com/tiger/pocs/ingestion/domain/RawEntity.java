@@ -0,0 +1,33 @@
+package com.tiger.pocs.ingestion.domain;
+
+import org.bson.Document;
+
+/**
+ * Payload written as-is to the collection of {@code entityType}, bypassing POJO binding and
+ * {@code MappingMongoConverter}. The entity class only names the target collection; it is never instantiated.
+ */
+public record RawEntity(Class<?> entityType, Document document) {
+
+    public static final String ID_FIELD = "_id";
+    private static final String PAYLOAD_ID_FIELD = "id";
+
+    /**
+     * Parses the JSON payload straight into BSON values and moves its {@code id} to {@code _id}. Scalar ids are
+     * stored as strings, matching the {@code String} ids of the entity classes so both modes address the same document.
+     */
+    public static RawEntity parse(Class<?> entityType, String payload) {
+        var parsed = Document.parse(payload);
+        var id = parsed.remove(PAYLOAD_ID_FIELD);
+        if (id == null) {
+            return new RawEntity(entityType, parsed);
+        }
+
+        var document = new Document(ID_FIELD, id instanceof Number || id instanceof Boolean ? id.toString() : id);
+        document.putAll(parsed);
+        return new RawEntity(entityType, document);
+    }
+
+    public Object id() {
+        return document.get(ID_FIELD);
+    }
+}
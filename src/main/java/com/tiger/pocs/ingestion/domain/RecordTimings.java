@@ -0,0 +1,68 @@
+package com.tiger.pocs.ingestion.domain;
+
+/**
+ * Timestamps of one record on its way through the pipeline: the producer's record timestamp and the wall-clock
+ * receive time, then monotonic {@link System#nanoTime()} entries for each stage. Stages are marked by the thread
+ * that currently owns the record, so plain fields suffice.
+ */
+public final class RecordTimings {
+
+    public enum Stage {
+        RECEIVED, DISPATCHED, CONVERTED, PERSISTED
+    }
+
+    private final long producedAtMillis;
+    private final long receivedAtMillis;
+    private final long[] stageNanos;
+
+    private RecordTimings(long producedAtMillis, long receivedAtMillis, long[] stageNanos) {
+        this.producedAtMillis = producedAtMillis;
+        this.receivedAtMillis = receivedAtMillis;
+        this.stageNanos = stageNanos;
+    }
+
+    /**
+     * Starts the timings of a record just polled from Kafka; a negative producer timestamp means none was set.
+     */
+    public static RecordTimings received(long producedAtMillis) {
+        var timings = new RecordTimings(producedAtMillis, System.currentTimeMillis(), new long[Stage.values().length]);
+        timings.mark(Stage.RECEIVED);
+        return timings;
+    }
+
+    public void mark(Stage stage) {
+        stageNanos[stage.ordinal()] = System.nanoTime();
+    }
+
+    public boolean isMarked(Stage stage) {
+        return stageNanos[stage.ordinal()] != 0;
+    }
+
+    /**
+     * Nanoseconds between two marked stages, or {@code -1} when either was not reached.
+     */
+    public long nanosBetween(Stage from, Stage to) {
+        if (!isMarked(from) || !isMarked(to)) return -1;
+
+        return stageNanos[to.ordinal()] - stageNanos[from.ordinal()];
+    }
+
+    public boolean hasProducerTimestamp() {
+        return producedAtMillis >= 0;
+    }
+
+    public long producedAtMillis() {
+        return producedAtMillis;
+    }
+
+    public long receivedAtMillis() {
+        return receivedAtMillis;
+    }
+
+    /**
+     * Independent timings for each record split from an envelope, sharing the stages reached so far.
+     */
+    public RecordTimings copy() {
+        return new RecordTimings(producedAtMillis, receivedAtMillis, stageNanos.clone());
+    }
+}
@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,4 +19,11 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class UserAccessEntity {
     @Id
     private String id;
+    private String userId;
+    private String accessType;
+    private String resourceId;
+    private String action;
+    private Instant accessTime;
+    private String ipAddress;
+    private Boolean success;
 }
\ No newline at end of file
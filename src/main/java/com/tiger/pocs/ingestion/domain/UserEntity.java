@@ -14,7 +14,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @AllArgsConstructor
 @Document(collection = "users")
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class UserEntity {
+public class UserEntity implements VersionedEntity {
     @Id
     private String id;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.tiger.pocs.ingestion.domain;
+
+/**
+ * Entity carrying an upstream version, so that newer updates of the same id can supersede older ones.
+ */
+public interface VersionedEntity {
+
+    String getId();
+
+    Long getVersion();
+}
@@ -0,0 +1,224 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Additive-increase / multiplicative-decrease limit on concurrent Mongo writes.
+ * Writes wait for a slot without holding a thread, in a FIFO queue: a released slot is handed to the oldest waiter,
+ * and a waiter still queued after the acquire timeout is rejected.
+ * <p>
+ * The limiter does not push back on Kafka by itself, as the listeners hand records over without waiting for their
+ * writes. What bounds the writes queued here is the deferred acknowledgment: with async acks the container pauses
+ * the consumer until the records of its last poll are acknowledged.
+ */
+@Slf4j
+public final class AdaptiveConcurrencyLimiter {
+
+    private final IngestionProperties.Concurrency settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Writes waiting for a slot, oldest first; guarded by the lock
+    private final Deque<MonoSink<Permit>> waiters = new ArrayDeque<>();
+    private final Counter rejections;
+
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(IngestionProperties.Concurrency settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+        this.rejections = Counter.builder("ingestion.persistence.concurrency.rejected")
+                .description("Mongo writes rejected after waiting for the concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("ingestion.persistence.concurrency.limit", this, AdaptiveConcurrencyLimiter::currentLimit)
+                .description("Current adaptive limit of in-flight Mongo writes")
+                .register(meterRegistry);
+        Gauge.builder("ingestion.persistence.concurrency.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Mongo writes currently in flight")
+                .register(meterRegistry);
+    }
+
+    <T> Mono<T> limit(Mono<T> operation) {
+        return limit(operation, ignored -> false);
+    }
+
+    /**
+     * Runs the operation once a slot is free; the slot is released with the observed latency when it terminates.
+     * Only errors and values matching {@code failed} count as failures, so outcomes the caller already handled
+     * (e.g. stale writes reported by Mongo) do not shrink the limit.
+     */
+    <T> Mono<T> limit(Mono<T> operation, Predicate<? super T> failed) {
+        if (!settings.isEnabled()) return operation;
+
+        return acquire(settings.getAcquireTimeout())
+                // A slot handed over just as the write was cancelled goes back to the next waiter
+                .doOnDiscard(Permit.class, Permit::discard)
+                .flatMap(permit -> {
+                    var failedValue = new AtomicBoolean();
+                    return operation
+                            .doOnNext(value -> failedValue.set(failed.test(value)))
+                            .doFinally(signal -> permit.release(
+                                    signal == SignalType.ON_COMPLETE && !failedValue.get()));
+                });
+    }
+
+    /**
+     * Emits a permit once a slot was taken, or fails with {@link RejectedExecutionException} after {@code timeout}.
+     */
+    Mono<Permit> acquire(Duration timeout) {
+        return Mono.create(sink -> {
+            if (tryAcquire(sink)) {
+                sink.success(new Permit());
+                return;
+            }
+            sink.onDispose(Schedulers.parallel().schedule(() -> reject(sink), timeout.toNanos(), TimeUnit.NANOSECONDS));
+            sink.onCancel(() -> withdraw(sink));
+        });
+    }
+
+    boolean tryAcquire() {
+        return tryAcquire(null);
+    }
+
+    /**
+     * Takes a slot if one is free and nobody waits for it, otherwise queues the waiter, if any.
+     */
+    private boolean tryAcquire(MonoSink<Permit> waiter) {
+        lock.lock();
+        try {
+            // Queued writes go first, so a write arriving just as a slot frees up cannot overtake them
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiter != null) waiters.add(waiter);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long latencyNanos, boolean success) {
+        List<MonoSink<Permit>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            if (!success || latencyNanos > settings.getLatencyThreshold().toNanos()) {
+                limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+            } else if (inFlight * 2 >= limit) {
+                // Only grow while the current limit is actually being used
+                limit = Math.min(settings.getMaxLimit(), limit + 1);
+            }
+            granted = handOff();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(waiter -> waiter.success(new Permit()));
+    }
+
+    /**
+     * Frees a slot that was never used, without feedback on the limit.
+     */
+    private void releaseUnused() {
+        List<MonoSink<Permit>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            granted = handOff();
+        } finally {
+            lock.unlock();
+        }
+        granted.forEach(waiter -> waiter.success(new Permit()));
+    }
+
+    /**
+     * Takes the slots now free for the oldest waiters; they are only signalled once the lock is released, as a
+     * permit starts the waiting write on the spot.
+     */
+    private List<MonoSink<Permit>> handOff() {
+        if (waiters.isEmpty() || inFlight >= (int) limit) return List.of();
+
+        List<MonoSink<Permit>> granted = new ArrayList<>();
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+            inFlight++;
+            granted.add(waiters.poll());
+        }
+        return granted;
+    }
+
+    private boolean withdraw(MonoSink<Permit> waiter) {
+        lock.lock();
+        try {
+            return waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reject(MonoSink<Permit> waiter) {
+        // A waiter handed a slot in the meantime is no longer queued
+        if (!withdraw(waiter)) return;
+
+        rejections.increment();
+        waiter.error(new RejectedExecutionException(
+                "Mongo write rejected: concurrency limit " + currentLimit() + " reached"));
+    }
+
+    int currentLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A slot taken for one write, released exactly once: with the write's latency once it terminates, or without
+     * feedback when it was discarded before the write started.
+     */
+    final class Permit {
+
+        private final long grantedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(boolean success) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(System.nanoTime() - grantedAt, success);
+            }
+        }
+
+        private void discard() {
+            if (released.compareAndSet(false, true)) {
+                releaseUnused();
+            }
+        }
+    }
+}
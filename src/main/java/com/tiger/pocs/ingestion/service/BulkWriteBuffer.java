@@ -0,0 +1,163 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.client.model.WriteModel;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write buffer of a single collection. Documents are flushed as one unordered bulk write as soon as
+ * the buffer holds {@code maxDocuments}, {@code maxBytes} or its oldest entry waited {@code maxLatency}.
+ * Every buffered document gets its own completion signal resolved from the bulk write outcome.
+ */
+@Slf4j
+final class BulkWriteBuffer {
+
+    // What made a buffer flush: a size limit, its latency timer or shutdown
+    private static final List<String> TRIGGERS = List.of("documents", "bytes", "latency", "shutdown");
+
+    private final String collection;
+    private final IngestionProperties.CollectionSettings settings;
+    private final Function<List<WriteModel<Document>>, Mono<BulkWriteOutcome>> bulkWriter;
+    private final Scheduler scheduler;
+    private final Map<String, DistributionSummary> flushSizes;
+    private final Timer flushLatency;
+    private final Counter staleSkipped;
+
+    private List<PendingDocument> pending = new ArrayList<>();
+    private long pendingBytes;
+    private Disposable scheduledFlush;
+
+    BulkWriteBuffer(String collection, IngestionProperties.CollectionSettings settings,
+                    Function<List<WriteModel<Document>>, Mono<BulkWriteOutcome>> bulkWriter,
+                    Scheduler scheduler, MeterRegistry meterRegistry) {
+        this.collection = collection;
+        this.settings = settings;
+        this.bulkWriter = bulkWriter;
+        this.scheduler = scheduler;
+        this.flushSizes = TRIGGERS.stream().collect(Collectors.toUnmodifiableMap(Function.identity(),
+                trigger -> DistributionSummary.builder("ingestion.bulk.flush.size")
+                        .description("Documents per bulk write")
+                        .tags("collection", collection, "trigger", trigger)
+                        .register(meterRegistry)));
+        this.flushLatency = Timer.builder("ingestion.bulk.flush.latency")
+                .description("Duration of bulk writes per collection")
+                .tag("collection", collection)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.staleSkipped = Counter.builder("ingestion.persistence.stale.skipped")
+                .description("Conditional upserts skipped because a newer version was already stored")
+                .tag("collection", collection)
+                .register(meterRegistry);
+        meterRegistry.gauge("ingestion.bulk.buffer.pending", Tags.of("collection", collection),
+                this, BulkWriteBuffer::pendingCount);
+    }
+
+    Mono<Void> add(WriteModel<Document> model, int estimatedBytes) {
+        var document = new PendingDocument(model, Sinks.empty());
+        List<PendingDocument> ready = null;
+        String trigger = null;
+
+        synchronized (this) {
+            pending.add(document);
+            pendingBytes += estimatedBytes;
+
+            if (pending.size() >= settings.getMaxDocuments()) {
+                trigger = "documents";
+            } else if (pendingBytes >= settings.getMaxBytes().toBytes()) {
+                trigger = "bytes";
+            }
+
+            if (trigger != null) {
+                ready = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(() -> flush("latency"),
+                        settings.getMaxLatency().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (ready != null) {
+            write(ready, trigger);
+        }
+        return document.completion().asMono();
+    }
+
+    void flush(String trigger) {
+        List<PendingDocument> ready;
+        synchronized (this) {
+            ready = drain();
+        }
+        if (!ready.isEmpty()) {
+            write(ready, trigger);
+        }
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private List<PendingDocument> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.dispose();
+            scheduledFlush = null;
+        }
+        var ready = pending;
+        pending = new ArrayList<>();
+        pendingBytes = 0;
+        return ready;
+    }
+
+    private void write(List<PendingDocument> batch, String trigger) {
+        flushSizes.get(trigger).record(batch.size());
+
+        var models = batch.stream().map(PendingDocument::model).toList();
+        long start = System.nanoTime();
+
+        bulkWriter.apply(models).subscribe(
+                outcome -> {
+                    flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    complete(batch, outcome);
+                },
+                error -> {
+                    flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    log.error("🔴 PERSISTENCE: Bulk write of {} documents to '{}' failed - {}",
+                            batch.size(), collection, error.getMessage(), error);
+                    batch.forEach(document -> document.completion().tryEmitError(error));
+                });
+    }
+
+    private void complete(List<PendingDocument> batch, BulkWriteOutcome outcome) {
+        if (outcome.staleSkipped() > 0) {
+            staleSkipped.increment(outcome.staleSkipped());
+            log.debug("PERSISTENCE: Skipped {} stale documents of {} in '{}'", outcome.staleSkipped(), batch.size(), collection);
+        }
+        for (int index = 0; index < batch.size(); index++) {
+            var completion = batch.get(index).completion();
+            var failure = outcome.failureAt(index);
+            if (failure == null) {
+                completion.tryEmitEmpty();
+            } else {
+                completion.tryEmitError(failure);
+            }
+        }
+    }
+
+    private record PendingDocument(WriteModel<Document> model, Sinks.Empty<Void> completion) {
+    }
+}
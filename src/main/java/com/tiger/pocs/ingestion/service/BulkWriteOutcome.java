@@ -0,0 +1,66 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-document result of a bulk write: documents without a recorded failure were applied,
+ * or skipped as stale when a conditional upsert found a newer stored version.
+ * An ordered bulk write stops at its first error, so the documents after it were never attempted.
+ */
+record BulkWriteOutcome(Map<Integer, Throwable> failures, int staleSkipped, int attemptedUpTo) {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    static BulkWriteOutcome success() {
+        return new BulkWriteOutcome(Map.of(), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * With conditional (version- or offset-guarded) upserts a duplicate key on {@code _id} means the filter did not
+     * match an existing, newer document, so the write is reported as stale rather than failed. A duplicate key on any
+     * other unique index is a real conflict and fails the document.
+     */
+    static BulkWriteOutcome from(MongoBulkWriteException exception, boolean conditional, boolean ordered) {
+        Map<Integer, Throwable> failures = new HashMap<>();
+        int staleSkipped = 0;
+        int attemptedUpTo = Integer.MAX_VALUE;
+        for (BulkWriteError error : exception.getWriteErrors()) {
+            if (ordered) {
+                attemptedUpTo = Math.min(attemptedUpTo, error.getIndex());
+            }
+            if (conditional && isDuplicateId(error)) {
+                staleSkipped++;
+            } else {
+                failures.put(error.getIndex(), new IllegalStateException(
+                        "Bulk write error " + error.getCode() + ": " + error.getMessage()));
+            }
+        }
+        return new BulkWriteOutcome(failures, staleSkipped, attemptedUpTo);
+    }
+
+    /**
+     * The server reports the violated index as {@code keyPattern} in recent versions and names it in the message in
+     * all of them, e.g. {@code E11000 duplicate key error collection: db.clients index: _id_ dup key: ...}.
+     */
+    private static boolean isDuplicateId(BulkWriteError error) {
+        if (error.getCode() != DUPLICATE_KEY) return false;
+
+        if (error.getDetails().get("keyPattern") instanceof BsonDocument keyPattern) {
+            return keyPattern.keySet().equals(Set.of("_id"));
+        }
+        return error.getMessage() != null && error.getMessage().contains(" index: _id_ ");
+    }
+
+    Throwable failureAt(int index) {
+        if (index > attemptedUpTo) {
+            return new IllegalStateException("Not attempted after an earlier error in an ordered bulk write");
+        }
+        return failures.get(index);
+    }
+}
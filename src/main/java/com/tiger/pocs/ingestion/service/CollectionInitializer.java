@@ -0,0 +1,148 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.Storage;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.WriteMode;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares collections before their first write: creates those configured with {@code TIME_SERIES} storage
+ * and indexes the Kafka coordinates of {@code OFFSET_GUARDED} ones. Preparation happens lazily, so a Mongo
+ * outage at startup does not block the service.
+ */
+@Slf4j
+@Component
+public class CollectionInitializer {
+
+    static final String META_FIELD = "meta";
+    static final String COORDINATES_INDEX = "kafka_coordinates";
+    private static final int NAMESPACE_EXISTS = 48;
+    private static final String TIME_SERIES_TYPE = "timeseries";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IngestionProperties.Persistence settings;
+    private final Set<String> initialized = ConcurrentHashMap.newKeySet();
+
+    public CollectionInitializer(ReactiveMongoTemplate mongoTemplate, IngestionProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getPersistence();
+    }
+
+    /**
+     * Completes once the collection is ready for writes; a no-op for plain document collections.
+     */
+    public Mono<Void> ensureInitialized(String collection) {
+        var collectionSettings = settings.settingsFor(collection);
+        boolean timeSeries = collectionSettings.getStorage() == Storage.TIME_SERIES;
+        boolean offsetGuarded = collectionSettings.effectiveWriteMode() == WriteMode.OFFSET_GUARDED;
+        if ((!timeSeries && !offsetGuarded) || initialized.contains(collection)) {
+            return Mono.empty();
+        }
+
+        return (timeSeries ? createTimeSeries(collection, collectionSettings.getTimeSeries()) : Mono.<Void>empty())
+                .then(offsetGuarded ? createCoordinatesIndex(collection) : Mono.empty())
+                .doOnSuccess(ignored -> initialized.add(collection));
+    }
+
+    private Mono<Void> createTimeSeries(String collection, IngestionProperties.TimeSeries timeSeries) {
+        var options = new CreateCollectionOptions().timeSeriesOptions(
+                new TimeSeriesOptions(timeSeries.getTimeField())
+                        .metaField(META_FIELD)
+                        .granularity(timeSeries.getGranularity()));
+        if (timeSeries.getExpireAfter() != null) {
+            options.expireAfter(timeSeries.getExpireAfter().toSeconds(), TimeUnit.SECONDS);
+        }
+
+        return mongoTemplate.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.createCollection(collection, options)))
+                .doOnSuccess(ignored -> log.info("PERSISTENCE: Created time-series collection: {} (time field: {})",
+                        collection, timeSeries.getTimeField()))
+                .onErrorResume(MongoCommandException.class, exception -> exception.getErrorCode() == NAMESPACE_EXISTS
+                        ? requireTimeSeries(collection)
+                        : Mono.error(exception));
+    }
+
+    /**
+     * A collection created earlier as a plain document collection would accept the measurements, but with the
+     * meta fields moved and no bucketing, so writes to it are refused instead.
+     */
+    private Mono<Void> requireTimeSeries(String collection) {
+        return mongoTemplate.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.listCollections().filter(Filters.eq("name", collection)).first()))
+                .flatMap(info -> TIME_SERIES_TYPE.equals(info.getString("type"))
+                        ? Mono.<Void>empty()
+                        : Mono.error(new IllegalStateException("Collection '" + collection + "' already exists as a "
+                        + info.getString("type") + " collection but is configured with TIME_SERIES storage; "
+                        + "migrate it or set its storage to DOCUMENT")));
+    }
+
+    /**
+     * Serves both the conditional upserts and the "last applied offset per partition" lookup.
+     */
+    private Mono<Void> createCoordinatesIndex(String collection) {
+        var keys = Indexes.compoundIndex(
+                Indexes.ascending(KafkaCoordinates.TOPIC_PATH, KafkaCoordinates.PARTITION_PATH),
+                Indexes.descending(KafkaCoordinates.OFFSET_PATH));
+
+        return mongoTemplate.getCollection(collection)
+                .flatMap(mongoCollection -> Mono.from(
+                        mongoCollection.createIndex(keys, new IndexOptions().name(COORDINATES_INDEX))))
+                .doOnSuccess(ignored -> log.info("PERSISTENCE: Ensured Kafka coordinates index on collection: {}", collection))
+                .then();
+    }
+
+    /**
+     * Moves the configured meta fields of a converted entity into the {@code meta} subdocument. Records without a
+     * time value are stamped with the ingestion time, since time-series collections reject them otherwise.
+     */
+    static Document toMeasurement(Document document, IngestionProperties.TimeSeries timeSeries) {
+        var meta = new Document();
+        for (String field : timeSeries.getMetaFields()) {
+            if (document.containsKey(field)) {
+                meta.put(field, document.remove(field));
+            }
+        }
+        if (!meta.isEmpty()) {
+            document.put(META_FIELD, meta);
+        }
+        var time = document.get(timeSeries.getTimeField());
+        if (time instanceof String text) {
+            // Pass-through payloads keep ISO-8601 strings that entity binding would have turned into dates
+            document.put(timeSeries.getTimeField(), Date.from(parseTime(timeSeries.getTimeField(), text)));
+        } else if (time == null) {
+            document.put(timeSeries.getTimeField(), new Date());
+        }
+        return document;
+    }
+
+    /**
+     * An unparseable time cannot become a measurement, so the record is rejected as unconvertible and quarantined.
+     */
+    private static Instant parseTime(String field, String text) {
+        try {
+            return Instant.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new PayloadConversionException(EventType.UNKNOWN, new IllegalArgumentException(
+                    "Time field '" + field + "' is not an ISO-8601 instant: " + e.getMessage(), e));
+        }
+    }
+}
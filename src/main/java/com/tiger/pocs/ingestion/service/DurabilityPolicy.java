@@ -0,0 +1,55 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.WriteConcernResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the per-collection durability settings onto Mongo write concerns and bulk write options,
+ * so telemetry can take cheap acknowledgements while master data stays majority-acknowledged.
+ */
+public final class DurabilityPolicy implements WriteConcernResolver {
+
+    private final IngestionProperties.Persistence settings;
+
+    public DurabilityPolicy(IngestionProperties.Persistence settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Used by {@code ReactiveMongoTemplate} for direct saves.
+     */
+    @Override
+    public WriteConcern resolve(MongoAction action) {
+        return writeConcernFor(action.getCollectionName(), action.getDefaultWriteConcern());
+    }
+
+    WriteConcern writeConcernFor(String collection, WriteConcern defaultConcern) {
+        var durability = settings.settingsFor(collection).getDurability();
+        WriteConcern concern = defaultConcern != null ? defaultConcern : WriteConcern.ACKNOWLEDGED;
+
+        String w = durability.getW();
+        if (w != null && !w.isBlank()) {
+            concern = w.chars().allMatch(Character::isDigit) ? concern.withW(Integer.parseInt(w)) : concern.withW(w);
+        }
+        if (durability.getJournal() != null) {
+            concern = concern.withJournal(durability.getJournal());
+        }
+        if (durability.getWtimeout() != null) {
+            concern = concern.withWTimeout(durability.getWtimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return concern;
+    }
+
+    BulkWriteOptions bulkOptionsFor(String collection) {
+        return new BulkWriteOptions().ordered(settings.settingsFor(collection).getDurability().isOrdered());
+    }
+
+    boolean isOrdered(String collection) {
+        return settings.settingsFor(collection).getDurability().isOrdered();
+    }
+}
@@ -0,0 +1,68 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.tiger.pocs.ingestion.domain.AccountEntity;
+import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.LogOffsetEntity;
+import com.tiger.pocs.ingestion.domain.UserAccessEntity;
+import com.tiger.pocs.ingestion.domain.UserEntity;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One {@link ObjectReader} per event type, built once at startup. Readers are immutable and thread-safe, and
+ * resolve their entity deserializer on first use, so conversions skip the per-call type lookup of
+ * {@code readValue(payload, Class)}. With {@code ingestion.conversion.blackbird-enabled} the readers use a copy
+ * of the application mapper with the Blackbird module, which replaces reflective property access with
+ * generated lambdas; the shared mapper is left untouched.
+ */
+@Slf4j
+@Component
+public class EntityReaderRegistry {
+
+    static final Map<EventType, Class<?>> ENTITY_TYPES = Map.of(
+            EventType.CLIENT, ClientEntity.class,
+            EventType.ACCOUNT, AccountEntity.class,
+            EventType.USER, UserEntity.class,
+            EventType.USER_ACCESS, UserAccessEntity.class,
+            EventType.LOG_OFFSET, LogOffsetEntity.class);
+
+    private final Map<EventType, ObjectReader> readers = new EnumMap<>(EventType.class);
+    private final Set<EventType> passThroughEventTypes;
+
+    public EntityReaderRegistry(ObjectMapper objectMapper, IngestionProperties properties) {
+        boolean blackbird = properties.getConversion().isBlackbirdEnabled();
+        var mapper = blackbird ? objectMapper.copy().registerModule(new BlackbirdModule()) : objectMapper;
+        ENTITY_TYPES.forEach((eventType, entityType) -> readers.put(eventType, mapper.readerFor(entityType)));
+        this.passThroughEventTypes = properties.getConversion().getPassThroughEventTypes();
+
+        log.info("CONVERTER: Prepared readers for {} (blackbird: {}, pass-through: {})",
+                readers.keySet(), blackbird, passThroughEventTypes);
+    }
+
+    /**
+     * Reader of the event type's entity, or {@code null} for event types without one such as {@code UNKNOWN}.
+     */
+    public ObjectReader readerFor(EventType eventType) {
+        return readers.get(eventType);
+    }
+
+    /**
+     * Entity class naming the target collection of the event type, or {@code null} for {@code UNKNOWN}.
+     */
+    public Class<?> entityTypeFor(EventType eventType) {
+        return ENTITY_TYPES.get(eventType);
+    }
+
+    public boolean isPassThrough(EventType eventType) {
+        return passThroughEventTypes.contains(eventType) && ENTITY_TYPES.containsKey(eventType);
+    }
+}
@@ -0,0 +1,97 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.function.BiConsumer;
+
+/**
+ * Splits batch-export envelopes shaped like {@code data-test.json} — one object holding {@code clients},
+ * {@code accounts}, {@code users}, {@code userAccess} and {@code logOffsets} arrays — into one record per array
+ * element. The envelope is walked token by token and each element is copied out on its own, so memory stays
+ * bounded by the largest element rather than the envelope.
+ */
+@Slf4j
+@Component
+public class EnvelopeSplitter {
+
+    private final JsonFactory jsonFactory;
+    private final IngestionProperties.Envelope settings;
+    private final DistributionSummary recordsPerEnvelope;
+
+    public EnvelopeSplitter(ObjectMapper objectMapper, IngestionProperties properties, MeterRegistry meterRegistry) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.settings = properties.getEnvelope();
+        this.recordsPerEnvelope = DistributionSummary.builder("ingestion.envelope.records")
+                .description("Records split out of one envelope payload").register(meterRegistry);
+    }
+
+    /**
+     * Peeks at the first field only: an envelope is an object whose first field names an event type and holds an array.
+     */
+    public boolean isEnvelope(String payload) {
+        if (!settings.isEnabled() || payload == null) return false;
+
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            return parser.nextToken() == JsonToken.START_OBJECT
+                    && parser.nextToken() == JsonToken.FIELD_NAME
+                    && EventType.fromValue(parser.currentName()) != EventType.UNKNOWN
+                    && parser.nextToken() == JsonToken.START_ARRAY;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands every element of the envelope's arrays to {@code recordHandler} as it is reached, with the event type
+     * named by its array. Fields that do not name an event type or hold no array are skipped.
+     *
+     * @return the number of records handed over
+     * @throws IOException when the envelope is malformed; records before the error were already handed over
+     */
+    public int split(String payload, BiConsumer<EventType, String> recordHandler) throws IOException {
+        int records = 0;
+        var element = new StringWriter();
+
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Envelope must be a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                var eventType = EventType.fromValue(field);
+                if (parser.nextToken() != JsonToken.START_ARRAY || eventType == EventType.UNKNOWN) {
+                    log.debug("ENVELOPE: Skipping field {} without records", field);
+                    parser.skipChildren();
+                    continue;
+                }
+
+                for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                    if (token == null) {
+                        throw new IOException("Envelope ended inside the " + field + " array");
+                    }
+                    element.getBuffer().setLength(0);
+                    try (var generator = jsonFactory.createGenerator(element)) {
+                        generator.copyCurrentStructure(parser);
+                    }
+                    recordHandler.accept(eventType, element.toString());
+                    records++;
+                }
+            }
+        } finally {
+            recordsPerEnvelope.record(records);
+        }
+        return records;
+    }
+}
@@ -1,24 +1,116 @@
 package com.tiger.pocs.ingestion.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.Message;
 import com.tiger.pocs.ingestion.domain.MessageProcessedEvent;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
 
+
+/**
+ * Resolves the event type of a record so that several entity types can share a topic.
+ * Resolution order: record header, topic mapping, then a streaming peek at the payload discriminator.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class EventTypeDetector {
 
     private final EventTypeMapping topicMapping;
+    private final JsonFactory jsonFactory;
+    private final IngestionProperties.Detection detection;
+
+    public EventTypeDetector(EventTypeMapping topicMapping, ObjectMapper objectMapper, IngestionProperties properties) {
+        this.topicMapping = topicMapping;
+        this.jsonFactory = objectMapper.getFactory();
+        this.detection = properties.getDetection();
+    }
 
-    public enum EventType {CLIENT, ACCOUNT, USER, USER_ACCESS, LOG_OFFSET, UNKNOWN}
+    public enum EventType {
+        CLIENT, ACCOUNT, USER, USER_ACCESS, LOG_OFFSET, UNKNOWN;
+
+        /**
+         * Lenient lookup accepting names such as "CLIENT", "clients", "userAccess" or "log-offsets".
+         */
+        public static EventType fromValue(String value) {
+            if (value == null || value.isBlank()) return UNKNOWN;
+
+            var builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isLetter(c)) builder.append(c);
+            }
+            String normalized = builder.toString().toUpperCase(Locale.ROOT);
+
+            for (EventType type : values()) {
+                String candidate = type.name().replace("_", "");
+                if (candidate.equals(normalized) || (candidate + "S").equals(normalized)) {
+                    return type;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
 
     public EventType detectEventType(MessageProcessedEvent event) {
-        String topic = event.getMessage() != null ? event.getMessage().getTopic() : null;
-        return detectFromTopic(topic);
+        Message<?> message = event.getMessage();
+
+        EventType fromHeader = detectFromHeaders(message);
+        if (fromHeader != EventType.UNKNOWN) return fromHeader;
+
+        EventType fromTopic = detectFromTopic(message != null ? message.getTopic() : null);
+        if (fromTopic != EventType.UNKNOWN || !detection.isPayloadPeekEnabled()) return fromTopic;
+
+        return detectFromPayload(message);
+    }
+
+    private EventType detectFromHeaders(Message<?> message) {
+        if (message == null) return EventType.UNKNOWN;
+
+        Map<String, String> headers = message.getHeaders();
+        if (headers == null || headers.isEmpty()) return EventType.UNKNOWN;
+
+        return EventType.fromValue(headers.get(detection.getHeaderName()));
     }
 
     private EventType detectFromTopic(String topic) {
         return topicMapping.getEventTypeForTopic(topic);
     }
-}
\ No newline at end of file
+
+    private EventType detectFromPayload(Message<?> message) {
+        if (message == null || message.getValue() == null) return EventType.UNKNOWN;
+
+        return EventType.fromValue(peekDiscriminator(message.getValue().toString()));
+    }
+
+    /**
+     * Reads top-level tokens only until the discriminator field is found; nested values are skipped
+     * without being bound, so the cost stays well below a full parse of the payload.
+     */
+    String peekDiscriminator(String payload) {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+
+                if (detection.getDiscriminatorField().equals(fieldName)) {
+                    return valueToken == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            log.debug("DETECTOR: Unable to peek discriminator field '{}': {}",
+                    detection.getDiscriminatorField(), e.getMessage());
+        }
+        return null;
+    }
+}
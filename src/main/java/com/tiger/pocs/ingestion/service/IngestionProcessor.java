@@ -1,11 +1,23 @@
 package com.tiger.pocs.ingestion.service;
 
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
 import com.tiger.pocs.ingestion.domain.MessageProcessedEvent;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.ingestion.domain.RecordTimings.Stage;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.sink.PersistenceSinkRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
 /**
  * Orchestrator component that coordinates the ingestion pipeline.
  * Applies single responsibility principle by delegating specific tasks to dedicated services.
@@ -18,39 +30,178 @@ public class IngestionProcessor {
     private final PayloadValidator payloadValidator;
     private final EventTypeDetector eventTypeDetector;
     private final PayloadConverter payloadConverter;
-    private final PersistenceService entityPersistenceService;
-
+    private final PersistenceSinkRouter sinkRouter;
+    private final WriteCoalescer writeCoalescer;
+    private final QuarantineStore quarantineStore;
+    private final EnvelopeSplitter envelopeSplitter;
+    private final LatencyTracker latencyTracker;
+    private final PipelineLogger pipelineLogger;
+    private final IngestionProperties properties;
 
     @EventListener
     public void processKafkaEvent(MessageProcessedEvent event) {
+        mark(event.getMessage(), Stage.DISPATCHED);
         var eventContext = extractEventContext(event);
 
-        log.info("ORCHESTRATOR: Starting ingestion pipeline for topic: {} (key: {}) via handler: {}",
+        log.debug("ORCHESTRATOR: Starting ingestion pipeline for topic: {} (key: {}) via handler: {}",
                 eventContext.topic(), eventContext.messageKey(), eventContext.handlerName());
 
         try {
             // Step 1: Validate and extract payload
             String payload = payloadValidator.validateAndExtractPayload(event);
             if (payload == null) {
-                log.info("ORCHESTRATOR: Skipping processing due to invalid payload for topic: {}", eventContext.topic());
+                log.debug("ORCHESTRATOR: Skipping processing due to invalid payload for topic: {}", eventContext.topic());
                 return;
             }
 
+            // Only a record of no known type is split, so an entity that merely looks like an envelope stays whole
             var eventType = eventTypeDetector.detectEventType(event);
-            log.info("ORCHESTRATOR: Detected event type: {} for topic: {}", eventType, eventContext.topic());
-            var entity = payloadConverter.convertToEntity(payload, eventType);
-            entityPersistenceService.persistEntity(entity, eventType, eventContext.topic(), eventContext.messageKey());
+            if (eventType == EventType.UNKNOWN && envelopeSplitter.isEnvelope(payload)) {
+                ingestEnvelope(payload, event.getMessage(), eventContext);
+            } else {
+                log.debug("ORCHESTRATOR: Detected event type: {} for topic: {}", eventType, eventContext.topic());
+                ingest(payload, eventType, event.getMessage());
+            }
 
-            log.info("ORCHESTRATOR: Successfully completed ingestion pipeline for topic: {} (key: {})",
+            log.debug("ORCHESTRATOR: Successfully completed ingestion pipeline for topic: {} (key: {})",
                     eventContext.topic(), eventContext.messageKey());
 
         } catch (Exception e) {
-            log.error("ORCHESTRATOR: Pipeline failed for topic: {} (key: {}) via handler: {} - {}",
-                    eventContext.topic(), eventContext.messageKey(), eventContext.handlerName(), e.getMessage(), e);
+            // The record's only error line: the processor and consumer that see the exception next log it at debug
+            pipelineLogger.failed("ingest", null, event.getMessage(), e);
             throw e;
         }
     }
 
+    /**
+     * Converts one record and routes it to the coalescer, its sink or, when unconvertible, the quarantine.
+     */
+    private void ingest(String payload, EventType eventType, Message<?> message) {
+        Object entity;
+        try {
+            entity = payloadConverter.convertToEntity(payload, eventType, message);
+        } catch (PayloadConversionException e) {
+            pipelineLogger.quarantined(eventType, message, e);
+            quarantineStore.quarantine(payload, eventType, message, e);
+            return;
+        }
+        mark(message, Stage.CONVERTED);
+
+        Consumer<Throwable> onFailure = error -> writeFailed(payload, eventType, message, error);
+        if (writeCoalescer.accepts(entity, eventType)) {
+            writeCoalescer.submit(entity, eventType, message, onFailure);
+        } else {
+            persist(entity, eventType, message, onFailure);
+        }
+    }
+
+    /**
+     * The container commits offsets only up to the first unacknowledged record, so a record whose write keeps
+     * failing is not left pending: it goes to the quarantine with its error, which acknowledges it once stored.
+     */
+    private void writeFailed(String payload, EventType eventType, Message<?> message, Throwable error) {
+        if (error instanceof PayloadConversionException) {
+            pipelineLogger.quarantined(eventType, message, error);
+        } else {
+            pipelineLogger.failed("persist", eventType, message, error);
+        }
+        quarantineStore.quarantine(payload, eventType, message, error);
+    }
+
+    /**
+     * Ingests every record of an envelope as if it had arrived on its own. Each record gets its own acknowledgment,
+     * and the envelope is acknowledged once all of them were released, so its offset only commits after every write.
+     * Records share the envelope's offset and carry their position in it, so offset-guarded writes of the same id
+     * keep the later record instead of dropping it as stale.
+     */
+    private void ingestEnvelope(String payload, Message<?> message, EventContext eventContext) {
+        var acknowledgment = message != null ? message.getAcknowledgment() : null;
+        if (acknowledgment != null) {
+            acknowledgment.defer();
+        }
+
+        // Starts at one for the split itself, so the envelope cannot complete while records are still being read
+        var pending = new AtomicInteger(1);
+        var index = new AtomicInteger();
+        Runnable release = () -> {
+            if (pending.decrementAndGet() == 0 && acknowledgment != null) {
+                acknowledgment.acknowledge();
+            }
+        };
+
+        int records;
+        try {
+            records = envelopeSplitter.split(payload, (eventType, record) -> {
+                pending.incrementAndGet();
+                var recordAcknowledgment = MessageAcknowledgment.of(release);
+                ingest(record, eventType,
+                        recordMessage(message, record, index.incrementAndGet(), recordAcknowledgment));
+                if (!recordAcknowledgment.isDeferred()) {
+                    recordAcknowledgment.acknowledge();
+                }
+            });
+        } catch (IOException e) {
+            pipelineLogger.quarantined(EventType.UNKNOWN, message, e);
+            quarantineStore.quarantine(payload, EventType.UNKNOWN, message,
+                    new PayloadConversionException(EventType.UNKNOWN, e));
+            return;
+        }
+
+        log.debug("ORCHESTRATOR: Split envelope from topic: {} (key: {}) into {} records",
+                eventContext.topic(), eventContext.messageKey(), records);
+        release.run();
+    }
+
+    private static Message<String> recordMessage(Message<?> envelope, String record, int index,
+                                                 MessageAcknowledgment acknowledgment) {
+        var builder = Message.<String>builder().value(record).acknowledgment(acknowledgment);
+        if (envelope != null) {
+            builder.key(envelope.getKey())
+                    .topic(envelope.getTopic())
+                    .partition(envelope.getPartition())
+                    .offset(envelope.getOffset())
+                    .envelopeIndex(index)
+                    .timestamp(envelope.getTimestamp())
+                    .headers(envelope.getHeaders())
+                    .timings(envelope.getTimings() != null ? envelope.getTimings().copy() : null);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Hands the entity to the sink of its event type and acknowledges the record only once its write completed.
+     * Failed writes are retried before the record is handed to {@code onFailure}.
+     */
+    private void persist(Object entity, EventType eventType, Message<?> message, Consumer<Throwable> onFailure) {
+        var acknowledgment = message != null ? message.getAcknowledgment() : null;
+        if (acknowledgment != null) {
+            acknowledgment.defer();
+        }
+
+        sinkRouter.persistEntity(entity, eventType, message)
+                .retryWhen(properties.getPersistence().getRetry().toSpec())
+                .subscribe(
+                        null,
+                        onFailure,
+                        () -> {
+                            if (message != null) {
+                                latencyTracker.recordPersisted(message.getTopic(), message.getTimings());
+                                pipelineLogger.persisted(eventType, KafkaCoordinates.of(message), message.getKey(),
+                                        message.getTimings());
+                            }
+                            if (acknowledgment != null) {
+                                acknowledgment.acknowledge();
+                            }
+                        });
+    }
+
+    private static void mark(Message<?> message, Stage stage) {
+        RecordTimings timings = message != null ? message.getTimings() : null;
+        if (timings != null) {
+            timings.mark(stage);
+        }
+    }
+
     /**
      * Extracts event context information for logging and processing.
      */
@@ -0,0 +1,142 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.ingestion.domain.RecordTimings.Stage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records where the time of each persisted record went, per topic, as {@code ingestion.latency} timers tagged
+ * with the {@link Segment}. The timers keep HdrHistogram-backed percentiles over a sliding window, published with
+ * the other metrics and summarised by {@link #snapshot()}.
+ */
+@Component
+public class LatencyTracker {
+
+    private static final String UNKNOWN_TOPIC = "unknown";
+
+    /**
+     * Parts of a record's latency. {@code TRANSIT} compares the producer's clock with ours and is only as exact
+     * as their synchronisation; the other segments within the service are monotonic.
+     */
+    public enum Segment {
+        /** Producer record timestamp to consumer receive. */
+        TRANSIT("transit"),
+        /** Receive to the start of the ingestion pipeline. */
+        DISPATCH("dispatch"),
+        /** Validation, type detection and conversion. */
+        CONVERSION("conversion"),
+        /** Converted entity to the acknowledged write, including any coalescing or concurrency wait. */
+        PERSISTENCE("persistence"),
+        /** Receive to the acknowledged write. */
+        SERVICE("service"),
+        /** Producer record timestamp to the acknowledged write. */
+        END_TO_END("end-to-end");
+
+        private final String tag;
+
+        Segment(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final IngestionProperties.Latency settings;
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+    private final Map<String, Map<Segment, Timer>> timersByTopic = new ConcurrentHashMap<>();
+
+    public LatencyTracker(IngestionProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getLatency();
+        this.meterRegistry = meterRegistry;
+        this.percentiles = settings.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Marks the record as persisted and records each segment it went through.
+     */
+    public void recordPersisted(String topic, RecordTimings timings) {
+        if (!settings.isEnabled() || timings == null) return;
+
+        timings.mark(Stage.PERSISTED);
+        var timers = timersByTopic.computeIfAbsent(topic != null ? topic : UNKNOWN_TOPIC, this::timers);
+
+        record(timers.get(Segment.DISPATCH), timings.nanosBetween(Stage.RECEIVED, Stage.DISPATCHED));
+        record(timers.get(Segment.CONVERSION), timings.nanosBetween(Stage.DISPATCHED, Stage.CONVERTED));
+        record(timers.get(Segment.PERSISTENCE), timings.nanosBetween(Stage.CONVERTED, Stage.PERSISTED));
+        long service = timings.nanosBetween(Stage.RECEIVED, Stage.PERSISTED);
+        record(timers.get(Segment.SERVICE), service);
+
+        if (timings.hasProducerTimestamp()) {
+            long transit = TimeUnit.MILLISECONDS.toNanos(timings.receivedAtMillis() - timings.producedAtMillis());
+            record(timers.get(Segment.TRANSIT), transit);
+            record(timers.get(Segment.END_TO_END), service >= 0 ? Math.max(transit, 0) + service : -1);
+        }
+    }
+
+    /**
+     * Current percentiles in milliseconds per topic and segment, together with the count and maximum of the window.
+     */
+    public Map<String, Map<String, Map<String, Double>>> snapshot() {
+        Map<String, Map<String, Map<String, Double>>> snapshot = new TreeMap<>();
+        timersByTopic.forEach((topic, timers) -> {
+            Map<String, Map<String, Double>> segments = new LinkedHashMap<>();
+            timers.forEach((segment, timer) -> {
+                var histogram = timer.takeSnapshot();
+                if (histogram.count() == 0) return;
+
+                Map<String, Double> values = new LinkedHashMap<>();
+                values.put("count", (double) histogram.count());
+                for (ValueAtPercentile percentile : histogram.percentileValues()) {
+                    values.put("p" + percentileLabel(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+                }
+                values.put("max", histogram.max(TimeUnit.MILLISECONDS));
+                segments.put(segment.tag(), values);
+            });
+            snapshot.put(topic, segments);
+        });
+        return snapshot;
+    }
+
+    private Map<Segment, Timer> timers(String topic) {
+        Map<Segment, Timer> timers = new EnumMap<>(Segment.class);
+        for (Segment segment : Segment.values()) {
+            timers.put(segment, Timer.builder("ingestion.latency")
+                    .description("Latency of persisted records per topic and pipeline segment")
+                    .tag("topic", topic)
+                    .tag("segment", segment.tag())
+                    .publishPercentiles(percentiles)
+                    .distributionStatisticExpiry(settings.getExpiry())
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    private static void record(Timer timer, long nanos) {
+        // Unreached stages and clock skew beyond the producer's timestamp are left out rather than recorded as zero
+        if (nanos >= 0) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 0.5 becomes "50", 0.99 "99" and 0.999 "999", matching the usual p50/p99/p999 names.
+     */
+    static String percentileLabel(double percentile) {
+        return BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros().toPlainString().replace(".", "");
+    }
+}
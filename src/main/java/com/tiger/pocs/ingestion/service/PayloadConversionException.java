@@ -0,0 +1,24 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import lombok.Getter;
+
+/**
+ * Raised when a payload cannot be mapped to the entity of its event type. The message only carries the parser's
+ * own description of the problem, never the payload, so it stays short enough to log and store per record.
+ */
+@Getter
+public class PayloadConversionException extends RuntimeException {
+
+    private final EventType eventType;
+
+    public PayloadConversionException(EventType eventType, Throwable cause) {
+        super(describe(cause), cause);
+        this.eventType = eventType;
+    }
+
+    private static String describe(Throwable cause) {
+        return cause instanceof JsonProcessingException json ? json.getOriginalMessage() : cause.getMessage();
+    }
+}
@@ -1,9 +1,9 @@
 package com.tiger.pocs.ingestion.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.tiger.pocs.ingestion.domain.*;
-import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.RawEntity;
 import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.jfr.PayloadConvertedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -16,50 +16,66 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class PayloadConverter {
 
-    private final ObjectMapper objectMapper;
+    private final EntityReaderRegistry readerRegistry;
+
+    /**
+     * Converts the payload of a record, spanning the conversion with a JFR event that carries the record's
+     * coordinates.
+     *
+     * @throws PayloadConversionException when the payload does not map to the entity of its event type
+     */
+    public Object convertToEntity(String payload, EventType eventType, Message<?> message) {
+        var event = new PayloadConvertedEvent();
+        event.begin();
+        boolean succeeded = false;
+        try {
+            Object entity = convertToEntity(payload, eventType);
+            succeeded = true;
+            return entity;
+        } finally {
+            if (event.shouldCommit()) {
+                if (message != null) {
+                    event.record(message.getTopic(), message.getPartition(), message.getOffset(),
+                            payload != null ? payload.length() : 0);
+                }
+                event.outcome(eventType.name(), succeeded);
+                event.commit();
+            }
+        }
+    }
 
     /**
      * Converts JSON payload to the appropriate entity based on event type.
+     *
+     * @throws PayloadConversionException when the payload does not map to the entity of its event type
      */
     public Object convertToEntity(String payload, EventType eventType) {
+        if (payload == null) return null;
+
+        if (readerRegistry.isPassThrough(eventType)) {
+            return toRawEntity(payload, eventType);
+        }
+
+        var reader = readerRegistry.readerFor(eventType);
+        if (reader == null) {
+            log.debug("Unknown event type, skipping save - no entity will be persisted");
+            return null;
+        }
+
         try {
-            log.info("Converting payload to {} entity ...", eventType);
-            
-            return switch (eventType) {
-                case CLIENT -> {
-                    var entity = objectMapper.readValue(payload, ClientEntity.class);
-                    log.info("🔵 Converted to ClientEntity: {}", entity.getId());
-                    yield entity;
-                }
-                case ACCOUNT -> {
-                    var entity = objectMapper.readValue(payload, AccountEntity.class);
-                    log.info("🟣 Converted to AccountEntity: {}", entity.getId());
-                    yield entity;
-                }
-                case USER -> {
-                    var entity = objectMapper.readValue(payload, UserEntity.class);
-                    log.info("🟢 Converted to UserEntity: {}", entity.getId());
-                    yield entity;
-                }
-                case USER_ACCESS -> {
-                    var entity = objectMapper.readValue(payload, UserAccessEntity.class);
-                    log.info("🟠 Converted to UserAccessEntity: {}", entity.getId());
-                    yield entity;
-                }
-                case LOG_OFFSET -> {
-                    var entity = objectMapper.readValue(payload, LogOffsetEntity.class);
-                    log.info("🟡 Converted to LogOffsetEntity: {}", entity.getId());
-                    yield entity;
-                }
-                case UNKNOWN -> {
-                    log.warn("⚠️ Unknown event type, skipping save - no entity will be persisted");
-                    yield null;
-                }
-            };
+            Object entity = reader.readValue(payload);
+            log.debug("Converted payload to {} entity", eventType);
+            return entity;
+        } catch (Exception e) {
+            throw new PayloadConversionException(eventType, e);
+        }
+    }
+
+    private RawEntity toRawEntity(String payload, EventType eventType) {
+        try {
+            return RawEntity.parse(readerRegistry.entityTypeFor(eventType), payload);
         } catch (Exception e) {
-            log.error("❌ Failed to convert payload to {} entity: {}", eventType, e.getMessage(), e);
-            log.warn("🔄 Falling back to raw string storage for payload: {}", payload);
-            return payload;
+            throw new PayloadConversionException(eventType, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,211 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.MongoWriteConcernException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.WriteMode;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.journal.WriteAheadJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind buffer for Mongo outages: documents that could not be written are appended to a local
+ * {@link WriteAheadJournal} and drained back to their collections in bulk once Mongo accepts writes again.
+ */
+@Slf4j
+@Component
+public class PersistenceJournal {
+
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IngestionProperties.Journal settings;
+    private final DurabilityPolicy durabilityPolicy;
+    private final CollectionInitializer collectionInitializer;
+    private final MeterRegistry meterRegistry;
+    private final Counter drained;
+    private final Counter dropped;
+    private final Timer drainTimer;
+    private volatile WriteAheadJournal journal;
+
+    public PersistenceJournal(ReactiveMongoTemplate mongoTemplate, IngestionProperties properties,
+                              MeterRegistry meterRegistry, CollectionInitializer collectionInitializer,
+                              DurabilityPolicy durabilityPolicy) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getJournal();
+        this.durabilityPolicy = durabilityPolicy;
+        this.collectionInitializer = collectionInitializer;
+        this.meterRegistry = meterRegistry;
+        this.drained = Counter.builder("ingestion.journal.drained")
+                .description("Journaled documents written back to Mongo").register(meterRegistry);
+        this.dropped = Counter.builder("ingestion.journal.dropped")
+                .description("Journaled documents Mongo rejected permanently while draining").register(meterRegistry);
+        this.drainTimer = Timer.builder("ingestion.journal.drain.batch")
+                .description("Time to write one journal batch back to Mongo").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!settings.isEnabled()) return;
+
+        journal = new WriteAheadJournal("persistence", Path.of(settings.getDirectory()), settings.getSegmentSize(),
+                settings.getMaxSize(), settings.isForceOnAppend(), meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Failures that signal Mongo being unreachable or overloaded rather than a bad document. A write rejected by
+     * the concurrency limiter never reached Mongo, so it is retried by the caller instead of being journalled, which
+     * would send every later write to the journal too.
+     */
+    public static boolean isRetryable(Throwable error) {
+        return error instanceof MongoSocketException
+                || error instanceof MongoTimeoutException
+                || error instanceof MongoWriteConcernException
+                || error instanceof MongoBulkWriteException bulk && bulk.getWriteConcernError() != null;
+    }
+
+    /**
+     * While older writes wait in the journal, new writes queue behind them so a drain never overwrites newer data.
+     */
+    public boolean hasBacklog() {
+        return journal != null && journal.hasPending();
+    }
+
+    /**
+     * Journals a converted document, returning {@code false} when journaling is disabled or the journal is full.
+     */
+    public boolean append(String collection, WriteMode writeMode, Document document) {
+        if (journal == null) return false;
+
+        var entry = new Document("collection", collection)
+                .append("writeMode", writeMode.name())
+                .append("document", document);
+        ByteBuffer bytes = new RawBsonDocument(entry, CODEC).getByteBuffer().asNIO();
+        byte[] record = new byte[bytes.remaining()];
+        bytes.get(record);
+        return journal.append(record);
+    }
+
+    @Scheduled(fixedDelayString = "${ingestion.journal.drain-interval:PT1S}")
+    public void drain() {
+        if (journal == null) return;
+
+        for (int i = 0; i < settings.getMaxBatchesPerDrain(); i++) {
+            var batch = journal.read(settings.getDrainBatchSize());
+            if (batch.isEmpty()) return;
+
+            try {
+                drainTimer.record(() -> write(batch.records()).block(settings.getDrainTimeout()));
+            } catch (RuntimeException e) {
+                log.warn("JOURNAL: Drain of {} documents paused, Mongo still unavailable - {}",
+                        batch.size(), e.getMessage());
+                return;
+            }
+            journal.commit(batch);
+            drained.increment(batch.size());
+            log.info("JOURNAL: Drained {} documents back to MongoDB", batch.size());
+        }
+    }
+
+    private Mono<Void> write(List<byte[]> records) {
+        // Keep one journaled write per document, the one that would win against the others in Mongo
+        Map<String, Map<Object, Journaled>> byCollection = new LinkedHashMap<>();
+        for (byte[] record : records) {
+            Document entry = new RawBsonDocument(record).decode(CODEC);
+            Document document = entry.get("document", Document.class);
+            Object key = document.get("_id") != null ? document.get("_id") : new Object();
+
+            byCollection.computeIfAbsent(entry.getString("collection"), name -> new LinkedHashMap<>())
+                    .merge(key, new Journaled(document, WriteMode.valueOf(entry.getString("writeMode"))),
+                            (current, incoming) -> incoming.supersedes(current) ? incoming : current);
+        }
+
+        return Flux.fromIterable(byCollection.entrySet())
+                .concatMap(entry -> bulkWrite(entry.getKey(), entry.getValue().values().stream()
+                        .map(journaled -> WriteModels.of(journaled.document(), journaled.writeMode()))
+                        .toList()))
+                .then();
+    }
+
+    private Mono<Void> bulkWrite(String collection, List<WriteModel<Document>> models) {
+        // Drains stay unordered since they only carry the last write per document, but honour the write concern
+        return collectionInitializer.ensureInitialized(collection)
+                .then(mongoTemplate.getCollection(collection))
+                .map(mongoCollection -> mongoCollection.withWriteConcern(
+                        durabilityPolicy.writeConcernFor(collection, mongoCollection.getWriteConcern())))
+                .flatMap(mongoCollection -> Mono.from(mongoCollection.bulkWrite(models, UNORDERED)))
+                .then()
+                .onErrorResume(MongoBulkWriteException.class, exception -> {
+                    if (exception.getWriteConcernError() != null) return Mono.error(exception);
+
+                    // Duplicate keys are version-guarded writes that lost to newer data; anything else cannot succeed on retry
+                    long rejected = exception.getWriteErrors().stream()
+                            .map(BulkWriteError::getCode)
+                            .filter(code -> code != DUPLICATE_KEY)
+                            .count();
+                    if (rejected > 0) {
+                        dropped.increment(rejected);
+                        log.error("JOURNAL: Mongo rejected {} journaled documents for collection: {} - {}",
+                                rejected, collection, exception.getMessage());
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private record Journaled(Document document, WriteMode writeMode) {
+
+        /**
+         * Guarded writes keep the highest version, or the highest offset of the same topic-partition, whatever the
+         * order they were journaled in; otherwise, and on ties, the later write wins.
+         */
+        boolean supersedes(Journaled current) {
+            if (writeMode == WriteMode.VERSION_GUARDED
+                    && document.get("version") instanceof Number incoming
+                    && current.document().get("version") instanceof Number stored) {
+                return incoming.longValue() >= stored.longValue();
+            }
+
+            var incoming = KafkaCoordinates.from(document);
+            var stored = KafkaCoordinates.from(current.document());
+            if (writeMode == WriteMode.OFFSET_GUARDED && incoming != null && stored != null
+                    && incoming.topic().equals(stored.topic()) && incoming.partition() == stored.partition()) {
+                return !incoming.isBefore(stored);
+            }
+            return true;
+        }
+    }
+}
@@ -1,35 +1,259 @@
 package com.tiger.pocs.ingestion.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.Storage;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.WriteMode;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.RawEntity;
 import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
-import lombok.RequiredArgsConstructor;
+import com.tiger.pocs.ingestion.sink.PersistenceSink;
+import com.tiger.pocs.jfr.RecordPersistedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class PersistenceService {
+public class PersistenceService implements PersistenceSink {
 
     private final ReactiveMongoTemplate mongoTemplate;
+    private final IngestionProperties.Persistence settings;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DurabilityPolicy durabilityPolicy;
+    private final PersistenceJournal journal;
+    private final CollectionInitializer collectionInitializer;
+    private final Map<String, BulkWriteBuffer> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * Direct saves pick up the per-collection write concern through the template, which is configured with the same
+     * {@link DurabilityPolicy} in {@code IngestionConfiguration}.
+     */
+    public PersistenceService(ReactiveMongoTemplate mongoTemplate, IngestionProperties properties,
+                              MeterRegistry meterRegistry, PersistenceJournal journal,
+                              CollectionInitializer collectionInitializer, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                              DurabilityPolicy durabilityPolicy) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getPersistence();
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.journal = journal;
+        this.collectionInitializer = collectionInitializer;
+        this.durabilityPolicy = durabilityPolicy;
+    }
 
-    public void persistEntity(Object entity, EventType eventType, String topic, String messageKey) {
-        if (entity != null) {
-            log.info("PERSISTENCE: Saving {} entity to MongoDB for topic: {}", eventType, topic);
+    @Override
+    public String name() {
+        return "mongo";
+    }
 
-            mongoTemplate.save(entity).subscribe(
-                    result -> log.info(
-                            "🟢 PERSISTENCE: {} entity saved successfully for topic: {} (key: {})",
-                            eventType, topic, messageKey),
+    /**
+     * Persists the entity converted from the given record. The returned {@link Mono} completes once the
+     * entity is written, either directly or as part of its collection's bulk write.
+     */
+    @Override
+    public Mono<Void> persistEntity(Object entity, EventType eventType, Message<?> message) {
+        String topic = message != null ? message.getTopic() : "unknown";
+        String messageKey = message != null ? message.getKey() : "unknown";
 
-                    error -> log.error(
-                            "🔴 PERSISTENCE: ❌ Failed to save {} entity for topic: {} (key: {}) - {}",
-                            eventType, topic, messageKey, error.getMessage(), error)
-            );
-        } else {
-            log.info("PERSISTENCE: Skipping save for {} event type from topic: {} (key: {}) - entity is null",
+        if (entity == null) {
+            log.debug("PERSISTENCE: Skipping save for {} event type from topic: {} (key: {}) - entity is null",
                     eventType, topic, messageKey);
+            return Mono.empty();
+        }
+
+        // The outcome is logged once per record by the PipelineLogger of the caller
+        log.debug("PERSISTENCE: Saving {} entity to MongoDB for topic: {} (key: {})", eventType, topic, messageKey);
+        return Mono.defer(() -> write(entity, KafkaCoordinates.of(message), estimateSize(message)));
+    }
+
+    /**
+     * Saves a batch of entities and completes once every save succeeded, so callers can commit afterwards.
+     */
+    public Mono<Void> saveAll(Collection<?> entities) {
+        Map<Object, KafkaCoordinates> withoutCoordinates = new LinkedHashMap<>();
+        entities.forEach(entity -> withoutCoordinates.put(entity, null));
+        return saveAll(withoutCoordinates);
+    }
+
+    @Override
+    public Mono<Void> saveAll(EventType eventType, Map<?, KafkaCoordinates> entities) {
+        return saveAll(entities);
+    }
+
+    /**
+     * Saves a batch of entities, each with the coordinates of the record it was converted from.
+     */
+    public Mono<Void> saveAll(Map<?, KafkaCoordinates> entities) {
+        log.debug("PERSISTENCE: Saving batch of {} entities to MongoDB", entities.size());
+
+        return Flux.fromIterable(entities.entrySet())
+                .flatMap(entry -> write(entry.getKey(), entry.getValue(), 0))
+                .then();
+    }
+
+    /**
+     * Highest offset applied to the collection from the given topic-partition, read through the coordinates index.
+     */
+    public Mono<Long> lastAppliedOffset(Class<?> entityType, String topic, int partition) {
+        var filter = Filters.and(
+                Filters.eq(KafkaCoordinates.TOPIC_PATH, topic),
+                Filters.eq(KafkaCoordinates.PARTITION_PATH, partition));
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityType))
+                .flatMap(mongoCollection -> Mono.from(mongoCollection.find(filter)
+                        .sort(Sorts.descending(KafkaCoordinates.OFFSET_PATH))
+                        .projection(Projections.include(KafkaCoordinates.OFFSET_PATH))
+                        .first()))
+                .mapNotNull(KafkaCoordinates::from)
+                .map(KafkaCoordinates::offset);
+    }
+
+    @PreDestroy
+    public void flushBuffers() {
+        buffers.values().forEach(buffer -> buffer.flush("shutdown"));
+    }
+
+    private Mono<Void> write(Object entity, KafkaCoordinates coordinates, int estimatedBytes) {
+        var write = writeOrJournal(entity, coordinates, estimatedBytes);
+        return RecordPersistedEvent.isRecording() ? traced(write, collectionOf(entity), coordinates, estimatedBytes) : write;
+    }
+
+    private Mono<Void> writeOrJournal(Object entity, KafkaCoordinates coordinates, int estimatedBytes) {
+        String collection = collectionOf(entity);
+        var collectionSettings = settings.settingsFor(collection);
+        var writeMode = collectionSettings.effectiveWriteMode();
+
+        if (journal.hasBacklog()) {
+            return journal(collection, writeMode, entity, coordinates, null);
         }
+
+        // Conditional upserts and time-series inserts only exist as bulk operations, whatever the bulk toggle says
+        Mono<Void> direct = !settings.isBulkEnabled() && writeMode == WriteMode.REPLACE
+                ? concurrencyLimiter.limit(save(entity, collection))
+                : Mono.defer(() -> bufferFor(collection).add(
+                        WriteModels.of(toDocument(entity, coordinates, collectionSettings), writeMode), estimatedBytes));
+
+        return direct.onErrorResume(PersistenceJournal::isRetryable,
+                error -> journal(collection, writeMode, entity, coordinates, error));
+    }
+
+    /**
+     * Spans the write with a JFR event from subscription until Mongo acknowledged or rejected it.
+     */
+    private static Mono<Void> traced(Mono<Void> write, String collection, KafkaCoordinates coordinates,
+                                     int estimatedBytes) {
+        return Mono.defer(() -> {
+            var event = new RecordPersistedEvent();
+            event.begin();
+            return write.doFinally(signal -> {
+                if (!event.shouldCommit()) return;
+
+                if (coordinates != null) {
+                    event.record(coordinates.topic(), coordinates.partition(), coordinates.offset(), estimatedBytes);
+                }
+                event.outcome(collection, signal == SignalType.ON_COMPLETE);
+                event.commit();
+            });
+        });
+    }
+
+    /**
+     * Parks the write in the local journal; when it cannot be journaled the original failure is reported.
+     */
+    private Mono<Void> journal(String collection, WriteMode writeMode, Object entity, KafkaCoordinates coordinates,
+                               Throwable cause) {
+        return Mono.defer(() -> {
+            var document = toDocument(entity, coordinates, settings.settingsFor(collection));
+            if (journal.append(collection, writeMode, document)) {
+                log.warn("PERSISTENCE: Journaled {} write for collection: {} until MongoDB is available",
+                        entity.getClass().getSimpleName(), collection);
+                return Mono.empty();
+            }
+            return Mono.error(cause != null ? cause
+                    : new IllegalStateException("Write-ahead journal unavailable while older writes are pending"));
+        });
+    }
+
+    private String collectionOf(Object entity) {
+        return mongoTemplate.getCollectionName(entity instanceof RawEntity raw ? raw.entityType() : entity.getClass());
+    }
+
+    private Mono<Void> save(Object entity, String collection) {
+        return (entity instanceof RawEntity raw
+                ? mongoTemplate.save(raw.document(), collection)
+                : mongoTemplate.save(entity)).then();
+    }
+
+    private BulkWriteBuffer bufferFor(String collection) {
+        return buffers.computeIfAbsent(collection, name -> new BulkWriteBuffer(
+                name, settings.settingsFor(name), models -> bulkWrite(name, models),
+                Schedulers.boundedElastic(), meterRegistry));
+    }
+
+    private Document toDocument(Object entity, KafkaCoordinates coordinates,
+                                IngestionProperties.CollectionSettings collectionSettings) {
+        Document document;
+        if (entity instanceof RawEntity raw) {
+            // Shallow copy, so a journal fallback after a failed attempt starts from the parsed payload again
+            document = new Document(raw.document());
+        } else {
+            document = new Document();
+            mongoTemplate.getConverter().write(entity, document);
+        }
+        if (coordinates != null && collectionSettings.effectiveWriteMode() == WriteMode.OFFSET_GUARDED) {
+            document.put(KafkaCoordinates.FIELD, coordinates.toDocument());
+        }
+        return collectionSettings.getStorage() == Storage.TIME_SERIES
+                ? CollectionInitializer.toMeasurement(document, collectionSettings.getTimeSeries())
+                : document;
+    }
+
+    private Mono<BulkWriteOutcome> bulkWrite(String collection, List<WriteModel<Document>> models) {
+        boolean conditional = WriteModels.isConditional(settings.settingsFor(collection).effectiveWriteMode());
+        boolean ordered = durabilityPolicy.isOrdered(collection);
+
+        var write = collectionInitializer.ensureInitialized(collection)
+                .then(mongoTemplate.getCollection(collection))
+                .map(mongoCollection -> mongoCollection.withWriteConcern(
+                        durabilityPolicy.writeConcernFor(collection, mongoCollection.getWriteConcern())))
+                .flatMap(mongoCollection -> Mono.from(
+                        mongoCollection.bulkWrite(models, durabilityPolicy.bulkOptionsFor(collection))));
+
+        // Classified before the limiter sees it, so stale and duplicate-key skips do not count as failed writes
+        var outcome = write
+                .map(result -> BulkWriteOutcome.success())
+                .onErrorResume(MongoBulkWriteException.class, exception ->
+                        exception.getWriteConcernError() != null
+                                ? Mono.error(exception)
+                                : Mono.just(BulkWriteOutcome.from(exception, conditional, ordered)));
+        return concurrencyLimiter.limit(outcome, result -> !result.failures().isEmpty());
+    }
+
+    /**
+     * Bulk buffers are bounded by the JSON payload size, a cheap approximation of the BSON document size.
+     */
+    private int estimateSize(Message<?> message) {
+        return message != null && message.getValue() instanceof String payload ? payload.length() : 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.ingestion.domain.RecordTimings.Stage;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The one log line of a record's trip through the pipeline, as {@code key=value} pairs. Persisted records are only
+ * logged at their topic's sample rate, which is decided before anything is formatted; quarantined and failed records
+ * are always logged. Per-record detail of the individual stages is left at DEBUG.
+ */
+@Slf4j
+@Component
+public class PipelineLogger {
+
+    private static final String NONE = "-";
+
+    private volatile double defaultSampleRate;
+    private final Map<String, Double> sampleRates;
+
+    public PipelineLogger(IngestionProperties properties) {
+        var settings = properties.getLogging();
+        this.defaultSampleRate = validRate(settings.getSampleRate());
+        this.sampleRates = new ConcurrentHashMap<>();
+        settings.getTopics().forEach((topic, rate) -> sampleRates.put(topic, validRate(rate)));
+    }
+
+    /**
+     * Logs a record whose write was acknowledged, if its topic is sampled. The key is {@code null} for coalesced
+     * writes, which only keep the coordinates of their record.
+     */
+    public void persisted(EventType eventType, KafkaCoordinates coordinates, String key, RecordTimings timings) {
+        if (!log.isInfoEnabled() || !sampled(coordinates != null ? coordinates.topic() : null)) return;
+
+        log.info("PIPELINE: outcome=persisted type={} topic={} partition={} offset={} key={} serviceMs={}",
+                eventType, topic(coordinates), partition(coordinates), offset(coordinates), orNone(key),
+                serviceMillis(timings));
+    }
+
+    public void quarantined(EventType eventType, Message<?> message, Throwable cause) {
+        var coordinates = KafkaCoordinates.of(message);
+        log.warn("PIPELINE: outcome=quarantined type={} topic={} partition={} offset={} key={} error=\"{}\"",
+                eventType, topic(coordinates), partition(coordinates), offset(coordinates), key(message),
+                cause.getMessage());
+    }
+
+    public void failed(String stage, EventType eventType, Message<?> message, Throwable cause) {
+        var coordinates = KafkaCoordinates.of(message);
+        log.error("PIPELINE: outcome=failed stage={} type={} topic={} partition={} offset={} key={} error=\"{}\"",
+                stage, orNone(eventType), topic(coordinates), partition(coordinates), offset(coordinates), key(message),
+                cause.getMessage(), cause);
+    }
+
+    /**
+     * Whether a persisted record of the topic gets its line, using the topic's override or the default rate.
+     */
+    public boolean sampled(String topic) {
+        double rate = sampleRate(topic);
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    public double sampleRate(String topic) {
+        Double rate = topic != null ? sampleRates.get(topic) : null;
+        return rate != null ? rate : defaultSampleRate;
+    }
+
+    /**
+     * Current rates: {@code default} plus every topic with an override.
+     */
+    public Map<String, Double> sampleRates() {
+        Map<String, Double> rates = new TreeMap<>(sampleRates);
+        rates.put("default", defaultSampleRate);
+        return rates;
+    }
+
+    public void setDefaultSampleRate(double rate) {
+        defaultSampleRate = validRate(rate);
+    }
+
+    public void setSampleRate(String topic, double rate) {
+        sampleRates.put(topic, validRate(rate));
+    }
+
+    /**
+     * Drops the topic's override, so it falls back to the default rate.
+     */
+    public void clearSampleRate(String topic) {
+        sampleRates.remove(topic);
+    }
+
+    private static double validRate(double rate) {
+        if (Double.isNaN(rate) || rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1, got " + rate);
+        }
+        return rate;
+    }
+
+    private static Object serviceMillis(RecordTimings timings) {
+        long nanos = timings != null ? timings.nanosBetween(Stage.RECEIVED, Stage.PERSISTED) : -1;
+        return nanos >= 0 ? nanos / 1_000_000.0 : NONE;
+    }
+
+    private static String topic(KafkaCoordinates coordinates) {
+        return coordinates != null ? coordinates.topic() : NONE;
+    }
+
+    private static Object partition(KafkaCoordinates coordinates) {
+        return coordinates != null ? coordinates.partition() : NONE;
+    }
+
+    private static Object offset(KafkaCoordinates coordinates) {
+        return coordinates != null ? coordinates.offset() : NONE;
+    }
+
+    private static String key(Message<?> message) {
+        return orNone(message != null ? message.getKey() : null);
+    }
+
+    private static String orNone(Object value) {
+        return value != null ? value.toString() : NONE;
+    }
+}
@@ -0,0 +1,185 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.client.model.InsertManyOptions;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Collects records whose payload could not be converted, or whose write kept failing, and inserts them into the
+ * quarantine collection in batches, together with their Kafka coordinates and the error. Acknowledgments are
+ * released once the batch is stored, so a poison-message storm costs one bulk insert per batch instead of a failed
+ * save each. A batch Mongo rejects is retried with a growing backoff, during which the container commits no offset
+ * past its records. Once the retries are exhausted the batch is logged with its coordinates, counted and dropped,
+ * and its records are acknowledged, so one batch Mongo keeps refusing cannot hold back every later one. Records
+ * arriving while the queue is full are dropped the same way.
+ */
+@Slf4j
+@Component
+public class QuarantineStore {
+
+    private static final Duration EMIT_RETRY_WINDOW = Duration.ofSeconds(1);
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IngestionProperties.Quarantine settings;
+    private final Sinks.Many<QuarantinedRecord> records;
+    private final Counter quarantined;
+    private final Counter dropped;
+    private final Counter discarded;
+    private Disposable subscription;
+
+    public QuarantineStore(ReactiveMongoTemplate mongoTemplate, IngestionProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getQuarantine();
+        this.records = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<QuarantinedRecord>get(settings.getQueueCapacity()).get());
+        this.quarantined = Counter.builder("ingestion.quarantine.stored")
+                .description("Unconvertible records stored in the quarantine collection").register(meterRegistry);
+        this.dropped = Counter.builder("ingestion.quarantine.dropped")
+                .description("Unconvertible records skipped while quarantine is disabled").register(meterRegistry);
+        this.discarded = Counter.builder("ingestion.quarantine.discarded")
+                .description("Records lost because Mongo kept rejecting their batch or the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) return;
+
+        subscription = records.asFlux()
+                .bufferTimeout(settings.getMaxBatchSize(), settings.getWindow(), true)
+                .concatMap(this::flush)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Completing the sink flushes whatever is still buffered
+        records.tryEmitComplete();
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Queues the record for the next quarantine batch. With quarantine disabled the record is skipped and acknowledged.
+     */
+    public void quarantine(String payload, EventType eventType, Message<?> message, Throwable error) {
+        var acknowledgment = message != null ? message.getAcknowledgment() : null;
+        if (!settings.isEnabled()) {
+            dropped.increment();
+            if (acknowledgment != null) {
+                acknowledgment.acknowledge();
+            }
+            return;
+        }
+
+        if (acknowledgment != null) {
+            acknowledgment.defer();
+        }
+        var record = new QuarantinedRecord(payload, eventType, message, error.getMessage(), acknowledgment);
+        // Only concurrent emissions are retried; a full queue fails the emission instead of the sink
+        long deadline = System.nanoTime() + EMIT_RETRY_WINDOW.toNanos();
+        Sinks.EmitResult result;
+        while ((result = records.tryEmitNext(record)) == Sinks.EmitResult.FAIL_NON_SERIALIZED
+                && System.nanoTime() - deadline < 0) {
+            Thread.onSpinWait();
+        }
+        if (result.isFailure()) {
+            discard(List.of(record), "quarantine queue " + result);
+        }
+    }
+
+    Mono<Void> flush(List<QuarantinedRecord> batch) {
+        var documents = batch.stream().map(record -> toDocument(record, settings.getMaxPayloadSize().toBytes())).toList();
+
+        return mongoTemplate.getCollection(settings.getCollection())
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, UNORDERED)))
+                // Until stored the records stay unacknowledged and hold back the commits of their partitions
+                .retryWhen(Retry.backoff(settings.getMaxRetries(), settings.getRetryBackoff())
+                        .maxBackoff(settings.getMaxRetryBackoff())
+                        .doBeforeRetry(signal -> log.warn("QUARANTINE: Failed to store {} records, retry {} - {}",
+                                batch.size(), signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnSuccess(ignored -> {
+                    quarantined.increment(batch.size());
+                    acknowledge(batch);
+                    log.warn("QUARANTINE: Stored {} records in collection: {}",
+                            batch.size(), settings.getCollection());
+                })
+                .then()
+                .onErrorResume(error -> {
+                    discard(batch, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void discard(List<QuarantinedRecord> batch, String reason) {
+        discarded.increment(batch.size());
+        log.error("QUARANTINE: Dropped {} records - {}; records: {}", batch.size(), reason, batch.stream()
+                .map(QuarantinedRecord::message)
+                .map(message -> message == null ? "unknown"
+                        : message.getTopic() + "-" + message.getPartition() + "@" + message.getOffset())
+                .collect(Collectors.joining(", ")));
+        acknowledge(batch);
+    }
+
+    private static void acknowledge(List<QuarantinedRecord> batch) {
+        batch.stream()
+                .map(QuarantinedRecord::acknowledgment)
+                .filter(Objects::nonNull)
+                .forEach(MessageAcknowledgment::acknowledge);
+    }
+
+    static Document toDocument(QuarantinedRecord record, long maxPayloadBytes) {
+        var message = record.message();
+        var document = new Document("eventType", record.eventType().name())
+                .append("error", record.error())
+                .append("quarantinedAt", new Date());
+        if (message != null) {
+            document.append("topic", message.getTopic())
+                    .append("partition", message.getPartition())
+                    .append("offset", message.getOffset())
+                    .append("key", message.getKey());
+        }
+
+        var payload = record.payload();
+        if (payload != null) {
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            boolean truncated = bytes.length > maxPayloadBytes;
+            document.append("payload", truncated
+                            ? new String(bytes, 0, (int) maxPayloadBytes, StandardCharsets.UTF_8)
+                            : payload)
+                    .append("payloadBytes", bytes.length)
+                    .append("truncated", truncated);
+        }
+        return document;
+    }
+
+    record QuarantinedRecord(String payload, EventType eventType, Message<?> message, String error,
+                             MessageAcknowledgment acknowledgment) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.ingestion.domain.VersionedEntity;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.sink.PersistenceSinkRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Optional stage in front of the {@link PersistenceSinkRouter} that collapses bursts of updates for the same entity.
+ * Within a window (or until the batch is full) only the highest version per collection and id is written;
+ * acknowledgments of every coalesced record are released once the combined write succeeds. A write that still fails
+ * after its retries hands every record of the batch to the failure handler it was submitted with.
+ */
+@Slf4j
+@Component
+public class WriteCoalescer {
+
+    private static final Duration EMIT_RETRY_WINDOW = Duration.ofSeconds(1);
+
+    private final PersistenceSinkRouter sinkRouter;
+    private final IngestionProperties.Coalescing settings;
+    private final IngestionProperties.WriteRetry retry;
+    private final LatencyTracker latencyTracker;
+    private final PipelineLogger pipelineLogger;
+    private final Sinks.Many<PendingWrite> pendingWrites = Sinks.many().unicast().onBackpressureBuffer();
+    private Disposable subscription;
+
+    public WriteCoalescer(PersistenceSinkRouter sinkRouter, IngestionProperties properties,
+                          LatencyTracker latencyTracker, PipelineLogger pipelineLogger) {
+        this.sinkRouter = sinkRouter;
+        this.settings = properties.getCoalescing();
+        this.retry = properties.getPersistence().getRetry();
+        this.latencyTracker = latencyTracker;
+        this.pipelineLogger = pipelineLogger;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) return;
+
+        log.info("COALESCER: Coalescing {} updates with window {} and max batch size {}",
+                settings.getEventTypes(), settings.getWindow(), settings.getMaxBatchSize());
+        subscription = pendingWrites.asFlux()
+                .bufferTimeout(settings.getMaxBatchSize(), settings.getWindow(), true)
+                .concatMap(this::flush)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Completing the sink flushes whatever is still buffered
+        pendingWrites.tryEmitComplete();
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public boolean accepts(Object entity, EventType eventType) {
+        return settings.isEnabled()
+                && entity instanceof VersionedEntity versioned
+                && versioned.getId() != null
+                && settings.getEventTypes().contains(eventType);
+    }
+
+    public void submit(Object entity, EventType eventType, Message<?> message, Consumer<Throwable> onFailure) {
+        var acknowledgment = message != null ? message.getAcknowledgment() : null;
+        if (acknowledgment != null) {
+            acknowledgment.defer();
+        }
+
+        var timings = message != null ? message.getTimings() : null;
+        pendingWrites.emitNext(new PendingWrite((VersionedEntity) entity, eventType, KafkaCoordinates.of(message),
+                        acknowledgment, timings, onFailure),
+                Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_WINDOW));
+    }
+
+    Mono<Void> flush(List<PendingWrite> batch) {
+        var latest = coalesce(batch);
+        log.debug("COALESCER: Flushing {} entities coalesced from {} updates", latest.size(), batch.size());
+
+        Map<EventType, Map<VersionedEntity, KafkaCoordinates>> entitiesByType = new EnumMap<>(EventType.class);
+        latest.values().forEach(write -> entitiesByType
+                .computeIfAbsent(write.eventType(), ignored -> new LinkedHashMap<>())
+                .put(write.entity(), write.coordinates()));
+
+        return Flux.fromIterable(entitiesByType.entrySet())
+                .flatMap(entry -> write(entry.getKey(), entry.getValue(), batch))
+                .then();
+    }
+
+    /**
+     * Saves the entities of one event type, retried on their own so a retry never saves again the event types
+     * already written, and completes or fails the updates of that type, superseded ones included.
+     */
+    private Mono<Void> write(EventType eventType, Map<VersionedEntity, KafkaCoordinates> entities,
+                             List<PendingWrite> batch) {
+        var writes = batch.stream().filter(write -> write.eventType() == eventType).toList();
+        return Mono.defer(() -> sinkRouter.saveAll(eventType, entities))
+                .retryWhen(retry.toSpec())
+                .doOnSuccess(ignored -> writes.forEach(this::complete))
+                .onErrorResume(error -> {
+                    log.warn("COALESCER: Failed to write {} coalesced {} entities after {} retries - {}",
+                            entities.size(), eventType, retry.getMaxRetries(), error.getMessage());
+                    writes.forEach(write -> fail(write, error));
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Superseded writes complete with the write that replaced them, so their latency includes the coalescing wait.
+     */
+    private void complete(PendingWrite write) {
+        latencyTracker.recordPersisted(write.coordinates() != null ? write.coordinates().topic() : null, write.timings());
+        pipelineLogger.persisted(write.eventType(), write.coordinates(), null, write.timings());
+        if (write.acknowledgment() != null) {
+            write.acknowledgment().acknowledge();
+        }
+    }
+
+    private static void fail(PendingWrite write, Throwable error) {
+        if (write.onFailure() != null) {
+            write.onFailure().accept(error);
+        }
+    }
+
+    /**
+     * Keeps the highest version per collection and id; on equal versions the most recent arrival wins.
+     */
+    static Map<CoalescingKey, PendingWrite> coalesce(List<PendingWrite> batch) {
+        Map<CoalescingKey, PendingWrite> latest = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            var entity = write.entity();
+            latest.merge(new CoalescingKey(entity.getClass(), entity.getId()), write,
+                    (current, incoming) -> versionOf(incoming.entity()) >= versionOf(current.entity()) ? incoming : current);
+        }
+        return latest;
+    }
+
+    private static long versionOf(VersionedEntity entity) {
+        return entity.getVersion() != null ? entity.getVersion() : Long.MIN_VALUE;
+    }
+
+    record PendingWrite(VersionedEntity entity, EventType eventType, KafkaCoordinates coordinates,
+                        MessageAcknowledgment acknowledgment, RecordTimings timings, Consumer<Throwable> onFailure) {
+    }
+
+    record CoalescingKey(Class<?> collection, String id) {
+    }
+}
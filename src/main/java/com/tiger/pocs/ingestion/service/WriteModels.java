@@ -0,0 +1,71 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.WriteMode;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+/**
+ * Builds the bulk write model of a converted entity document for the collection's write mode.
+ */
+final class WriteModels {
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final String VERSION_FIELD = "version";
+
+    private WriteModels() {
+    }
+
+    static WriteModel<Document> of(Document document, WriteMode writeMode) {
+        Object id = document.get("_id");
+        if (id == null || writeMode == WriteMode.INSERT) {
+            return new InsertOneModel<>(document);
+        }
+        return new ReplaceOneModel<>(filterFor(id, document, writeMode), document, UPSERT);
+    }
+
+    /**
+     * Guarded upserts only match a stored document that is older than the incoming one; when a newer one exists
+     * the upsert collides on {@code _id} and is reported as stale instead of overwriting it.
+     * Documents stored before versioning have no version to compare, so any versioned write replaces them.
+     * Offsets are only comparable within a topic-partition, so a coordinate from elsewhere always applies. Records
+     * of one envelope share its offset, so among them the later envelope index wins.
+     */
+    private static Bson filterFor(Object id, Document document, WriteMode writeMode) {
+        Object version = document.get(VERSION_FIELD);
+        if (writeMode == WriteMode.VERSION_GUARDED && version instanceof Number) {
+            return Filters.and(Filters.eq("_id", id), Filters.or(
+                    Filters.lt(VERSION_FIELD, version),
+                    Filters.exists(VERSION_FIELD, false)));
+        }
+
+        var coordinates = KafkaCoordinates.from(document);
+        if (writeMode == WriteMode.OFFSET_GUARDED && coordinates != null) {
+            return Filters.and(Filters.eq("_id", id), Filters.nor(Filters.and(
+                    Filters.eq(KafkaCoordinates.TOPIC_PATH, coordinates.topic()),
+                    Filters.eq(KafkaCoordinates.PARTITION_PATH, coordinates.partition()),
+                    notBefore(coordinates))));
+        }
+        return Filters.eq("_id", id);
+    }
+
+    private static Bson notBefore(KafkaCoordinates coordinates) {
+        if (coordinates.envelopeIndex() == 0) {
+            return Filters.gte(KafkaCoordinates.OFFSET_PATH, coordinates.offset());
+        }
+        return Filters.or(
+                Filters.gt(KafkaCoordinates.OFFSET_PATH, coordinates.offset()),
+                Filters.and(
+                        Filters.eq(KafkaCoordinates.OFFSET_PATH, coordinates.offset()),
+                        Filters.gte(KafkaCoordinates.ENVELOPE_INDEX_PATH, coordinates.envelopeIndex())));
+    }
+
+    static boolean isConditional(WriteMode writeMode) {
+        return writeMode == WriteMode.VERSION_GUARDED || writeMode == WriteMode.OFFSET_GUARDED;
+    }
+}
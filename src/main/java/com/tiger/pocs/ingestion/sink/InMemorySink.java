@@ -0,0 +1,86 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sink that only counts entities and keeps the most recent ones in memory, so throughput tests can measure the
+ * pipeline without any external service. Retention is bounded by {@code ingestion.sinks.memory.max-retained}.
+ */
+@Component
+public class InMemorySink implements PersistenceSink {
+
+    private final int maxRetained;
+    private final Map<EventType, LongAdder> counts = new EnumMap<>(EventType.class);
+    private final ConcurrentLinkedDeque<Object> retained = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger retainedCount = new AtomicInteger();
+
+    public InMemorySink(IngestionProperties properties) {
+        this.maxRetained = properties.getSinks().getMemory().getMaxRetained();
+        for (EventType eventType : EventType.values()) {
+            counts.put(eventType, new LongAdder());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public Mono<Void> persistEntity(Object entity, EventType eventType, Message<?> message) {
+        if (entity != null) {
+            store(entity, eventType);
+        }
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> saveAll(EventType eventType, Map<?, KafkaCoordinates> entities) {
+        entities.keySet().forEach(entity -> store(entity, eventType));
+        return Mono.empty();
+    }
+
+    public long count(EventType eventType) {
+        return counts.get(eventType).sum();
+    }
+
+    public long totalCount() {
+        return counts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * The most recently written entities, oldest first.
+     */
+    public List<Object> retained() {
+        return new ArrayList<>(retained);
+    }
+
+    public void clear() {
+        counts.values().forEach(LongAdder::reset);
+        retained.clear();
+        retainedCount.set(0);
+    }
+
+    private void store(Object entity, EventType eventType) {
+        counts.get(eventType).increment();
+        if (maxRetained <= 0) return;
+
+        retained.addLast(entity);
+        if (retainedCount.incrementAndGet() > maxRetained && retained.pollFirst() != null) {
+            retainedCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.RawEntity;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Sink appending entities as newline-delimited JSON to {@code directory/<event type>/segment-NNNNNN.ndjson},
+ * one file per event type, rolling over at the configured segment size. Each line carries the record's
+ * Kafka coordinates under {@code _kafka}. Useful to capture a replayable copy of a topic without Mongo.
+ * A write completes once its lines were forced to disk, so an acknowledged record survives a crash of the host.
+ */
+@Slf4j
+@Component
+public class NdjsonFileSink implements PersistenceSink {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+    private static final byte NEWLINE = '\n';
+    private static final JsonWriterSettings RELAXED = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long segmentBytes;
+    private final Map<EventType, SegmentWriter> writers = new EnumMap<>(EventType.class);
+
+    public NdjsonFileSink(ObjectMapper objectMapper, IngestionProperties properties) {
+        var settings = properties.getSinks().getFile();
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(settings.getDirectory());
+        this.segmentBytes = settings.getSegmentSize().toBytes();
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public Mono<Void> persistEntity(Object entity, EventType eventType, Message<?> message) {
+        if (entity == null) return Mono.empty();
+
+        return saveAll(eventType, Collections.singletonMap(entity, KafkaCoordinates.of(message)));
+    }
+
+    @Override
+    public Mono<Void> saveAll(EventType eventType, Map<?, KafkaCoordinates> entities) {
+        if (entities.isEmpty()) return Mono.empty();
+
+        return Mono.<Void>fromRunnable(() -> write(eventType, entities))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        writers.values().forEach(SegmentWriter::close);
+        writers.clear();
+    }
+
+    synchronized void write(EventType eventType, Map<?, KafkaCoordinates> entities) {
+        var writer = writers.computeIfAbsent(eventType, this::openWriter);
+        try {
+            for (Map.Entry<?, KafkaCoordinates> entry : entities.entrySet()) {
+                writer.append(toLine(entry.getKey(), entry.getValue()));
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write " + eventType + " entities to " + writer.path, e);
+        }
+    }
+
+    private byte[] toLine(Object entity, KafkaCoordinates coordinates) throws IOException {
+        JsonNode node = entity instanceof RawEntity raw
+                ? objectMapper.readTree(raw.document().toJson(RELAXED))
+                : objectMapper.valueToTree(entity);
+        if (coordinates != null && node instanceof ObjectNode object) {
+            object.set(KafkaCoordinates.FIELD, objectMapper.valueToTree(coordinates));
+        }
+        return objectMapper.writeValueAsBytes(node);
+    }
+
+    private SegmentWriter openWriter(EventType eventType) {
+        var typeDirectory = directory.resolve(eventType.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.createDirectories(typeDirectory);
+            long next = 0;
+            try (Stream<Path> files = Files.list(typeDirectory)) {
+                next = files.map(path -> path.getFileName().toString())
+                        .filter(file -> file.startsWith(SEGMENT_PREFIX) && file.endsWith(SEGMENT_SUFFIX))
+                        .mapToLong(file -> Long.parseLong(file.substring(SEGMENT_PREFIX.length(),
+                                file.length() - SEGMENT_SUFFIX.length())) + 1)
+                        .max()
+                        .orElse(0);
+            }
+            log.info("SINKS: Writing {} entities as NDJSON under {}", eventType, typeDirectory);
+            return new SegmentWriter(typeDirectory, next);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open file sink directory " + typeDirectory, e);
+        }
+    }
+
+    /**
+     * Appends lines to the current segment of one event type and rolls to a new file once it is full.
+     * Existing segments are never reopened, so a restart starts a fresh segment.
+     */
+    private final class SegmentWriter {
+        private final Path typeDirectory;
+        private long segment;
+        private Path path;
+        private FileChannel channel;
+        private OutputStream output;
+        private long written;
+
+        private SegmentWriter(Path typeDirectory, long segment) throws IOException {
+            this.typeDirectory = typeDirectory;
+            this.segment = segment;
+            open();
+        }
+
+        private void append(byte[] line) throws IOException {
+            if (written > 0 && written + line.length + 1 > segmentBytes) {
+                // Lines of the current write may sit in the full segment, so it is synced before it is closed
+                flush();
+                output.close();
+                segment++;
+                open();
+            }
+            output.write(line);
+            output.write(NEWLINE);
+            written += line.length + 1;
+        }
+
+        private void flush() throws IOException {
+            output.flush();
+            channel.force(false);
+        }
+
+        private void open() throws IOException {
+            path = typeDirectory.resolve("%s%06d%s".formatted(SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            output = new BufferedOutputStream(Channels.newOutputStream(channel));
+            written = 0;
+        }
+
+        private void close() {
+            try {
+                output.close();
+            } catch (IOException e) {
+                log.warn("SINKS: Unable to close file sink segment {} - {}", path, e.getMessage());
+            }
+        }
+    }
+}
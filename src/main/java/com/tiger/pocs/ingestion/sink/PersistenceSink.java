@@ -0,0 +1,28 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Destination of converted entities. Implementations are Spring beans selected per event type by
+ * {@link PersistenceSinkRouter}; the returned {@link Mono} completes once the entity is durably handed over,
+ * which is when the source record gets acknowledged.
+ */
+public interface PersistenceSink {
+
+    /**
+     * Name used to select the sink in {@code ingestion.sinks}.
+     */
+    String name();
+
+    Mono<Void> persistEntity(Object entity, EventType eventType, Message<?> message);
+
+    /**
+     * Writes a batch of entities of one event type, each with the coordinates of the record it was converted from.
+     */
+    Mono<Void> saveAll(EventType eventType, Map<?, KafkaCoordinates> entities);
+}
@@ -0,0 +1,58 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the {@link PersistenceSink} of each event type from {@code ingestion.sinks}; unmapped event types use
+ * the default sink. Unknown sink names fail at startup rather than on the first record.
+ */
+@Slf4j
+@Component
+public class PersistenceSinkRouter {
+
+    private final PersistenceSink defaultSink;
+    private final Map<EventType, PersistenceSink> sinksByEventType = new EnumMap<>(EventType.class);
+
+    public PersistenceSinkRouter(List<PersistenceSink> sinks, IngestionProperties properties) {
+        var settings = properties.getSinks();
+        Map<String, PersistenceSink> sinksByName = sinks.stream()
+                .collect(Collectors.toMap(PersistenceSink::name, Function.identity()));
+
+        this.defaultSink = resolve(sinksByName, settings.getDefaultSink());
+        settings.getEventTypes().forEach((eventType, name) -> sinksByEventType.put(eventType, resolve(sinksByName, name)));
+
+        log.info("SINKS: Default sink '{}', overrides {}", defaultSink.name(), settings.getEventTypes());
+    }
+
+    public PersistenceSink sinkFor(EventType eventType) {
+        return sinksByEventType.getOrDefault(eventType, defaultSink);
+    }
+
+    public Mono<Void> persistEntity(Object entity, EventType eventType, Message<?> message) {
+        return sinkFor(eventType).persistEntity(entity, eventType, message);
+    }
+
+    public Mono<Void> saveAll(EventType eventType, Map<?, KafkaCoordinates> entities) {
+        return sinkFor(eventType).saveAll(eventType, entities);
+    }
+
+    private static PersistenceSink resolve(Map<String, PersistenceSink> sinksByName, String name) {
+        var sink = sinksByName.get(name);
+        if (sink == null) {
+            throw new IllegalStateException("Unknown persistence sink '" + name + "', available: " + sinksByName.keySet());
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,120 @@
+package com.tiger.pocs.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-demand Flight Recorder recording for the admin endpoint: one recording at a time, with the JDK's
+ * {@code default} or {@code profile} settings plus the pipeline events, dumped to {@code admin.jfr.directory}.
+ */
+@Slf4j
+@Component
+public class FlightRecorderService {
+
+    static final String RECORDING_NAME = "pocs-admin";
+    private static final List<Class<? extends RecordEvent>> PIPELINE_EVENTS = List.of(
+            RecordConsumedEvent.class, PayloadConvertedEvent.class, RecordPersistedEvent.class, RecordPublishedEvent.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private Recording recording;
+
+    public FlightRecorderService(@Value("${admin.jfr.directory:data/jfr}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Starts a recording keeping the last {@code maxAge} of data on disk.
+     *
+     * @throws IllegalStateException when a recording is already running
+     * @throws IllegalArgumentException when the settings name is not a JDK configuration
+     */
+    public synchronized Map<String, Object> start(String settings, Duration maxAge) {
+        if (isRunning()) {
+            throw new IllegalStateException("Recording '" + RECORDING_NAME + "' is already running");
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settings + "', use 'default' or 'profile'", e);
+        }
+
+        var started = new Recording(configuration);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        PIPELINE_EVENTS.forEach(event -> started.enable(event).withoutStackTrace());
+        started.start();
+        recording = started;
+
+        log.info("JFR: Started recording '{}' with '{}' settings, keeping the last {}", RECORDING_NAME, settings, maxAge);
+        return status();
+    }
+
+    /**
+     * Writes the data recorded so far to a new file and keeps the recording running.
+     *
+     * @throws IllegalStateException when no recording is running
+     */
+    public synchronized Path dump() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No recording is running, start one first");
+        }
+
+        Path file = directory.resolve("%s-%s.jfr".formatted(RECORDING_NAME, FILE_TIMESTAMP.format(Instant.now())));
+        try {
+            Files.createDirectories(directory);
+            recording.dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to dump recording to " + file, e);
+        }
+        log.info("JFR: Dumped recording '{}' to {}", RECORDING_NAME, file);
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (recording == null) return;
+
+        recording.close();
+        recording = null;
+        log.info("JFR: Stopped recording '{}'", RECORDING_NAME);
+    }
+
+    public synchronized Map<String, Object> status() {
+        var status = new LinkedHashMap<String, Object>();
+        status.put("name", RECORDING_NAME);
+        status.put("state", recording != null ? recording.getState().name() : "NONE");
+        if (recording != null) {
+            status.put("startTime", recording.getStartTime());
+            status.put("maxAge", recording.getMaxAge());
+            status.put("size", recording.getSize());
+        }
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+}
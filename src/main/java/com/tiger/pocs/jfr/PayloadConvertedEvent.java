@@ -0,0 +1,29 @@
+package com.tiger.pocs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the conversion of one payload into its entity, or into a raw document for pass-through event types.
+ */
+@Name("com.tiger.pocs.PayloadConverted")
+@Label("Payload Converted")
+@Description("Payload bound to the entity of its event type")
+@Category({"Tiger POCs", "Ingestion"})
+@StackTrace(false)
+public class PayloadConvertedEvent extends RecordEvent {
+
+    @Label("Event Type")
+    String eventType;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public void outcome(String eventType, boolean succeeded) {
+        this.eventType = eventType;
+        this.succeeded = succeeded;
+    }
+}
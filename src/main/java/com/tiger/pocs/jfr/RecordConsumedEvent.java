@@ -0,0 +1,18 @@
+package com.tiger.pocs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the synchronous handling of one polled record in the listener thread, from receive to return.
+ */
+@Name("com.tiger.pocs.RecordConsumed")
+@Label("Record Consumed")
+@Description("Kafka record handled by a listener")
+@Category({"Tiger POCs", "Kafka"})
+@StackTrace(false)
+public class RecordConsumedEvent extends RecordEvent {
+}
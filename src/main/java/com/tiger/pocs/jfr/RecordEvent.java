@@ -0,0 +1,34 @@
+package com.tiger.pocs.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Fields shared by the pipeline events. Callers fill them only once {@link #shouldCommit()} returned {@code true},
+ * so without an active recording an event costs a constructor and two no-op calls that the JIT removes.
+ * The payload size is the serialized record value where known, otherwise the length of the JSON payload.
+ */
+public abstract class RecordEvent extends Event {
+
+    @Label("Topic")
+    String topic;
+
+    @Label("Partition")
+    int partition;
+
+    @Label("Offset")
+    long offset;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    public RecordEvent record(String topic, int partition, long offset, long payloadSize) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.payloadSize = payloadSize;
+        return this;
+    }
+}
@@ -0,0 +1,40 @@
+package com.tiger.pocs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans one document from the hand-off to Mongo until its write completed, directly or within a bulk write.
+ * The span covers queueing in bulk buffers and the concurrency limiter, and may end on a driver thread.
+ */
+@Name("com.tiger.pocs.RecordPersisted")
+@Label("Record Persisted")
+@Description("Entity written to MongoDB")
+@Category({"Tiger POCs", "Ingestion"})
+@StackTrace(false)
+public class RecordPersistedEvent extends RecordEvent {
+
+    private static final EventType TYPE = EventType.getEventType(RecordPersistedEvent.class);
+
+    @Label("Collection")
+    String collection;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public void outcome(String collection, boolean succeeded) {
+        this.collection = collection;
+        this.succeeded = succeeded;
+    }
+
+    /**
+     * The event outlives the calling method, so it is only created while a recording enables it.
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
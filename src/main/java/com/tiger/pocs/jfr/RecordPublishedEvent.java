@@ -0,0 +1,35 @@
+package com.tiger.pocs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans a send from the hand-off to the producer until the broker acknowledged or rejected it.
+ */
+@Name("com.tiger.pocs.RecordPublished")
+@Label("Record Published")
+@Description("Record sent through the KafkaTemplate")
+@Category({"Tiger POCs", "Kafka"})
+@StackTrace(false)
+public class RecordPublishedEvent extends RecordEvent {
+
+    private static final EventType TYPE = EventType.getEventType(RecordPublishedEvent.class);
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public void outcome(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    /**
+     * The event outlives the calling method, so it is only created while a recording enables it.
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,317 @@
+package com.tiger.pocs.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of opaque records stored in fixed-size, memory-mapped segment files.
+ * Appends only touch the page cache, so they keep disk speed while the downstream system is unavailable.
+ * A checkpoint file records how far the records were consumed; segments behind it are deleted on commit.
+ * <p>
+ * Record layout: {@code int length, int crc32, byte[length] payload}. The length is written last, so a zero
+ * length marks the end of the written data and a torn record fails its checksum on recovery.
+ */
+@Slf4j
+public class WriteAheadJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final boolean forceOnAppend;
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Counter appended;
+    private final Counter rejected;
+    private final Counter committed;
+
+    private Segment head;
+    private Position checkpoint;
+    // Written under the lock on append and commit only, so hot-path backlog checks read it without locking
+    private volatile long pending;
+
+    /**
+     * Location of a record: the segment id and the byte offset within that segment.
+     */
+    public record Position(long segment, int offset) {
+    }
+
+    /**
+     * Records read from the checkpoint onwards, and the position to commit once they are processed.
+     */
+    public record Batch(List<byte[]> records, Position next) {
+        public boolean isEmpty() {
+            return records.isEmpty();
+        }
+
+        public int size() {
+            return records.size();
+        }
+    }
+
+    public WriteAheadJournal(String name, Path directory, DataSize segmentSize, DataSize maxSize,
+                             boolean forceOnAppend, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentBytes = Math.toIntExact(segmentSize.toBytes());
+        this.maxBytes = maxSize.toBytes();
+        this.forceOnAppend = forceOnAppend;
+
+        recover();
+        pending = computePendingBytes();
+
+        this.appended = Counter.builder("journal.records.appended").tag("journal", name)
+                .description("Records appended to the journal").register(meterRegistry);
+        this.rejected = Counter.builder("journal.records.rejected").tag("journal", name)
+                .description("Records rejected because the journal reached its size limit").register(meterRegistry);
+        this.committed = Counter.builder("journal.records.committed").tag("journal", name)
+                .description("Records consumed and checkpointed").register(meterRegistry);
+        Gauge.builder("journal.pending.bytes", this, WriteAheadJournal::pendingBytes).tag("journal", name)
+                .description("Journal bytes not consumed yet").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("journal.disk.bytes", this, WriteAheadJournal::diskBytes).tag("journal", name)
+                .description("Disk space held by journal segments").baseUnit("bytes").register(meterRegistry);
+
+        log.info("JOURNAL: Opened {} journal at {} with {} segment(s), {} bytes pending",
+                name, directory, segments.size(), pendingBytes());
+    }
+
+    /**
+     * Appends a record, returning {@code false} when the journal reached its size limit.
+     */
+    public synchronized boolean append(byte[] record) {
+        int required = HEADER_BYTES + record.length;
+        if (required > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + record.length + " bytes exceeds the journal segment size");
+        }
+
+        if (head.remaining() < required) {
+            if (diskBytes() + segmentBytes > maxBytes) {
+                rejected.increment();
+                return false;
+            }
+            head = openSegment(head.id + 1);
+            segments.put(head.id, head);
+        }
+
+        int offset = head.writePosition;
+        head.buffer.putInt(offset + 4, checksum(record));
+        head.buffer.put(offset + HEADER_BYTES, record);
+        head.buffer.putInt(offset, record.length);
+        head.writePosition += required;
+        pending += required;
+        if (forceOnAppend) {
+            head.buffer.force(offset, required);
+        }
+        appended.increment();
+        return true;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} records from the checkpoint without consuming them.
+     */
+    public synchronized Batch read(int maxRecords) {
+        var records = new ArrayList<byte[]>();
+        Position position = checkpoint;
+
+        while (records.size() < maxRecords) {
+            Segment segment = segments.get(position.segment());
+            if (segment == null) break;
+
+            if (position.offset() >= segment.writePosition) {
+                Long next = segments.higherKey(position.segment());
+                if (next == null) break;
+                position = new Position(next, 0);
+                continue;
+            }
+
+            int length = segment.buffer.getInt(position.offset());
+            byte[] record = new byte[length];
+            segment.buffer.get(position.offset() + HEADER_BYTES, record);
+            records.add(record);
+            position = new Position(position.segment(), position.offset() + HEADER_BYTES + length);
+        }
+        return new Batch(records, position);
+    }
+
+    /**
+     * Checkpoints the batch as consumed and deletes the segments that lie entirely behind it.
+     */
+    public synchronized void commit(Batch batch) {
+        checkpoint = batch.next();
+        writeCheckpoint(checkpoint);
+        pending = computePendingBytes();
+        committed.increment(batch.size());
+
+        while (segments.firstKey() < checkpoint.segment()) {
+            Segment consumed = segments.pollFirstEntry().getValue();
+            try {
+                Files.deleteIfExists(consumed.path);
+            } catch (IOException e) {
+                log.warn("JOURNAL: Unable to delete consumed segment {} - {}", consumed.path, e.getMessage());
+            }
+        }
+    }
+
+    public long pendingBytes() {
+        return pending;
+    }
+
+    /**
+     * Lock-free, as writers check it for every record.
+     */
+    public boolean hasPending() {
+        return pending > 0;
+    }
+
+    public synchronized long diskBytes() {
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.buffer.capacity();
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(segment -> segment.buffer.force());
+    }
+
+    private long computePendingBytes() {
+        long total = 0;
+        for (Segment segment : segments.tailMap(checkpoint.segment(), true).values()) {
+            total += segment.writePosition;
+        }
+        return total - checkpoint.offset();
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.map(path -> path.getFileName().toString())
+                        .filter(file -> file.startsWith(SEGMENT_PREFIX) && file.endsWith(SEGMENT_SUFFIX))
+                        .map(file -> Long.parseLong(file.substring(SEGMENT_PREFIX.length(),
+                                file.length() - SEGMENT_SUFFIX.length())))
+                        .forEach(id -> segments.put(id, openSegment(id)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open journal at " + directory, e);
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(0L, openSegment(0));
+        }
+        head = segments.lastEntry().getValue();
+
+        Position stored = readCheckpoint();
+        checkpoint = stored != null && segments.containsKey(stored.segment())
+                ? stored
+                : new Position(segments.firstKey(), 0);
+    }
+
+    private Segment openSegment(long id) {
+        Path path = directory.resolve("%s%020d%s".formatted(SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), segmentBytes);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(id, path, buffer, scanEnd(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map journal segment " + path, e);
+        }
+    }
+
+    /**
+     * Walks the records of a segment and returns the offset after the last intact one.
+     */
+    private static int scanEnd(ByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > buffer.capacity()) break;
+
+            byte[] record = new byte[length];
+            buffer.get(offset + HEADER_BYTES, record);
+            if (checksum(record) != buffer.getInt(offset + 4)) break;
+
+            offset += HEADER_BYTES + length;
+        }
+        // Clear the header of a torn record so it is not mistaken for data once appends resume
+        if (offset + 4 <= buffer.capacity()) {
+            buffer.putInt(offset, 0);
+        }
+        return offset;
+    }
+
+    private Position readCheckpoint() {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) return null;
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            return buffer.remaining() < 12 ? null : new Position(buffer.getLong(), buffer.getInt());
+        } catch (IOException e) {
+            log.warn("JOURNAL: Unable to read checkpoint {} - replaying from the oldest segment", path);
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(Position position) {
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        byte[] bytes = ByteBuffer.allocate(12).putLong(position.segment()).putInt(position.offset()).array();
+        try {
+            Files.write(temporary, bytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write journal checkpoint " + target, e);
+        }
+    }
+
+    private static int checksum(byte[] record) {
+        var crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer, int writePosition) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+            this.writePosition = writePosition;
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.tiger.pocs.kafka;
+
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control of {@code POST /kafka}, so a single caller cannot fill the producer's buffer for everyone.
+ * A request needs a slot below the global concurrency cap, then a caller token of its client address and, when it
+ * sends the API key header, one of that key too, and a token of its topic. Otherwise it is answered with 429 and
+ * {@code Retry-After} straight away, before its body is read or the topic is looked up in the cluster; tokens it
+ * already took are given back. The key is not authenticated, so the address limit also binds callers that send a new
+ * key with every request. Behind a load balancer listed in {@code trusted-proxies} the client address is taken from
+ * {@code X-Forwarded-For}, otherwise every request would share the balancer's bucket. At most
+ * {@code max-tracked-callers} caller buckets are kept, evicting the least recently used. Limits start from
+ * {@code kafka.admission} and {@code kafka.topics.*.rate-limit} and can be changed at runtime.
+ */
+@Slf4j
+@Component
+public class AdmissionFilter implements WebFilter, Ordered {
+
+    private static final String PUBLISH_PATH = "/kafka";
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final KafkaProperties.Admission settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, KafkaProperties.RateLimit> topicLimits = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> topicBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> callerBuckets;
+    private final Counter concurrencyRejections;
+    private final Counter callerRejections;
+    private final Counter topicRejections;
+    private volatile int maxConcurrent;
+    private volatile KafkaProperties.RateLimit callerLimit;
+
+    public AdmissionFilter(KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        this.settings = kafkaProperties.getAdmission();
+        this.maxConcurrent = settings.getMaxConcurrent();
+        this.callerLimit = copy(settings.getCaller());
+        this.callerBuckets = leastRecentlyUsed(settings.getMaxTrackedCallers());
+        kafkaProperties.getTopics().values().forEach(topic -> {
+            if (topic.getName() != null && isLimited(topic.getRateLimit())) {
+                topicLimits.put(topic.getName(), copy(topic.getRateLimit()));
+            }
+        });
+
+        this.concurrencyRejections = rejections(meterRegistry, "concurrency");
+        this.callerRejections = rejections(meterRegistry, "caller");
+        this.topicRejections = rejections(meterRegistry, "topic");
+        Gauge.builder("kafka.admission.inflight", inFlight, AtomicInteger::get)
+                .description("REST publishes currently admitted").register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!settings.isEnabled() || request.getMethod() != HttpMethod.POST
+                || !PUBLISH_PATH.equals(request.getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            concurrencyRejections.increment();
+            return reject(exchange, settings.getRetryAfter().toNanos());
+        }
+
+        List<TokenBucket> caller = callerBuckets(request);
+        long callerWait = acquire(caller);
+        if (callerWait > 0) {
+            inFlight.decrementAndGet();
+            callerRejections.increment();
+            return reject(exchange, callerWait);
+        }
+
+        long topicWait = acquireTopicToken(request.getQueryParams().getFirst("topic"));
+        if (topicWait > 0) {
+            caller.forEach(TokenBucket::refund);
+            inFlight.decrementAndGet();
+            topicRejections.increment();
+            return reject(exchange, topicWait);
+        }
+
+        return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * Current limits, requests in flight and rejections per reason.
+     */
+    public Map<String, Object> limits() {
+        var limits = new LinkedHashMap<String, Object>();
+        limits.put("enabled", settings.isEnabled());
+        limits.put("maxConcurrent", maxConcurrent);
+        limits.put("inFlight", inFlight.get());
+        limits.put("caller", describe(callerLimit));
+        var topics = new TreeMap<String, Object>();
+        topicLimits.forEach((topic, limit) -> topics.put(topic, describe(limit)));
+        limits.put("topics", topics);
+        limits.put("rejected", Map.of(
+                "concurrency", (long) concurrencyRejections.count(),
+                "caller", (long) callerRejections.count(),
+                "topic", (long) topicRejections.count()));
+        return limits;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Max concurrent requests must be at least 1: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+        log.info("ADMISSION: Max concurrent publishes set to {}", maxConcurrent);
+    }
+
+    /**
+     * Replaces the limit of every caller; a rate of 0 lifts it. Callers start again with a full bucket.
+     */
+    public void setCallerLimit(double ratePerSecond, int burst) {
+        callerLimit = rateLimit(ratePerSecond, burst, true);
+        callerBuckets.clear();
+        log.info("ADMISSION: Caller limit set to {}/s, burst {}", ratePerSecond, burst);
+    }
+
+    public void setTopicLimit(String topic, double ratePerSecond, int burst) {
+        topicLimits.put(topic, rateLimit(ratePerSecond, burst, false));
+        topicBuckets.remove(topic);
+        log.info("ADMISSION: Limit of topic '{}' set to {}/s, burst {}", topic, ratePerSecond, burst);
+    }
+
+    public void clearTopicLimit(String topic) {
+        topicLimits.remove(topic);
+        topicBuckets.remove(topic);
+    }
+
+    /**
+     * Buckets the request takes a caller token from: its client address, then its API key if it sends one.
+     */
+    private List<TokenBucket> callerBuckets(ServerHttpRequest request) {
+        var limit = callerLimit;
+        if (!isLimited(limit)) return List.of();
+
+        var addressBucket = callerBucket(clientAddress(request), limit);
+        String apiKey = request.getHeaders().getFirst(settings.getCallerHeader());
+        if (apiKey == null || apiKey.isBlank()) {
+            return List.of(addressBucket);
+        }
+        return List.of(addressBucket, callerBucket("key:" + apiKey, limit));
+    }
+
+    /**
+     * The peer address, unless it is a trusted proxy: then the last {@code X-Forwarded-For} entry not added by a
+     * trusted proxy, as entries further left can be set by the client itself.
+     */
+    private String clientAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) return "unknown";
+
+        String client = address.getHostString();
+        var trustedProxies = settings.getTrustedProxies();
+        List<String> forwarded = request.getHeaders().getValuesAsList(FORWARDED_FOR);
+        for (int i = forwarded.size() - 1; i >= 0 && trustedProxies.contains(client); i--) {
+            client = forwarded.get(i).trim();
+        }
+        return "ip:" + client;
+    }
+
+    private TokenBucket callerBucket(String caller, KafkaProperties.RateLimit limit) {
+        return callerBuckets.computeIfAbsent(caller, ignored -> new TokenBucket(limit));
+    }
+
+    /**
+     * Takes a token from every bucket, or none: on a rejection the tokens already taken are given back.
+     */
+    private static long acquire(List<TokenBucket> buckets) {
+        for (int i = 0; i < buckets.size(); i++) {
+            long wait = buckets.get(i).tryAcquire();
+            if (wait > 0) {
+                buckets.subList(0, i).forEach(TokenBucket::refund);
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    private long acquireTopicToken(String topic) {
+        if (topic == null) return 0;
+
+        var limit = topicLimits.get(topic);
+        if (limit == null) return 0;
+        return topicBuckets.computeIfAbsent(topic, ignored -> new TokenBucket(limit)).tryAcquire();
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, long retryAfterNanos) {
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        long seconds = Math.max(1, (retryAfterNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        return response.setComplete();
+    }
+
+    private static Map<String, TokenBucket> leastRecentlyUsed(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private static KafkaProperties.RateLimit rateLimit(double ratePerSecond, int burst, boolean unlimitedAllowed) {
+        if (ratePerSecond < 0 || (ratePerSecond == 0 && !unlimitedAllowed) || (ratePerSecond > 0 && burst < 1)) {
+            throw new IllegalArgumentException("Rate must be positive" + (unlimitedAllowed ? " or 0" : "")
+                    + " and burst at least 1: " + ratePerSecond + "/s, burst " + burst);
+        }
+        var limit = new KafkaProperties.RateLimit();
+        limit.setRatePerSecond(ratePerSecond);
+        limit.setBurst(burst);
+        return limit;
+    }
+
+    private static KafkaProperties.RateLimit copy(KafkaProperties.RateLimit limit) {
+        return limit != null ? rateLimit(limit.getRatePerSecond(), limit.getBurst(), true) : null;
+    }
+
+    private static boolean isLimited(KafkaProperties.RateLimit limit) {
+        return limit != null && limit.getRatePerSecond() > 0;
+    }
+
+    private static Map<String, Object> describe(KafkaProperties.RateLimit limit) {
+        return isLimited(limit)
+                ? Map.of("ratePerSecond", limit.getRatePerSecond(), "burst", limit.getBurst())
+                : Map.of("ratePerSecond", 0.0);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("kafka.admission.rejected")
+                .description("REST publishes rejected with 429")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,189 @@
+package com.tiger.pocs.kafka;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer offsets kept in Mongo, shaped like {@code LogOffsetEntity}. Each record is tracked per partition from
+ * receipt until its write completed, and only the contiguous watermark, the offset below which every record was
+ * processed, is flushed as one bulk upsert; {@code $max} keeps it monotonic. The checkpoint is written on its own
+ * interval after the entity writes, not within them, so a restart may redeliver up to one interval of records.
+ * The stored offset is the next one to consume, as with Kafka commits.
+ */
+@Slf4j
+@Component
+public class ConsumerCheckpointStore {
+
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final KafkaProperties.Checkpoint settings;
+    private final Map<Checkpoint, OffsetWatermark> partitions = new ConcurrentHashMap<>();
+    // Held by the write in progress, so a scheduled flush and a revocation never write checkpoints concurrently
+    private final Semaphore flushing = new Semaphore(1);
+    private final Counter flushed;
+
+    public ConsumerCheckpointStore(ReactiveMongoTemplate mongoTemplate, KafkaProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getCheckpoint();
+        this.flushed = Counter.builder("kafka.checkpoint.flushed")
+                .description("Partition checkpoints written to Mongo").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Registers a received record, returning the callback that marks it processed. The callback is bound to the
+     * current assignment, so records completing after their partition was revoked no longer move its checkpoint.
+     */
+    public Runnable track(String consumerGroup, String topic, int partition, long offset) {
+        var watermark = partitions.computeIfAbsent(new Checkpoint(consumerGroup, topic, partition),
+                ignored -> new OffsetWatermark());
+        watermark.received(offset);
+        return () -> watermark.completed(offset);
+    }
+
+    /**
+     * Stores what the revoked partitions processed so far and stops tracking them, whether or not that store
+     * succeeded; the new owner then resumes from the last checkpoint stored.
+     */
+    public void release(String consumerGroup, Collection<TopicPartition> revoked) {
+        if (!settings.isEnabled() || revoked.isEmpty()) return;
+
+        try {
+            close();
+        } finally {
+            revoked.forEach(partition -> partitions.remove(
+                    new Checkpoint(consumerGroup, partition.topic(), partition.partition())));
+        }
+    }
+
+    /**
+     * Starts a flush without waiting for it; a flush still running is not overlapped.
+     */
+    @Scheduled(fixedDelayString = "${kafka.checkpoint.flush-interval:PT1S}")
+    public void flush() {
+        if (!settings.isEnabled() || !flushing.tryAcquire()) return;
+
+        write().doFinally(signal -> flushing.release()).subscribe();
+    }
+
+    /**
+     * Flushes and waits for it, for revocations and shutdown, after a flush still running. Runs on the consumer
+     * thread during revocation, so a checkpoint not stored within {@code timeout} is logged rather than thrown.
+     */
+    @PreDestroy
+    public void close() {
+        if (!settings.isEnabled()) return;
+
+        long deadline = System.nanoTime() + settings.getTimeout().toNanos();
+        try {
+            if (!flushing.tryAcquire(settings.getTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                log.warn("CHECKPOINT: Previous flush still running after {}, checkpoints not stored",
+                        settings.getTimeout());
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            write().block(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0)));
+        } catch (RuntimeException e) {
+            log.warn("CHECKPOINT: Failed to store partition checkpoints - {}", e.getMessage());
+        } finally {
+            flushing.release();
+        }
+    }
+
+    private Mono<Void> write() {
+        Map<OffsetWatermark, Long> snapshot = new HashMap<>();
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        partitions.forEach((checkpoint, watermark) -> {
+            long offset = watermark.committable();
+            if (offset < 0) return;
+
+            snapshot.put(watermark, offset);
+            updates.add(new UpdateOneModel<>(
+                    Filters.eq("_id", checkpoint.id()),
+                    Updates.combine(
+                            Updates.max("offset", offset),
+                            Updates.set("status", "COMMITTED"),
+                            Updates.set("timestamp", new Date()),
+                            Updates.setOnInsert("consumerGroup", checkpoint.consumerGroup()),
+                            Updates.setOnInsert("topic", checkpoint.topic()),
+                            Updates.setOnInsert("partition", checkpoint.partition())),
+                    UPSERT));
+        });
+        if (updates.isEmpty()) return Mono.empty();
+
+        return mongoTemplate.getCollection(settings.getCollection())
+                .flatMap(collection -> Mono.from(collection.bulkWrite(updates)))
+                .doOnSuccess(ignored -> {
+                    snapshot.forEach(OffsetWatermark::committed);
+                    flushed.increment(updates.size());
+                    log.debug("CHECKPOINT: Stored {} partition checkpoints", updates.size());
+                })
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("CHECKPOINT: Failed to store {} partition checkpoints, retrying on next flush - {}",
+                            updates.size(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Reads the stored offsets of the given partitions; partitions without a checkpoint are left out. Runs on the
+     * consumer thread during assignment, which has to wait for the offsets before it can seek.
+     */
+    public Map<TopicPartition, Long> load(String consumerGroup, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) return Map.of();
+
+        var ids = partitions.stream()
+                .map(partition -> new Checkpoint(consumerGroup, partition.topic(), partition.partition()).id())
+                .toList();
+
+        var offsets = mongoTemplate.getCollection(settings.getCollection())
+                .flatMapMany(collection -> Flux.from(collection.find(Filters.in("_id", ids))))
+                .collectMap(
+                        document -> new TopicPartition(document.getString("topic"), document.getInteger("partition")),
+                        document -> ((Number) document.get("offset")).longValue())
+                .block(settings.getTimeout());
+        return offsets != null ? offsets : Map.of();
+    }
+
+    record Checkpoint(String consumerGroup, String topic, int partition) {
+        String id() {
+            return consumerGroup + ":" + topic + ":" + partition;
+        }
+    }
+}
@@ -20,11 +20,15 @@ public class KafkaController {
     private final KafkaProducer kafkaProducer;
     private final KafkaProperties kafkaProperties;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final RecordKeyExtractor recordKeyExtractor;
 
     @PostMapping
     public ResponseEntity<KafkaResponse.PublishResponse> publishPayload(
-            @RequestParam String topic, @RequestParam(required = false) String key, @RequestBody Object payload) {
+            @RequestParam String topic, @RequestParam(name = "key", required = false) String requestKey,
+            @RequestBody Object payload) {
 
+        // Without a key, one is derived from the payload so records of the same entity keep their partition
+        String key = requestKey != null ? requestKey : recordKeyExtractor.extractKey(topic, payload);
         try {
             boolean published = kafkaProducer.validateAndPublishPayload(topic, key, payload);
             
@@ -1,6 +1,7 @@
 package com.tiger.pocs.kafka;
 
 import com.tiger.pocs.kafka.config.KafkaConfigUtils;
+import com.tiger.pocs.jfr.RecordPublishedEvent;
 import com.tiger.pocs.kafka.domain.KafkaProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +12,8 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -19,16 +22,35 @@ public class KafkaProducer {
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final KafkaProperties kafkaProperties;
     private final ApplicationContext applicationContext;
+    private final ProducerOutbox outbox;
 
     public void publishPayload(String topicName, Object payload) {
         applicationContext.getBean(KafkaProducer.class).publishPayload(topicName, null, payload);
     }
 
+    /**
+     * Publishes to an existing topic, returning {@code false} when it does not exist. With the outbox enabled,
+     * records for configured topics are also accepted while the cluster is unreachable.
+     */
     public boolean validateAndPublishPayload(String topicName, String key, Object payload) {
-        if (!isTopicConfigured(topicName)) {
+        return route(topicName, key, payload);
+    }
+
+    @Async
+    public void publishPayload(String topicName, String key, Object payload) {
+        route(topicName, key, payload);
+    }
+
+    private boolean route(String topicName, String key, Object payload) {
+        boolean configured = isTopicConfigured(topicName);
+        if (!configured) {
             logTopicNotConfiguredWarning(topicName);
         }
 
+        if (configured && outbox.isEnabled()) {
+            return publishOrBuffer(topicName, key, payload);
+        }
+
         if (!validateTopicExists(topicName)) {
             logTopicNotExist(topicName);
             return false;
@@ -38,18 +60,28 @@ public class KafkaProducer {
         return true;
     }
 
-    @Async
-    public void publishPayload(String topicName, String key, Object payload) {
-        if (!isTopicConfigured(topicName)) {
-            logTopicNotConfiguredWarning(topicName);
+    /**
+     * Records queue behind an outbox backlog without asking the cluster, and go to the outbox when it cannot be
+     * reached; either way the caller is answered at disk speed during an outage.
+     */
+    private boolean publishOrBuffer(String topicName, String key, Object payload) {
+        if (outbox.hasBacklog()) {
+            return outbox.append(topicName, key, payload);
         }
 
-        if (!validateTopicExists(topicName)) {
-            logTopicNotExist(topicName);
-            return;
+        try {
+            if (!KafkaConfigUtils.topicExists(topicName, kafkaProperties)) {
+                logTopicNotExist(topicName);
+                return false;
+            }
+        } catch (Exception exception) {
+            log.warn("Kafka unreachable, buffering payload for topic '{}' in the outbox: {}",
+                    topicName, exception.getMessage());
+            return outbox.append(topicName, key, payload);
         }
 
         sendMessageToTopic(topicName, key, payload);
+        return true;
     }
 
     private boolean isTopicConfigured(String topicName) {
@@ -57,7 +89,10 @@ public class KafkaProducer {
                 .anyMatch(topicConfig -> topicName.equals(topicConfig.getName()));
     }
 
-    private boolean validateTopicExists(String topicName) {
+    /**
+     * Whether the topic exists in the cluster; a failed check counts as missing.
+     */
+    public boolean validateTopicExists(String topicName) {
         try {
             return KafkaConfigUtils.doesTopicExist(topicName, kafkaProperties);
         } catch (Exception e) {
@@ -79,13 +114,44 @@ public class KafkaProducer {
         log.warn("Failed to validate existence of topic '{}': {}", topicName, errorMessage);
     }
 
+    /**
+     * Sends without the topic checks of the publish methods, for callers that validated their topics up front.
+     * The returned future completes once the broker acknowledged the record.
+     */
+    public CompletableFuture<SendResult<String, Object>> send(String topicName, String key, Object payload) {
+        ProducerRecord<String, Object> messageRecord = createProducerRecord(topicName, key, payload);
+        var jfrEvent = RecordPublishedEvent.isRecording() ? new RecordPublishedEvent() : null;
+        if (jfrEvent != null) {
+            jfrEvent.begin();
+        }
+        return kafkaTemplate.send(messageRecord).whenComplete((sendResult, exception) -> {
+            commitPublishedEvent(jfrEvent, topicName, sendResult, exception);
+            handleSendResult(topicName, key, sendResult, exception);
+        });
+    }
+
     private void sendMessageToTopic(String topicName, String key, Object payload) {
         try {
-            ProducerRecord<String, Object> messageRecord = createProducerRecord(topicName, key, payload);
-            kafkaTemplate.send(messageRecord).whenComplete((sendResult, exception) ->
-                    handleSendResult(topicName, key, sendResult, exception));
+            send(topicName, key, payload).whenComplete((sendResult, exception) -> {
+                if (exception != null) {
+                    bufferFailedSend(topicName, key, payload);
+                }
+            });
         } catch (Exception exception) {
             logSendError(topicName, key, exception);
+            bufferFailedSend(topicName, key, payload);
+        }
+    }
+
+    /**
+     * Known limitation: a send that fails once the cluster was found reachable is only buffered when its future
+     * fails, up to the producer's {@code delivery.timeout.ms} later. Records of the same key sent meanwhile may
+     * already be in Kafka, so the buffered one is replayed after them; per-key order only holds for records that
+     * queued behind an existing backlog or were buffered because the cluster was unreachable.
+     */
+    private void bufferFailedSend(String topicName, String key, Object payload) {
+        if (outbox.isEnabled() && isTopicConfigured(topicName) && outbox.append(topicName, key, payload)) {
+            log.warn("Buffered failed send to topic '{}' with key '{}' in the outbox", topicName, key);
         }
     }
 
@@ -93,6 +159,21 @@ public class KafkaProducer {
         return new ProducerRecord<>(topicName, key, payload);
     }
 
+    private static void commitPublishedEvent(RecordPublishedEvent jfrEvent, String topicName,
+                                             SendResult<String, Object> sendResult, Throwable exception) {
+        if (jfrEvent == null || !jfrEvent.shouldCommit()) return;
+
+        if (exception == null && sendResult != null) {
+            var metadata = sendResult.getRecordMetadata();
+            jfrEvent.record(metadata.topic(), metadata.partition(), metadata.offset(),
+                    Math.max(metadata.serializedValueSize(), 0));
+        } else {
+            jfrEvent.record(topicName, -1, -1, 0);
+        }
+        jfrEvent.outcome(exception == null);
+        jfrEvent.commit();
+    }
+
     private void handleSendResult(
             String topicName, String key, SendResult<String, Object> sendResult, Throwable exception) {
 
@@ -104,7 +185,7 @@ public class KafkaProducer {
     }
 
     private void logSuccessfulSend(String topicName, String key, SendResult<String, Object> sendResult) {
-        log.info("Successfully published payload to topic '{}' with key '{}' at offset '{}'",
+        log.debug("Successfully published payload to topic '{}' with key '{}' at offset '{}'",
                 topicName, key, sendResult.getRecordMetadata().offset());
     }
 
@@ -0,0 +1,52 @@
+package com.tiger.pocs.kafka;
+
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Commit position of one partition when its records complete out of order. Records are registered when they are
+ * received and removed when they complete; the committable offset is the lowest one still in flight, or the one after
+ * the highest received once none is. It never moves back below an offset already committed.
+ */
+final class OffsetWatermark {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private long nextReceived = -1;
+    private long committed = -1;
+    private CompletableFuture<Void> drained;
+
+    synchronized void received(long offset) {
+        inFlight.add(offset);
+        nextReceived = Math.max(nextReceived, offset + 1);
+    }
+
+    synchronized void completed(long offset) {
+        inFlight.remove(offset);
+        if (inFlight.isEmpty() && drained != null) {
+            drained.complete(null);
+            drained = null;
+        }
+    }
+
+    /**
+     * Completes once none of the records received so far is in flight any more.
+     */
+    synchronized CompletableFuture<Void> drained() {
+        if (inFlight.isEmpty()) return CompletableFuture.completedFuture(null);
+        if (drained == null) drained = new CompletableFuture<>();
+        return drained;
+    }
+
+    /**
+     * Next offset to consume below which every received record completed, or {@code -1} when that does not go
+     * beyond the last committed offset.
+     */
+    synchronized long committable() {
+        long watermark = inFlight.isEmpty() ? nextReceived : inFlight.first();
+        return watermark > committed ? watermark : -1;
+    }
+
+    synchronized void committed(long offset) {
+        committed = Math.max(committed, offset);
+    }
+}
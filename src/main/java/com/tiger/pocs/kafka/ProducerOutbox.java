@@ -0,0 +1,174 @@
+package com.tiger.pocs.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tiger.pocs.journal.WriteAheadJournal;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Spill-to-disk buffer for the producer: records for configured topics that cannot reach the cluster are appended
+ * to a local {@link WriteAheadJournal} and replayed in append order once it is reachable again. While a backlog
+ * exists new records queue behind it, so records of the same key keep their order; replay is at least once.
+ * Sends that fail after they were handed to the producer are the exception, see {@link KafkaProducer}.
+ */
+@Slf4j
+@Component
+public class ProducerOutbox {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaProperties.Outbox settings;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Counter replayed;
+    private final Counter dropped;
+    private final Timer drainTimer;
+    private volatile WriteAheadJournal journal;
+    // Only used by the drain, which the scheduler never runs concurrently with itself
+    private InFlightBatch inFlight;
+
+    public ProducerOutbox(KafkaTemplate<String, Object> kafkaTemplate, KafkaProperties properties,
+                          ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.settings = properties.getOutbox();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.replayed = Counter.builder("kafka.outbox.replayed")
+                .description("Outbox records published to Kafka").register(meterRegistry);
+        this.dropped = Counter.builder("kafka.outbox.dropped")
+                .description("Records that could not be buffered in the outbox").register(meterRegistry);
+        this.drainTimer = Timer.builder("kafka.outbox.drain.batch")
+                .description("Time to publish one outbox batch").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!settings.isEnabled()) return;
+
+        journal = new WriteAheadJournal("producer", Path.of(settings.getDirectory()), settings.getSegmentSize(),
+                settings.getMaxSize(), settings.isForceOnAppend(), meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * While records wait in the outbox, new records for Kafka are appended behind them instead of being sent.
+     */
+    public boolean hasBacklog() {
+        return journal != null && journal.hasPending();
+    }
+
+    /**
+     * Buffers a record, returning {@code false} when the outbox is disabled, full or the record exceeds a segment.
+     */
+    public boolean append(String topic, String key, Object payload) {
+        if (journal == null) return false;
+
+        boolean appended;
+        try {
+            ObjectNode entry = objectMapper.createObjectNode()
+                    .put("topic", topic)
+                    .put("key", key)
+                    .set("payload", objectMapper.valueToTree(payload));
+            appended = journal.append(objectMapper.writeValueAsBytes(entry));
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("OUTBOX: Unable to buffer record for topic '{}' with key '{}' - {}", topic, key, e.getMessage());
+            appended = false;
+        }
+
+        if (!appended) {
+            dropped.increment();
+        }
+        return appended;
+    }
+
+    /**
+     * Publishes buffered records in append order. A batch is only checkpointed once every record of it was
+     * acknowledged, so a failure resends the whole batch on the next drain. A batch still unacknowledged after the
+     * drain timeout stays in flight: the producer keeps retrying its sends, and later drains wait for their outcome
+     * instead of sending the batch a second time.
+     */
+    @Scheduled(fixedDelayString = "${kafka.outbox.drain-interval:PT1S}")
+    public void drain() {
+        if (journal == null) return;
+
+        for (int i = 0; i < settings.getMaxBatchesPerDrain(); i++) {
+            if (inFlight == null) {
+                var batch = journal.read(settings.getDrainBatchSize());
+                if (batch.isEmpty()) return;
+
+                try {
+                    inFlight = new InFlightBatch(batch, publish(batch.records()), System.nanoTime());
+                } catch (Exception e) {
+                    log.warn("OUTBOX: Replay of {} records paused, Kafka still unavailable - {}",
+                            batch.size(), e.getMessage());
+                    return;
+                }
+            }
+
+            var batch = inFlight.batch();
+            try {
+                inFlight.sends().get(settings.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("OUTBOX: Replay of {} records still awaiting Kafka acknowledgment", batch.size());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                inFlight = null;
+                log.warn("OUTBOX: Replay of {} records paused, Kafka still unavailable - {}",
+                        batch.size(), e.getCause().getMessage());
+                return;
+            }
+            drainTimer.record(System.nanoTime() - inFlight.startedAt(), TimeUnit.NANOSECONDS);
+            inFlight = null;
+            journal.commit(batch);
+            replayed.increment(batch.size());
+            log.info("OUTBOX: Replayed {} records to Kafka", batch.size());
+        }
+    }
+
+    private CompletableFuture<Void> publish(List<byte[]> records) throws IOException {
+        // Sent one after the other through the same producer, which keeps their order within each partition
+        List<CompletableFuture<?>> sends = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            JsonNode entry = objectMapper.readTree(record);
+            String key = entry.path("key").isNull() ? null : entry.path("key").asText();
+            Object payload = entry.get("payload");
+            sends.add(kafkaTemplate.send(new ProducerRecord<>(entry.path("topic").asText(), key, payload)));
+        }
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
+
+    private record InFlightBatch(WriteAheadJournal.Batch batch, CompletableFuture<Void> sends, long startedAt) {
+    }
+}
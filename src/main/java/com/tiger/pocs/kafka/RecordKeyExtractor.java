@@ -0,0 +1,92 @@
+package com.tiger.pocs.kafka;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.JsonPointerBasedFilter;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives the record key from the payload for topics with a {@code key-pointer}, e.g. {@code /id} for clients or
+ * {@code /userId} for user access, so records of the same entity land on the same partition when the publisher
+ * did not set a key. Only the pointed field is read: raw JSON is streamed until the field is found and already
+ * decoded maps and lists are walked along the pointer, neither builds a tree of the whole payload.
+ */
+@Slf4j
+@Component
+public class RecordKeyExtractor {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, JsonPointer> pointersByTopic = new HashMap<>();
+
+    public RecordKeyExtractor(KafkaProperties kafkaProperties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        kafkaProperties.getTopics().values().forEach(topic -> {
+            if (topic.getName() != null && topic.getKeyPointer() != null && !topic.getKeyPointer().isBlank()) {
+                pointersByTopic.put(topic.getName(), JsonPointer.compile(topic.getKeyPointer()));
+            }
+        });
+    }
+
+    /**
+     * The key for a record without one, or {@code null} when the topic has no rule or the payload has no scalar
+     * value at its pointer.
+     */
+    public String extractKey(String topicName, Object payload) {
+        JsonPointer pointer = pointersByTopic.get(topicName);
+        if (pointer == null || payload == null) return null;
+
+        try {
+            return switch (payload) {
+                case String json -> stream(objectMapper.createParser(json), pointer);
+                case byte[] json -> stream(objectMapper.createParser(json), pointer);
+                case JsonNode node -> scalar(node.at(pointer));
+                case Map<?, ?> map -> walk(map, pointer);
+                case List<?> list -> walk(list, pointer);
+                default -> scalar(objectMapper.valueToTree(payload).at(pointer));
+            };
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Unable to derive key for topic '{}' from payload: {}", topicName, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String stream(JsonParser source, JsonPointer pointer) throws IOException {
+        try (JsonParser parser = new FilteringParserDelegate(source, new JsonPointerBasedFilter(pointer),
+                TokenFilter.Inclusion.ONLY_INCLUDE_ALL, false)) {
+            JsonToken token = parser.nextToken();
+            return token != null && token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+        }
+    }
+
+    private static String walk(Object value, JsonPointer pointer) {
+        Object current = value;
+        for (JsonPointer segment = pointer; !segment.matches(); segment = segment.tail()) {
+            if (current instanceof Map<?, ?> map) {
+                current = map.get(segment.getMatchingProperty());
+            } else if (current instanceof List<?> list && segment.mayMatchElement()
+                    && segment.getMatchingIndex() < list.size()) {
+                current = list.get(segment.getMatchingIndex());
+            } else {
+                return null;
+            }
+        }
+        return current instanceof String || current instanceof Number || current instanceof Boolean
+                ? current.toString() : null;
+    }
+
+    private static String scalar(JsonNode node) {
+        return node.isValueNode() && !node.isNull() ? node.asText() : null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.tiger.pocs.kafka;
+
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket of one caller or topic. It starts full and is refilled lazily on each acquisition.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(KafkaProperties.RateLimit limit) {
+        this.tokensPerNano = limit.getRatePerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, limit.getBurst());
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, returning 0, or returns the nanoseconds until the next token when the bucket is empty.
+     */
+    synchronized long tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Gives back a token taken by a request that was rejected by a later check.
+     */
+    synchronized void refund() {
+        refill();
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -1,15 +1,23 @@
 package com.tiger.pocs.kafka;
 
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.jfr.RecordConsumedEvent;
 import com.tiger.pocs.kafka.domain.KafkaMessage;
 import com.tiger.pocs.kafka.processor.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaUtils;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,46 +25,84 @@ import java.util.Map;
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class TopicKafkaConsumer {
+public class TopicKafkaConsumer implements ConsumerSeekAware {
 
     private final ClientEventProcessor clientEventProcessor;
     private final AccountEventProcessor accountEventProcessor;
     private final UserEventProcessor userEventProcessor;
     private final LogOffsetEventProcessor logOffsetEventProcessor;
     private final UserAccessEventProcessor userAccessEventProcessor;
+    private final ConsumerCheckpointStore checkpointStore;
+    private final TransactionalCommitter transactionalCommitter;
 
     @KafkaListener(topics = "${CLIENTS_TOPIC_NAME}", groupId = "${CLIENTS_TOPIC_GROUP_ID}")
-    public void handleClientsMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment) {
-        processMessage(consumerRecord, acknowledgment, "🟦", "clients",
+    public void handleClientsMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment,
+                                     Consumer<?, ?> consumer) {
+        processMessage(consumerRecord, acknowledgment, consumer, "🟦", "clients",
                 clientEventProcessor::processClientMessage);
     }
 
     @KafkaListener(topics = "${ACCOUNTS_TOPIC_NAME}", groupId = "${ACCOUNTS_TOPIC_GROUP_ID}")
-    public void handleAccountsMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment) {
-        processMessage(consumerRecord, acknowledgment, "🟪", "accounts",
+    public void handleAccountsMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment,
+                                      Consumer<?, ?> consumer) {
+        processMessage(consumerRecord, acknowledgment, consumer, "🟪", "accounts",
                 accountEventProcessor::processAccountMessage);
     }
 
     @KafkaListener(topics = "${USERS_TOPIC_NAME}", groupId = "${USERS_TOPIC_GROUP_ID}")
-    public void handleUsersMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment) {
-        processMessage(consumerRecord, acknowledgment, "🟩", "users",
+    public void handleUsersMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment,
+                                   Consumer<?, ?> consumer) {
+        processMessage(consumerRecord, acknowledgment, consumer, "🟩", "users",
                 userEventProcessor::processUserMessage);
     }
 
     @KafkaListener(topics = "${LOG_OFFSET_TOPIC_NAME}", groupId = "${LOG_OFFSET_TOPIC_GROUP_ID}")
-    public void handleLogOffsetMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment) {
-        processMessage(consumerRecord, acknowledgment, "🟨", "log offset",
+    public void handleLogOffsetMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment,
+                                       Consumer<?, ?> consumer) {
+        processMessage(consumerRecord, acknowledgment, consumer, "🟨", "log offset",
                 logOffsetEventProcessor::processLogOffsetMessage);
     }
 
     @KafkaListener(topics = "${USER_ACCESS_TOPIC_NAME}", groupId = "${USER_ACCESS_TOPIC_GROUP_ID}")
-    public void handleUserAccessMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment) {
-        processMessage(consumerRecord, acknowledgment, "🟧", "user access",
+    public void handleUserAccessMessage(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment,
+                                        Consumer<?, ?> consumer) {
+        processMessage(consumerRecord, acknowledgment, consumer, "🟧", "user access",
                 userAccessEventProcessor::processUserAccessMessage);
     }
 
 
-    private KafkaMessage<String> convertToKafkaMessage(ConsumerRecord<String, String> consumerRecord) {
+    /**
+     * In checkpoint mode the partitions resume from the offsets stored in Mongo rather than the Kafka commits;
+     * transactional mode commits to Kafka, so it keeps the Kafka offsets.
+     * Rebalance callbacks run on the consumer thread, where the container exposes its group id.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (!checkpointStore.isEnabled() || transactionalCommitter.isEnabled() || assignments.isEmpty()) return;
+
+        String consumerGroup = KafkaUtils.getConsumerGroupId();
+        checkpointStore.load(consumerGroup, assignments.keySet()).forEach((partition, offset) -> {
+            log.info("[CONSUMER] Seeking {} to checkpointed offset {} for group {}", partition, offset, consumerGroup);
+            callback.seek(partition.topic(), partition.partition(), offset);
+        });
+    }
+
+    /**
+     * The records processed so far are committed before the partitions move to another consumer, which would
+     * otherwise process them again; in transactional mode the records still in flight are awaited first.
+     */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) return;
+
+        if (transactionalCommitter.isEnabled()) {
+            transactionalCommitter.release(KafkaUtils.getConsumerGroupId(), partitions);
+        } else if (checkpointStore.isEnabled()) {
+            checkpointStore.release(KafkaUtils.getConsumerGroupId(), partitions);
+        }
+    }
+
+    static KafkaMessage<String> convertToKafkaMessage(ConsumerRecord<String, String> consumerRecord) {
         Map<String, String> headers = new HashMap<>();
         consumerRecord.headers().forEach(header ->
                 headers.put(header.key(), new String(header.value()))
@@ -70,29 +116,68 @@ public class TopicKafkaConsumer {
                 .offset(consumerRecord.offset())
                 .timestamp(Instant.ofEpochMilli(consumerRecord.timestamp()))
                 .headers(headers)
+                .timings(RecordTimings.received(consumerRecord.timestamp()))
                 .build();
     }
 
 
 
     private void processMessage(
-            ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment, String icon,
-            String messageType, MessageProcessor processor) {
+            ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment, Consumer<?, ?> consumer,
+            String icon, String messageType, MessageProcessor processor) {
 
-        log.info("{} [CONSUMER] Received {} message from topic: {}, partition: {}, offset: {}",
+        log.debug("{} [CONSUMER] Received {} message from topic: {}, partition: {}, offset: {}",
                 icon, messageType, consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset());
 
+        var jfrEvent = new RecordConsumedEvent();
+        jfrEvent.begin();
+        var messageAcknowledgment = MessageAcknowledgment.of(
+                acknowledgmentFor(consumerRecord, acknowledgment, consumer));
         try {
             KafkaMessage<String> message = convertToKafkaMessage(consumerRecord);
+            message.setAcknowledgment(messageAcknowledgment);
             processor.process(message);
-            acknowledgment.acknowledge();
+            // Stages that buffer the record (e.g. write coalescing) defer the ack until the write succeeds
+            if (!messageAcknowledgment.isDeferred()) {
+                messageAcknowledgment.acknowledge();
+            }
         } catch (Exception e) {
-            log.error("❌ [CONSUMER] Failed to process {} message: {}", messageType, e.getMessage(), e);
-            acknowledgment.acknowledge(); // Still acknowledge to avoid infinite retries
+            // The ingestion pipeline already logged the failure with its coordinates
+            log.debug("❌ [CONSUMER] Failed to process {} message: {}", messageType, e.getMessage(), e);
+            messageAcknowledgment.acknowledge(); // Still acknowledge to avoid infinite retries
+        } finally {
+            if (jfrEvent.shouldCommit()) {
+                jfrEvent.record(consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset(),
+                        Math.max(consumerRecord.serializedValueSize(), 0));
+                jfrEvent.commit();
+            }
         }
     }
 
 
+    /**
+     * In checkpoint mode the record is tracked from receipt, so the Mongo checkpoint only passes it once it was
+     * processed; the Kafka acknowledgment is then only committed asynchronously with the next poll.
+     */
+    private Runnable acknowledgmentFor(ConsumerRecord<String, String> consumerRecord, Acknowledgment acknowledgment,
+                                       Consumer<?, ?> consumer) {
+        if (transactionalCommitter.isEnabled()) {
+            // The offset commits with the record's notification in a Kafka transaction; the container is only
+            // acknowledged after that
+            return transactionalCommitter.track(consumer, consumerRecord, acknowledgment);
+        }
+        if (!checkpointStore.isEnabled()) {
+            return acknowledgment::acknowledge;
+        }
+
+        var processed = checkpointStore.track(KafkaUtils.getConsumerGroupId(), consumerRecord.topic(),
+                consumerRecord.partition(), consumerRecord.offset());
+        return () -> {
+            processed.run();
+            acknowledgment.acknowledge();
+        };
+    }
+
     @FunctionalInterface
     private interface MessageProcessor {
         void process(KafkaMessage<String> message);
@@ -0,0 +1,257 @@
+package com.tiger.pocs.kafka;
+
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transactional consume-transform-produce: a processed record is not acknowledged to the container, and its
+ * notification and consumed offset are committed in one Kafka transaction together with many others. Either both
+ * become visible to {@code read_committed} consumers or neither does. Records complete out of order, so a
+ * partition's offset only advances to its lowest record still in flight, and a notification is held until the
+ * committed offset passes its record. The offsets of each partition carry the group metadata of the consumer that
+ * owns it, so a consumer that lost its partitions in a rebalance is fenced instead of committing them. A record is
+ * only acknowledged to the container once its transaction committed, which with async acks keeps the consumer paused
+ * while a poll's records are still uncommitted; the container's own commit of those offsets trails the transaction's.
+ * The Mongo writes are not part of the transaction: a record redelivered after a crash is written again, idempotently.
+ */
+@Slf4j
+@Component
+public class TransactionalCommitter {
+
+    private final KafkaTemplate<String, Object> transactionalTemplate;
+    private final KafkaProperties.Transactions settings;
+    private final Map<GroupPartition, OffsetWatermark> watermarks = new ConcurrentHashMap<>();
+    // Metadata of the consumer each partition was last received by, refreshed with every record
+    private final Map<GroupPartition, ConsumerGroupMetadata> groupMetadata = new ConcurrentHashMap<>();
+    private final Queue<Processed> queued = new ConcurrentLinkedQueue<>();
+    private final Counter committed;
+    private final Counter aborted;
+    private final Timer transactionTimer;
+    // Processed records whose partition's offset has not passed them yet; guarded by the flush lock
+    private final List<Processed> held = new ArrayList<>();
+    // A transaction that aborted; it is retried before anything processed after it
+    private Transaction retry;
+
+    public TransactionalCommitter(
+            @Qualifier("transactionalKafkaTemplate") ObjectProvider<KafkaTemplate<String, Object>> transactionalTemplate,
+            KafkaProperties properties, MeterRegistry meterRegistry) {
+        this.transactionalTemplate = transactionalTemplate.getIfAvailable();
+        this.settings = properties.getTransactions();
+        this.committed = Counter.builder("kafka.transactions.records.committed")
+                .description("Processed records committed with their notification").register(meterRegistry);
+        this.aborted = Counter.builder("kafka.transactions.aborted")
+                .description("Transactions aborted and retried").register(meterRegistry);
+        this.transactionTimer = Timer.builder("kafka.transactions.commit")
+                .description("Time to commit one batch transaction").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return transactionalTemplate != null;
+    }
+
+    /**
+     * Registers a record as it is received, on the consumer thread, which also refreshes the group metadata its
+     * partition's offsets are fenced with. The returned callback queues the record once the pipeline released it;
+     * the acknowledgment follows once it was committed.
+     */
+    public Runnable track(Consumer<?, ?> consumer, ConsumerRecord<String, ?> consumerRecord,
+                          Acknowledgment acknowledgment) {
+        var metadata = consumer.groupMetadata();
+        var partition = new GroupPartition(metadata.groupId(),
+                new TopicPartition(consumerRecord.topic(), consumerRecord.partition()));
+        groupMetadata.put(partition, metadata);
+
+        var watermark = watermarks.computeIfAbsent(partition, ignored -> new OffsetWatermark());
+        watermark.received(consumerRecord.offset());
+        return () -> {
+            // Queued before it completes, so a flush that sees the offset pass the record also finds it
+            queued.add(new Processed(partition, watermark, consumerRecord.offset(), consumerRecord.key(),
+                    Instant.now(), acknowledgment));
+            watermark.completed(consumerRecord.offset());
+        };
+    }
+
+    /**
+     * Commits the processed records the partitions' offsets passed, in transactions of at most {@code batch-size}
+     * records. An aborted transaction is retried as is on the next flush, as its offsets were not committed either.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${kafka.transactions.commit-interval:PT0.2S}")
+    public synchronized void flush() {
+        if (transactionalTemplate == null) return;
+
+        while (true) {
+            Transaction transaction = retry != null ? retry : nextTransaction();
+            if (transaction == null) return;
+
+            try {
+                transactionTimer.record(() -> commit(transaction));
+            } catch (RuntimeException e) {
+                retry = transaction;
+                aborted.increment();
+                log.warn("TRANSACTION: Aborted commit of {} records, retrying on next flush - {}",
+                        transaction.records().size(), e.getMessage());
+                return;
+            }
+            retry = null;
+            transaction.offsets().forEach((watermark, offset) -> watermark.committed(offset.partitionOffset()));
+            transaction.records().forEach(processed -> processed.acknowledgment().acknowledge());
+            committed.increment(transaction.records().size());
+            log.debug("TRANSACTION: Committed {} records", transaction.records().size());
+        }
+    }
+
+    /**
+     * Waits up to {@code revoke-timeout} for the records of revoked partitions still in flight, commits what was
+     * processed and forgets the partitions. Records that did not complete in time are left to the new owner.
+     */
+    public void release(String consumerGroup, Collection<TopicPartition> partitions) {
+        if (transactionalTemplate == null) return;
+
+        List<OffsetWatermark> revoked = partitions.stream()
+                .map(partition -> watermarks.get(new GroupPartition(consumerGroup, partition)))
+                .filter(Objects::nonNull)
+                .toList();
+        try {
+            CompletableFuture.allOf(revoked.stream().map(OffsetWatermark::drained).toArray(CompletableFuture[]::new))
+                    .get(settings.getRevokeTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("TRANSACTION: Records of revoked partitions {} still in flight after {}, leaving them to the "
+                    + "new owner", partitions, settings.getRevokeTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        flush();
+        synchronized (this) {
+            partitions.forEach(partition -> {
+                watermarks.remove(new GroupPartition(consumerGroup, partition));
+                groupMetadata.remove(new GroupPartition(consumerGroup, partition));
+            });
+            // The new owner's generation would fence a retried transaction of these partitions for good, so it is
+            // rebuilt from the records of the partitions still assigned
+            if (retry != null && retry.offsets().keySet().stream().anyMatch(revoked::contains)) {
+                log.warn("TRANSACTION: Rebuilding uncommitted transaction of {} records without revoked partitions {}",
+                        retry.records().size(), partitions);
+                held.addAll(retry.records());
+                retry = null;
+            }
+            held.removeIf(this::isReleased);
+        }
+    }
+
+    private Transaction nextTransaction() {
+        // Offsets are read before the queue is drained: every record below them was queued before they moved
+        Map<OffsetWatermark, Long> committable = new IdentityHashMap<>();
+        watermarks.values().forEach(watermark -> committable.put(watermark, watermark.committable()));
+        for (Processed processed; (processed = queued.poll()) != null; ) {
+            held.add(processed);
+        }
+        held.removeIf(this::isReleased);
+        // Lowest offsets first, so a partition cut by the batch size only leaves out records above those taken
+        held.sort(Comparator.comparingLong(Processed::offset));
+
+        List<Processed> records = new ArrayList<>();
+        Map<OffsetWatermark, Long> skipped = new IdentityHashMap<>();
+        for (var iterator = held.iterator(); iterator.hasNext(); ) {
+            var processed = iterator.next();
+            if (processed.offset() >= committable.getOrDefault(processed.watermark(), -1L)) continue;
+
+            if (records.size() < settings.getBatchSize()) {
+                records.add(processed);
+                iterator.remove();
+            } else {
+                skipped.putIfAbsent(processed.watermark(), processed.offset());
+            }
+        }
+        if (records.isEmpty()) return null;
+
+        // The stored offset is the next one to consume; a partition cut by the batch size stops at its first
+        // record left out
+        Map<OffsetWatermark, PartitionOffset> offsets = new LinkedHashMap<>();
+        for (Processed processed : records) {
+            var watermark = processed.watermark();
+            offsets.computeIfAbsent(watermark, ignored -> new PartitionOffset(processed.partition(),
+                    skipped.getOrDefault(watermark, committable.get(watermark))));
+        }
+        return new Transaction(records, offsets);
+    }
+
+    private boolean isReleased(Processed processed) {
+        return watermarks.get(processed.partition()) != processed.watermark();
+    }
+
+    private void commit(Transaction transaction) {
+        // Grouped by consumer rather than by group: consumers of one group each fence their own partitions, and a
+        // retried transaction picks up the metadata of the generation that kept a partition
+        Map<ConsumerGroupMetadata, Map<TopicPartition, OffsetAndMetadata>> offsetsByConsumer = new LinkedHashMap<>();
+        transaction.offsets().values().forEach(offset -> offsetsByConsumer
+                .computeIfAbsent(groupMetadata.get(offset.partition()), ignored -> new LinkedHashMap<>())
+                .put(offset.partition().topicPartition(), new OffsetAndMetadata(offset.partitionOffset())));
+
+        transactionalTemplate.executeInTransaction(operations -> {
+            transaction.records().forEach(processed ->
+                    operations.send(settings.getNotificationsTopic(), processed.key(), processed.notification()));
+            offsetsByConsumer.forEach((metadata, offsets) -> operations.sendOffsetsToTransaction(offsets, metadata));
+            return null;
+        });
+    }
+
+    private record GroupPartition(String consumerGroup, TopicPartition topicPartition) {
+    }
+
+    private record PartitionOffset(GroupPartition partition, long partitionOffset) {
+    }
+
+    private record Transaction(List<Processed> records, Map<OffsetWatermark, PartitionOffset> offsets) {
+    }
+
+    private record Processed(GroupPartition partition, OffsetWatermark watermark, long offset, String key,
+                             Instant processedAt, Acknowledgment acknowledgment) {
+
+        Map<String, Object> notification() {
+            var notification = new LinkedHashMap<String, Object>();
+            notification.put("topic", partition.topicPartition().topic());
+            notification.put("partition", partition.topicPartition().partition());
+            notification.put("offset", offset);
+            notification.put("key", key);
+            notification.put("consumerGroup", partition.consumerGroup());
+            notification.put("processedAt", processedAt.toString());
+            return notification;
+        }
+    }
+}
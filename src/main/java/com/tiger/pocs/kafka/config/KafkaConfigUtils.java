@@ -38,6 +38,14 @@ public final class KafkaConfigUtils {
         return getConfigSupport().validateTopicExists(topic, properties);
     }
 
+    /**
+     * Like {@link #doesTopicExist}, but throws a {@link org.apache.kafka.common.KafkaException} when the cluster
+     * cannot be reached instead of reporting the topic as missing.
+     */
+    public static boolean topicExists(String topic, KafkaProperties properties) {
+        return getConfigSupport().topicExists(topic, properties);
+    }
+
     private static KafkaConfigurationSupport getConfigSupport() {
         if (configSupport == null) {
             configSupport = new KafkaConfigurationSupport();
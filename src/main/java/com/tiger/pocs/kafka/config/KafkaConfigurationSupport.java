@@ -4,6 +4,7 @@ import com.tiger.pocs.kafka.domain.KafkaProperties;
 import com.tiger.pocs.kafka.domain.KafkaResponse;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.config.SslConfigs;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -18,7 +19,9 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -37,6 +40,16 @@ public class KafkaConfigurationSupport {
         return buildProducerConfig(properties, this::addProducerSpecificConfig);
     }
 
+    /**
+     * Producer configuration for transactions; the transactional id itself comes from the factory's prefix.
+     */
+    public Map<String, Object> buildTransactionalProducerConfig(KafkaProperties properties) {
+        var config = new HashMap<>(buildProducerConfig(properties));
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        return config;
+    }
+
     public Map<String, Object> buildAdminConfig(KafkaProperties properties) {
         var config = new HashMap<String, Object>();
         addBootstrapConfig(config, properties);
@@ -75,13 +88,27 @@ public class KafkaConfigurationSupport {
             return false;
         }
         
+        try {
+            return topicExists(topic, properties);
+        } catch (Exception e) {
+            log.warn("Failed to validate topic '{}' existence: {}", topic, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether the topic exists, throwing a {@link KafkaException} when the cluster cannot be reached.
+     */
+    public boolean topicExists(String topic, KafkaProperties properties) {
         try (AdminClient adminClient = AdminClient.create(buildAdminConfig(properties))) {
             ListTopicsResult topicsResult = adminClient.listTopics();
             Set<String> topicNames = topicsResult.names().get(5, TimeUnit.SECONDS);
             return topicNames.contains(topic);
-        } catch (Exception e) {
-            log.warn("Failed to validate topic '{}' existence: {}", topic, e.getMessage());
-            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while listing topics", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Unable to list topics of " + properties.getBootstrapServers(), e);
         }
     }
 
@@ -125,6 +152,10 @@ public class KafkaConfigurationSupport {
         config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, consumer.isEnableAutoCommit());
         config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumer.getMaxPollRecords());
         config.put(ConsumerConfig.REQUEST_TIMEOUT_MS_CONFIG, consumer.getRequestTimeout());
+        if (properties.getTransactions().isEnabled()) {
+            // Records of aborted transactions are skipped, as for any consumer of the notifications topic
+            config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        }
 
         addTimeoutConfig(config, consumer);
     }
@@ -7,6 +7,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
@@ -36,22 +37,55 @@ public class ModernKafkaConfiguration {
     }
 
     @Bean
+    @Primary
     public ProducerFactory<String, Object> kafkaProducerFactory(KafkaProperties properties) {
         return new DefaultKafkaProducerFactory<>(configSupport.buildProducerConfig(properties));
     }
 
     @Bean
+    @Primary
     public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
         return new KafkaTemplate<>(producerFactory);
     }
 
+    /**
+     * Producers for the transactional mode; kept apart so REST publishes are not forced into transactions.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka.transactions", name = "enabled", havingValue = "true")
+    public ProducerFactory<String, Object> transactionalProducerFactory(KafkaProperties properties) {
+        var factory = new DefaultKafkaProducerFactory<String, Object>(
+                configSupport.buildTransactionalProducerConfig(properties));
+        factory.setTransactionIdPrefix(properties.getTransactions().getTransactionIdPrefix());
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka.transactions", name = "enabled", havingValue = "true")
+    public KafkaTemplate<String, Object> transactionalKafkaTemplate(KafkaProperties properties) {
+        return new KafkaTemplate<>(transactionalProducerFactory(properties));
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
-            ConsumerFactory<String, Object> consumerFactory) {
+            ConsumerFactory<String, Object> consumerFactory, KafkaProperties properties) {
         
         var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
         factory.setConsumerFactory(consumerFactory);
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        if (properties.getTransactions().isEnabled()) {
+            // Offsets are committed within the Kafka transactions of the TransactionalCommitter, which only then
+            // acknowledges the records; the container's commit of the same offsets trails them
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        } else if (properties.getCheckpoint().isEnabled()) {
+            // Processed offsets are kept in Mongo; Kafka commits are batched per poll and asynchronous
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+            factory.getContainerProperties().setSyncCommits(false);
+        } else {
+            factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        }
+        // Writes complete out of order; the container holds an ack back until every earlier offset is acked, so a
+        // commit never skips a record still being written, and pauses the consumer until its last poll is acked
+        factory.getContainerProperties().setAsyncAcks(true);
         
         return factory;
     }
@@ -27,6 +27,8 @@ public class KafkaEventConverter {
                 .offset(message.getOffset())
                 .timestamp(message.getTimestamp())
                 .headers(cleanHeaders)
+                .acknowledgment(message.getAcknowledgment())
+                .timings(message.getTimings())
                 .build();
 
         return MessageProcessedEvent.builder()
@@ -1,5 +1,7 @@
 package com.tiger.pocs.kafka.domain;
 
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
 import lombok.Builder;
 import lombok.Data;
 
@@ -17,4 +19,6 @@ public class KafkaMessage<T> {
     private long offset;
     private Instant timestamp;
     private Map<String, String> headers;
+    private MessageAcknowledgment acknowledgment;
+    private RecordTimings timings;
 }
\ No newline at end of file
@@ -2,9 +2,12 @@ package com.tiger.pocs.kafka.domain;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -18,6 +21,10 @@ public class KafkaProperties {
     private Producer producer = new Producer();
     private Consumer consumer = new Consumer();
     private Map<String, TopicConfig> topics = new HashMap<>();
+    private Checkpoint checkpoint = new Checkpoint();
+    private Outbox outbox = new Outbox();
+    private Transactions transactions = new Transactions();
+    private Admission admission = new Admission();
     
     @Data
     public static class Security {
@@ -49,6 +56,72 @@ public class KafkaProperties {
         private int requestTimeout;
     }
     
+    /**
+     * Mongo-backed offset checkpoints: processed offsets are stored in Mongo and sought on partition assignment,
+     * Kafka commits become asynchronous and advisory.
+     */
+    @Data
+    public static class Checkpoint {
+        private boolean enabled;
+        private String collection = "consumer_checkpoints";
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Local spill-to-disk buffer for records that cannot reach the cluster; they are replayed in order once it is
+     * reachable again.
+     */
+    @Data
+    public static class Outbox {
+        private boolean enabled;
+        private String directory = "data/journal/producer";
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+        private boolean forceOnAppend;
+        private int drainBatchSize = 500;
+        private int maxBatchesPerDrain = 10;
+        private Duration drainTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Transactional mode: consumed offsets and a notification per processed record are committed in batched Kafka
+     * transactions; records are only acknowledged to the container once committed. On revocation, records still in
+     * flight are awaited for up to {@code revokeTimeout} before the partitions are given up.
+     */
+    @Data
+    public static class Transactions {
+        private boolean enabled;
+        private String transactionIdPrefix = "pocs-ingestion-tx-";
+        private String notificationsTopic = "ingestion.processed";
+        private int batchSize = 1000;
+        private Duration revokeTimeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Admission control of {@code POST /kafka}: a global cap on requests in flight and token buckets per caller and,
+     * with {@code kafka.topics.*.rate-limit}, per topic. Rejections are answered with 429 before the body is read.
+     */
+    @Data
+    public static class Admission {
+        private boolean enabled;
+        private int maxConcurrent = 512;
+        private String callerHeader = "X-API-Key";
+        private RateLimit caller = new RateLimit();
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private int maxTrackedCallers = 10_000;
+        private List<String> trustedProxies = new ArrayList<>();
+    }
+
+    /**
+     * Token bucket refilled at {@code ratePerSecond} and holding up to {@code burst} tokens; a rate of 0 is unlimited.
+     */
+    @Data
+    public static class RateLimit {
+        private double ratePerSecond;
+        private int burst;
+    }
+
     @Data
     public static class Producer {
         private Security security = new Security();
@@ -59,5 +132,10 @@ public class KafkaProperties {
         private String name;
         private String groupId;
         private boolean autoSubscribe;
+        /**
+         * JSON pointer to the payload field used as record key when a publisher sets none, e.g. {@code /id}.
+         */
+        private String keyPointer;
+        private RateLimit rateLimit;
     }
 }
\ No newline at end of file
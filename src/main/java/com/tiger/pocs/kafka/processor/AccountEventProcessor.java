@@ -17,21 +17,21 @@ public class AccountEventProcessor {
     private final KafkaEventConverter kafkaEventConverter;
 
     public void processAccountMessage(KafkaMessage<String> message) {
-        log.info("🟪 [ACCOUNT PROCESSOR] Processing account message: key={}, topic={}", message.getKey(), message.getTopic());
+        log.debug("🟪 [ACCOUNT PROCESSOR] Processing account message: key={}, topic={}", message.getKey(), message.getTopic());
         try {
             handleAccountEvent(message);
-            log.info("🟪 [ACCOUNT PROCESSOR] Successfully processed account message");
+            log.debug("🟪 [ACCOUNT PROCESSOR] Successfully processed account message");
         } catch (Exception e) {
-            log.error("❌ [ACCOUNT PROCESSOR] Failed to process account message: {}", e.getMessage(), e);
+            log.debug("❌ [ACCOUNT PROCESSOR] Failed to process account message: {}", e.getMessage());
             throw e;
         }
     }
 
     private void handleAccountEvent(KafkaMessage<String> message) {
-        log.info("🟪 Processing account data ...");
+        log.debug("🟪 Processing account data ...");
         
         var event = kafkaEventConverter.convertToIngestionEvent(message, "AccountEventProcessor");
         eventPublisher.publishEvent(event);
-        log.info("🟪 Account data MessageProcessedEvent published successfully.");
+        log.debug("🟪 Account data MessageProcessedEvent published successfully.");
     }
 }
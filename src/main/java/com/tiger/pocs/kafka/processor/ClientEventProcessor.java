@@ -17,21 +17,21 @@ public class ClientEventProcessor {
     private final KafkaEventConverter kafkaEventConverter;
 
     public void processClientMessage(KafkaMessage<String> message) {
-        log.info("🟦 [CLIENT PROCESSOR] Processing client message: key={}, topic={}", message.getKey(), message.getTopic());
+        log.debug("🟦 [CLIENT PROCESSOR] Processing client message: key={}, topic={}", message.getKey(), message.getTopic());
         try {
             handleClientEvent(message);
-            log.info("🟦 [CLIENT PROCESSOR] Successfully processed client message");
+            log.debug("🟦 [CLIENT PROCESSOR] Successfully processed client message");
         } catch (Exception e) {
-            log.error("❌ [CLIENT PROCESSOR] Failed to process client message: {}", e.getMessage(), e);
+            log.debug("❌ [CLIENT PROCESSOR] Failed to process client message: {}", e.getMessage());
             throw e;
         }
     }
 
     private void handleClientEvent(KafkaMessage<String> message) {
-        log.info("🟦 Consuming client data ...");
+        log.debug("🟦 Consuming client data ...");
         
         var event = kafkaEventConverter.convertToIngestionEvent(message, "ClientEventProcessor");
         eventPublisher.publishEvent(event);
-        log.info("🟦 Client data MessageProcessedEvent published successfully.");
+        log.debug("🟦 Client data MessageProcessedEvent published successfully.");
     }
 }
\ No newline at end of file
@@ -17,22 +17,22 @@ public class LogOffsetEventProcessor {
     private final KafkaEventConverter kafkaEventConverter;
 
     public void processLogOffsetMessage(KafkaMessage<String> message) {
-        log.info("🟨 [LOG OFFSET PROCESSOR] Processing log offset message: key={}, topic={}", message.getKey(), message.getTopic());
+        log.debug("🟨 [LOG OFFSET PROCESSOR] Processing log offset message: key={}, topic={}", message.getKey(), message.getTopic());
 
         try {
             handleLogOffsetEvent(message);
-            log.info("🟨 [LOG OFFSET PROCESSOR] Successfully processed log offset message");
+            log.debug("🟨 [LOG OFFSET PROCESSOR] Successfully processed log offset message");
         } catch (Exception e) {
-            log.error("❌ [LOG OFFSET PROCESSOR] Failed to process log offset message: {}", e.getMessage(), e);
+            log.debug("❌ [LOG OFFSET PROCESSOR] Failed to process log offset message: {}", e.getMessage());
             throw e;
         }
     }
 
     private void handleLogOffsetEvent(KafkaMessage<String> message) {
-        log.info("🟨 Processing log offset data ...");
+        log.debug("🟨 Processing log offset data ...");
         
         var event = kafkaEventConverter.convertToIngestionEvent(message, "LogOffsetEventProcessor");
         eventPublisher.publishEvent(event);
-        log.info("🟨 Log offset data MessageProcessedEvent published successfully.");
+        log.debug("🟨 Log offset data MessageProcessedEvent published successfully.");
     }
 }
\ No newline at end of file
@@ -17,22 +17,22 @@ public class UserAccessEventProcessor {
     private final KafkaEventConverter kafkaEventConverter;
 
     public void processUserAccessMessage(KafkaMessage<String> message) {
-        log.info("🟧 [USER ACCESS PROCESSOR] Processing user access message: key={}, topic={}", message.getKey(), message.getTopic());
+        log.debug("🟧 [USER ACCESS PROCESSOR] Processing user access message: key={}, topic={}", message.getKey(), message.getTopic());
 
         try {
             handleUserAccessEvent(message);
-            log.info("🟧 [USER ACCESS PROCESSOR] Successfully processed user access message");
+            log.debug("🟧 [USER ACCESS PROCESSOR] Successfully processed user access message");
         } catch (Exception e) {
-            log.error("❌ [USER ACCESS PROCESSOR] Failed to process user access message: {}", e.getMessage(), e);
+            log.debug("❌ [USER ACCESS PROCESSOR] Failed to process user access message: {}", e.getMessage());
             throw e;
         }
     }
 
     private void handleUserAccessEvent(KafkaMessage<String> message) {
-        log.info("🟧 Processing user access data ...");
+        log.debug("🟧 Processing user access data ...");
         
         var event = kafkaEventConverter.convertToIngestionEvent(message, "UserAccessEventProcessor");
         eventPublisher.publishEvent(event);
-        log.info("🟧 User access data MessageProcessedEvent published successfully.");
+        log.debug("🟧 User access data MessageProcessedEvent published successfully.");
     }
 }
\ No newline at end of file
@@ -17,22 +17,22 @@ public class UserEventProcessor {
     private final KafkaEventConverter kafkaEventConverter;
 
     public void processUserMessage(KafkaMessage<String> message) {
-        log.info("🟩 [USER PROCESSOR] Processing user message: key={}, topic={}", message.getKey(), message.getTopic());
+        log.debug("🟩 [USER PROCESSOR] Processing user message: key={}, topic={}", message.getKey(), message.getTopic());
 
         try {
             handleUserEvent(message);
-            log.info("✅ [USER PROCESSOR] Successfully processed user message");
+            log.debug("✅ [USER PROCESSOR] Successfully processed user message");
         } catch (Exception e) {
-            log.error("❌ [USER PROCESSOR] Failed to process user message: {}", e.getMessage(), e);
+            log.debug("❌ [USER PROCESSOR] Failed to process user message: {}", e.getMessage());
             throw e;
         }
     }
 
     private void handleUserEvent(KafkaMessage<String> message) {
-        log.info("🟩 Processing user data ...");
+        log.debug("🟩 Processing user data ...");
         
         var event = kafkaEventConverter.convertToIngestionEvent(message, "UserEventProcessor");
         eventPublisher.publishEvent(event);
-        log.info("🟩 User data MessageProcessedEvent published successfully.");
+        log.debug("🟩 User data MessageProcessedEvent published successfully.");
     }
 }
\ No newline at end of file
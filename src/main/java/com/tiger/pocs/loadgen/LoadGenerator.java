@@ -0,0 +1,295 @@
+package com.tiger.pocs.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.kafka.KafkaProducer;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic traffic for capacity tests: publishes randomized {@code data-test.json} records through the
+ * {@link KafkaProducer} to the configured topics, at a target rate or as fast as the producer accepts them.
+ * One run at a time on its own thread. Producer latency is measured from the moment a record was due, so a
+ * producer that falls behind the target rate shows up in the percentiles instead of lowering the send rate.
+ */
+@Slf4j
+@Component
+public class LoadGenerator {
+
+    public enum State {
+        RUNNING, STOPPING, COMPLETED
+    }
+
+    private static final String TEMPLATES = "/data-test.json";
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_LABELS = {"p50", "p99", "p999"};
+
+    private final KafkaProducer kafkaProducer;
+    private final KafkaProperties kafkaProperties;
+    private final RecordTemplates templates;
+    private volatile Run run;
+
+    public LoadGenerator(KafkaProducer kafkaProducer, KafkaProperties kafkaProperties, ObjectMapper objectMapper) {
+        this.kafkaProducer = kafkaProducer;
+        this.kafkaProperties = kafkaProperties;
+        try (InputStream input = LoadGenerator.class.getResourceAsStream(TEMPLATES)) {
+            if (input == null) {
+                throw new IllegalStateException("Record templates " + TEMPLATES + " not found on the classpath");
+            }
+            this.templates = RecordTemplates.load(objectMapper, input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + TEMPLATES, e);
+        }
+    }
+
+    /**
+     * Starts publishing with the given profile.
+     *
+     * @throws IllegalStateException when a run is still in progress
+     * @throws IllegalArgumentException when the mix names a topic without a template or configuration, or one
+     *                                  that does not exist in the cluster
+     */
+    public synchronized Map<String, Object> start(LoadProfile profile) {
+        if (run != null && run.state != State.COMPLETED) {
+            throw new IllegalStateException("A load run is already in progress");
+        }
+
+        var started = new Run(profile, targets(profile));
+        run = started;
+        started.thread.start();
+        log.info("LOADGEN: Publishing for {} at {} records/s (0 = maximum) to {}",
+                profile.duration(), profile.rate(), started.targets.stream().map(Target::topicName).toList());
+        return started.report();
+    }
+
+    /**
+     * Stops publishing; the run completes once its outstanding sends were acknowledged or the drain timed out.
+     */
+    @PreDestroy
+    public Map<String, Object> stop() {
+        var current = run;
+        if (current == null) return report();
+
+        current.stopRequested = true;
+        return current.report();
+    }
+
+    public Map<String, Object> report() {
+        var current = run;
+        return current != null ? current.report() : Map.of("state", "NONE");
+    }
+
+    boolean awaitTermination(Duration timeout) {
+        var current = run;
+        return current == null || current.awaitTermination(timeout);
+    }
+
+    private List<Target> targets(LoadProfile profile) {
+        Map<String, Integer> weights = profile.mix().isEmpty()
+                ? templates.topics().stream().filter(kafkaProperties.getTopics()::containsKey)
+                        .collect(LinkedHashMap::new, (mix, topic) -> mix.put(topic, 1), Map::putAll)
+                : profile.mix();
+
+        List<Target> targets = new ArrayList<>();
+        int cumulativeWeight = 0;
+        for (var entry : weights.entrySet()) {
+            if (entry.getValue() == 0) continue;
+
+            String topicKey = entry.getKey();
+            var topicConfig = kafkaProperties.getTopics().get(topicKey);
+            if (!templates.topics().contains(topicKey) || topicConfig == null || topicConfig.getName() == null) {
+                throw new IllegalArgumentException("Unknown topic '" + topicKey + "', expected one of "
+                        + templates.topics());
+            }
+            if (!kafkaProducer.validateTopicExists(topicConfig.getName())) {
+                throw new IllegalArgumentException("Topic '" + topicConfig.getName() + "' does not exist");
+            }
+            cumulativeWeight += entry.getValue();
+            targets.add(new Target(topicKey, topicConfig.getName(), cumulativeWeight));
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("No topic to publish to");
+        }
+        return List.copyOf(targets);
+    }
+
+    /**
+     * A topic of the mix; it is picked when a uniform draw below the total weight is below its cumulative weight.
+     */
+    private record Target(String topicKey, String topicName, int cumulativeWeight) {
+    }
+
+    private final class Run implements Runnable {
+
+        private final LoadProfile profile;
+        private final List<Target> targets;
+        private final int totalWeight;
+        private final Thread thread;
+        private final Semaphore inFlight;
+        private final Timer latency;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Map<String, LongAdder> sentByTopic = new ConcurrentHashMap<>();
+        private final Instant startedAt;
+        private final long startNanos;
+        private volatile long endNanos;
+        private volatile boolean stopRequested;
+        private volatile State state = State.RUNNING;
+        private volatile Map<String, Object> finalReport;
+
+        Run(LoadProfile profile, List<Target> targets) {
+            this.profile = profile;
+            this.targets = targets;
+            this.totalWeight = targets.get(targets.size() - 1).cumulativeWeight();
+            this.inFlight = new Semaphore(profile.maxInFlight());
+            // A registry of its own, so each run reports its own percentiles over its whole duration
+            this.latency = Timer.builder("loadgen.send.latency")
+                    .publishPercentiles(PERCENTILES)
+                    .distributionStatisticExpiry(profile.duration().plus(DRAIN_TIMEOUT))
+                    .distributionStatisticBufferLength(1)
+                    .register(new SimpleMeterRegistry());
+            this.thread = new Thread(this, "load-generator");
+            this.thread.setDaemon(true);
+            this.startedAt = Instant.now();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            long intervalNanos = profile.isUnthrottled() ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / profile.rate());
+            long deadline = startNanos + profile.duration().toNanos();
+            long due = startNanos;
+            try {
+                while (!stopRequested && System.nanoTime() < deadline) {
+                    if (intervalNanos > 0) {
+                        long wait = due - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                            continue;
+                        }
+                    } else {
+                        due = System.nanoTime();
+                    }
+
+                    // Bounded, so a stop request is noticed even while every permit is taken
+                    if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) continue;
+
+                    publish(pick(), due);
+                    due += intervalNanos;
+                }
+                state = State.STOPPING;
+                if (!inFlight.tryAcquire(profile.maxInFlight(), DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    log.warn("LOADGEN: {} sends still outstanding after {}",
+                            profile.maxInFlight() - inFlight.availablePermits(), DRAIN_TIMEOUT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                endNanos = System.nanoTime();
+                state = State.COMPLETED;
+                // Kept, as the timer's window would otherwise expire while the report is still being read
+                finalReport = report();
+                log.info("LOADGEN: Finished - {}", finalReport);
+            }
+        }
+
+        private Target pick() {
+            if (targets.size() == 1) return targets.get(0);
+
+            int draw = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (Target target : targets) {
+                if (draw < target.cumulativeWeight()) return target;
+            }
+            return targets.get(targets.size() - 1);
+        }
+
+        private void publish(Target target, long dueNanos) {
+            var record = templates.generate(target.topicKey(), profile.keyCardinality());
+            sent.increment();
+            sentByTopic.computeIfAbsent(target.topicKey(), ignored -> new LongAdder()).increment();
+            try {
+                kafkaProducer.send(target.topicName(), record.key(), record.payload())
+                        .whenComplete((result, exception) -> {
+                            if (exception == null) {
+                                latency.record(System.nanoTime() - dueNanos, TimeUnit.NANOSECONDS);
+                                acknowledged.increment();
+                            } else {
+                                failed.increment();
+                            }
+                            inFlight.release();
+                        });
+            } catch (RuntimeException e) {
+                failed.increment();
+                inFlight.release();
+            }
+        }
+
+        boolean awaitTermination(Duration timeout) {
+            try {
+                thread.join(timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return state == State.COMPLETED;
+        }
+
+        Map<String, Object> report() {
+            if (finalReport != null) return finalReport;
+
+            long end = state == State.COMPLETED ? endNanos : System.nanoTime();
+            double elapsedSeconds = Math.max(end - startNanos, 1) / 1e9;
+
+            var report = new LinkedHashMap<String, Object>();
+            report.put("state", state.name());
+            report.put("startedAt", startedAt);
+            report.put("elapsedSeconds", elapsedSeconds);
+            report.put("targetRate", profile.isUnthrottled() ? "max" : profile.rate());
+            report.put("achievedRate", acknowledged.sum() / elapsedSeconds);
+            report.put("sent", sent.sum());
+            report.put("acknowledged", acknowledged.sum());
+            report.put("failed", failed.sum());
+            var byTopic = new TreeMap<String, Long>();
+            sentByTopic.forEach((topic, count) -> byTopic.put(topic, count.sum()));
+            report.put("sentByTopic", byTopic);
+            report.put("latencyMs", latencyMillis());
+            return report;
+        }
+
+        private Map<String, Double> latencyMillis() {
+            var snapshot = latency.takeSnapshot();
+            var values = new LinkedHashMap<String, Double>();
+            if (snapshot.count() == 0) return values;
+
+            values.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+            ValueAtPercentile[] percentiles = snapshot.percentileValues();
+            for (int i = 0; i < percentiles.length && i < PERCENTILE_LABELS.length; i++) {
+                values.put(PERCENTILE_LABELS[i], percentiles[i].value(TimeUnit.MILLISECONDS));
+            }
+            values.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+            return values;
+        }
+    }
+}
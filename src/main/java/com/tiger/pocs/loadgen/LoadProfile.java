@@ -0,0 +1,47 @@
+package com.tiger.pocs.loadgen;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Shape of a load run. Missing values take the defaults below.
+ *
+ * @param rate           records per second over all topics; {@code 0} publishes as fast as the producer accepts
+ * @param duration       how long to publish before draining outstanding sends
+ * @param keyCardinality number of distinct ids, and so record keys, per topic
+ * @param mix            relative weight per configured topic key, e.g. {@code {"clientsTopic": 3, "usersTopic": 1}};
+ *                       all topics with a template are weighted equally when empty
+ * @param maxInFlight    sends awaiting their acknowledgment before the generator waits
+ */
+public record LoadProfile(Double rate, Duration duration, Integer keyCardinality, Map<String, Integer> mix,
+                          Integer maxInFlight) {
+
+    public static final double DEFAULT_RATE = 1000;
+    public static final Duration DEFAULT_DURATION = Duration.ofMinutes(1);
+    public static final int DEFAULT_KEY_CARDINALITY = 1000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+
+    public LoadProfile {
+        if (mix != null && mix.values().stream().anyMatch(weight -> weight == null || weight < 0)) {
+            throw new IllegalArgumentException("Topic weights must be at least 0: " + mix);
+        }
+        rate = rate != null ? rate : DEFAULT_RATE;
+        duration = duration != null ? duration : DEFAULT_DURATION;
+        keyCardinality = keyCardinality != null ? keyCardinality : DEFAULT_KEY_CARDINALITY;
+        mix = mix != null ? Map.copyOf(mix) : Map.of();
+        maxInFlight = maxInFlight != null ? maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+
+        if (rate < 0 || duration.isNegative() || duration.isZero() || keyCardinality < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Rate must be at least 0, duration positive, key cardinality and "
+                    + "max in-flight at least 1");
+        }
+    }
+
+    public static LoadProfile defaults() {
+        return new LoadProfile(null, null, null, null, null);
+    }
+
+    public boolean isUnthrottled() {
+        return rate == 0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.tiger.pocs.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record shapes of {@code data-test.json}, one list per topic, turned into randomized variants: the id is drawn
+ * from the key cardinality and becomes the record key, versions only increase so version-guarded writes apply,
+ * timestamps are now and IP addresses random.
+ */
+public class RecordTemplates {
+
+    /**
+     * Arrays of {@code data-test.json} and the configured topic their records are published to.
+     */
+    static final Map<String, String> TOPICS_BY_SECTION = Map.of(
+            "clients", "clientsTopic",
+            "accounts", "accountsTopic",
+            "users", "usersTopic",
+            "userAccess", "userAccessTopic",
+            "logOffsets", "logOffsetTopic");
+
+    private static final String ID_FIELD = "id";
+    private static final String VERSION_FIELD = "version";
+    private static final String IP_ADDRESS_FIELD = "ipAddress";
+
+    private final Map<String, List<Template>> templatesByTopic;
+    // Seeded with the clock so a second run still supersedes the versions written by the first
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    private RecordTemplates(Map<String, List<Template>> templatesByTopic) {
+        this.templatesByTopic = templatesByTopic;
+    }
+
+    public static RecordTemplates load(ObjectMapper objectMapper, InputStream input) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read record templates", e);
+        }
+
+        Map<String, List<Template>> templatesByTopic = new LinkedHashMap<>();
+        TOPICS_BY_SECTION.forEach((section, topic) -> {
+            List<Template> templates = new ArrayList<>();
+            root.path(section).forEach(record -> {
+                if (record instanceof ObjectNode object) {
+                    templates.add(Template.of(object));
+                }
+            });
+            if (!templates.isEmpty()) {
+                templatesByTopic.put(topic, List.copyOf(templates));
+            }
+        });
+        return new RecordTemplates(templatesByTopic);
+    }
+
+    /**
+     * Configured topic keys that have at least one template.
+     */
+    public Set<String> topics() {
+        return templatesByTopic.keySet();
+    }
+
+    public GeneratedRecord generate(String topic, int keyCardinality) {
+        var templates = templatesByTopic.get(topic);
+        if (templates == null) {
+            throw new IllegalArgumentException("No record template for topic " + topic);
+        }
+
+        var random = ThreadLocalRandom.current();
+        var template = templates.get(random.nextInt(templates.size()));
+        var payload = template.record().deepCopy();
+
+        String key = null;
+        JsonNode id = payload.get(ID_FIELD);
+        if (id != null) {
+            int n = random.nextInt(keyCardinality) + 1;
+            if (id.isNumber()) {
+                payload.put(ID_FIELD, n);
+                key = Integer.toString(n);
+            } else {
+                key = "%s-%03d".formatted(template.idPrefix(), n);
+                payload.put(ID_FIELD, key);
+            }
+        }
+        if (payload.has(VERSION_FIELD)) {
+            payload.put(VERSION_FIELD, versions.incrementAndGet());
+        }
+        if (!template.instantFields().isEmpty()) {
+            String now = Instant.now().toString();
+            template.instantFields().forEach(field -> payload.put(field, now));
+        }
+        if (payload.has(IP_ADDRESS_FIELD)) {
+            payload.put(IP_ADDRESS_FIELD, "10.%d.%d.%d".formatted(random.nextInt(256), random.nextInt(256),
+                    random.nextInt(1, 255)));
+        }
+        return new GeneratedRecord(key, payload);
+    }
+
+    public record GeneratedRecord(String key, ObjectNode payload) {
+    }
+
+    /**
+     * A template with what was learned about it at load time, so generating a variant does not parse anything.
+     */
+    private record Template(ObjectNode record, String idPrefix, Set<String> instantFields) {
+
+        static Template of(ObjectNode record) {
+            String id = record.path(ID_FIELD).asText("");
+            int separator = id.lastIndexOf('-');
+            String idPrefix = separator > 0 ? id.substring(0, separator) : id.isEmpty() ? "ID" : id;
+
+            Set<String> instantFields = new HashSet<>();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = record.fields(); fields.hasNext(); ) {
+                var field = fields.next();
+                if (field.getValue().isTextual() && isInstant(field.getValue().asText())) {
+                    instantFields.add(field.getKey());
+                }
+            }
+            return new Template(record, idPrefix, Set.copyOf(instantFields));
+        }
+
+        private static boolean isInstant(String value) {
+            try {
+                Instant.parse(value);
+                return true;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.tiger.pocs.admin;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.service.LatencyTracker;
+import com.tiger.pocs.ingestion.service.PipelineLogger;
+import com.tiger.pocs.jfr.FlightRecorderService;
+import com.tiger.pocs.kafka.AdmissionFilter;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import com.tiger.pocs.loadgen.LoadGenerator;
+import com.tiger.pocs.loadgen.LoadProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    @Mock
+    private LatencyTracker latencyTracker;
+
+    @Mock
+    private FlightRecorderService flightRecorderService;
+
+    @Mock
+    private LoadGenerator loadGenerator;
+
+    private final PipelineLogger pipelineLogger = new PipelineLogger(new IngestionProperties());
+    private final AdmissionFilter admissionFilter = new AdmissionFilter(new KafkaProperties(), new SimpleMeterRegistry());
+    private AdminController adminController;
+
+    @BeforeEach
+    void setUp() {
+        adminController = new AdminController(latencyTracker, flightRecorderService, pipelineLogger, loadGenerator,
+                admissionFilter);
+    }
+
+    @Test
+    void shouldReturnLatencySnapshot() {
+        var snapshot = Map.of("clientsTopic", Map.of("service", Map.of("count", 3.0, "p99", 12.5)));
+        when(latencyTracker.snapshot()).thenReturn(snapshot);
+
+        var response = adminController.getLatency();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(snapshot, response.getBody());
+    }
+
+    @Test
+    void shouldChangeAdmissionLimitsAtRuntime() {
+        adminController.setAdmissionMaxConcurrent(8);
+        adminController.setAdmissionCallerLimit(50, 100);
+        var response = adminController.setAdmissionTopicLimit("clientsTopic", 10, 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(8, response.getBody().get("maxConcurrent"));
+        assertEquals(Map.of("ratePerSecond", 50.0, "burst", 100), response.getBody().get("caller"));
+        assertEquals(Map.of("clientsTopic", Map.of("ratePerSecond", 10.0, "burst", 20)), response.getBody().get("topics"));
+
+        assertEquals(Map.of(), adminController.clearAdmissionTopicLimit("clientsTopic").getBody().get("topics"));
+    }
+
+    @Test
+    void shouldRejectInvalidAdmissionLimits() {
+        assertEquals(HttpStatus.BAD_REQUEST, adminController.setAdmissionMaxConcurrent(0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, adminController.setAdmissionCallerLimit(10, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, adminController.setAdmissionTopicLimit("clientsTopic", 0, 1).getStatusCode());
+        assertEquals(HttpStatus.OK, adminController.setAdmissionCallerLimit(0, 0).getStatusCode());
+    }
+
+    @Test
+    void shouldOverrideAndClearTopicLogSampleRate() {
+        var response = adminController.setTopicLogSampleRate("clientsTopic", 1.0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1.0, response.getBody().get("clientsTopic"));
+        assertEquals(1.0, pipelineLogger.sampleRate("clientsTopic"));
+
+        var cleared = adminController.clearTopicLogSampleRate("clientsTopic");
+
+        assertFalse(cleared.getBody().containsKey("clientsTopic"));
+        assertEquals(pipelineLogger.sampleRate(null), pipelineLogger.sampleRate("clientsTopic"));
+    }
+
+    @Test
+    void shouldChangeDefaultLogSampleRate() {
+        var response = adminController.setDefaultLogSampleRate(0.25);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0.25, adminController.getLogSampleRates().getBody().get("default"));
+    }
+
+    @Test
+    void shouldRejectSampleRateOutsideZeroToOne() {
+        assertEquals(HttpStatus.BAD_REQUEST, adminController.setTopicLogSampleRate("clientsTopic", 1.5).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, adminController.setDefaultLogSampleRate(-0.1).getStatusCode());
+        assertFalse(adminController.getLogSampleRates().getBody().containsKey("clientsTopic"));
+    }
+
+    @Test
+    void shouldStartLoadWithDefaultsWithoutBody() {
+        Map<String, Object> report = Map.of("state", "RUNNING");
+        when(loadGenerator.start(LoadProfile.defaults())).thenReturn(report);
+
+        var response = adminController.startLoad(null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(report, response.getBody());
+    }
+
+    @Test
+    void shouldReturnConflictWhenLoadAlreadyRunning() {
+        when(loadGenerator.start(any())).thenThrow(new IllegalStateException("A load run is already in progress"));
+
+        var response = adminController.startLoad(LoadProfile.defaults());
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnknownLoadTopic() {
+        when(loadGenerator.start(any())).thenThrow(new IllegalArgumentException("Unknown topic 'ordersTopic'"));
+
+        var response = adminController.startLoad(new LoadProfile(null, null, null, Map.of("ordersTopic", 1), null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Unknown topic 'ordersTopic'", response.getBody().get("error"));
+    }
+
+    @Test
+    void shouldReportAndStopLoad() {
+        when(loadGenerator.report()).thenReturn(Map.of("state", "RUNNING", "sent", 10L));
+        when(loadGenerator.stop()).thenReturn(Map.of("state", "STOPPING"));
+
+        assertEquals(10L, adminController.getLoad().getBody().get("sent"));
+        assertEquals("STOPPING", adminController.stopLoad().getBody().get("state"));
+    }
+
+    @Test
+    void shouldStartRecording() {
+        Map<String, Object> status = Map.of("state", "RUNNING");
+        when(flightRecorderService.start("profile", Duration.ofMinutes(5))).thenReturn(status);
+
+        var response = adminController.startRecording("profile", Duration.ofMinutes(5));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(status, response.getBody());
+    }
+
+    @Test
+    void shouldReturnConflictWhenRecordingAlreadyRunning() {
+        when(flightRecorderService.start(any(), any())).thenThrow(new IllegalStateException("already running"));
+
+        var response = adminController.startRecording("default", Duration.ofMinutes(10));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("already running", response.getBody().get("error"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnknownSettings() {
+        when(flightRecorderService.start(any(), any())).thenThrow(new IllegalArgumentException("Unknown JFR settings"));
+
+        var response = adminController.startRecording("verbose", Duration.ofMinutes(10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void shouldReturnDumpedRecordingAsAttachment() {
+        when(flightRecorderService.dump()).thenReturn(Path.of("data/jfr/pocs-admin-20260101-120000.jfr"));
+
+        var response = adminController.dumpRecording();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+        assertTrue(response.getHeaders().getContentDisposition().toString().contains("pocs-admin-20260101-120000.jfr"));
+    }
+
+    @Test
+    void shouldReturnConflictWhenDumpingWithoutRecording() {
+        when(flightRecorderService.dump()).thenThrow(new IllegalStateException("No recording is running"));
+
+        var response = adminController.dumpRecording();
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void shouldStopRecording() {
+        when(flightRecorderService.status()).thenReturn(Map.of("state", "NONE"));
+
+        var response = adminController.stopRecording();
+
+        verify(flightRecorderService).stop();
+        assertEquals("NONE", response.getBody().get("state"));
+    }
+}
@@ -0,0 +1,32 @@
+package com.tiger.pocs.ingestion.config;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.WriteConcernResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IngestionConfigurationTest {
+
+    private final IngestionConfiguration configuration = new IngestionConfiguration();
+
+    @Test
+    void shouldBuildTemplateResolvingWriteConcernPerCollection() {
+        var properties = new IngestionProperties();
+        var durabilityPolicy = configuration.durabilityPolicy(properties);
+
+        var template = configuration.reactiveMongoTemplate(
+                new SimpleReactiveMongoDatabaseFactory(mock(MongoClient.class), "ingestion"),
+                new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()), durabilityPolicy);
+
+        var resolver = (WriteConcernResolver) ReflectionTestUtils.getField(template, "writeConcernResolver");
+        assertSame(durabilityPolicy, resolver);
+    }
+}
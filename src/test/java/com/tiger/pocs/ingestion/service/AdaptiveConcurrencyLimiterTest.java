@@ -0,0 +1,178 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private IngestionProperties.Concurrency settings;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        settings = new IngestionProperties.Concurrency();
+        settings.setInitialLimit(4);
+        settings.setMinLimit(2);
+        settings.setMaxLimit(6);
+        settings.setLatencyThreshold(Duration.ofMillis(100));
+        settings.setBackoffRatio(0.5);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldRejectWhenLimitIsReachedAndTimeoutExpires() {
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        StepVerifier.create(limiter.acquire(Duration.ofMillis(10))).verifyError(RejectedExecutionException.class);
+
+        assertEquals(4, limiter.inFlight());
+        assertEquals(1.0, meterRegistry.get("ingestion.persistence.concurrency.rejected").counter().count());
+    }
+
+    @Test
+    void shouldRunWaitingOperationOnceSlotIsReleased() {
+        settings.setAcquireTimeout(Duration.ofSeconds(5));
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+        for (int i = 0; i < 4; i++) limiter.tryAcquire();
+
+        StepVerifier.create(limiter.limit(Mono.just("ok")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(20))
+                .then(() -> limiter.release(FAST, true))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(3, limiter.inFlight());
+    }
+
+    @Test
+    void shouldHandReleasedSlotsToWaitersInArrivalOrder() {
+        settings.setMaxLimit(4);
+        settings.setAcquireTimeout(Duration.ofSeconds(5));
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+        for (int i = 0; i < 4; i++) limiter.tryAcquire();
+
+        List<String> started = new ArrayList<>();
+        limiter.limit(Mono.fromRunnable(() -> started.add("first")).then(Mono.never())).subscribe();
+        limiter.limit(Mono.fromRunnable(() -> started.add("second")).then(Mono.never())).subscribe();
+        assertTrue(started.isEmpty());
+
+        limiter.release(FAST, true);
+        assertEquals(List.of("first"), started);
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(FAST, true);
+        assertEquals(List.of("first", "second"), started);
+        assertEquals(4, limiter.inFlight());
+    }
+
+    @Test
+    void shouldNotHandSlotToCancelledWaiter() {
+        settings.setMaxLimit(4);
+        settings.setAcquireTimeout(Duration.ofSeconds(5));
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+        for (int i = 0; i < 4; i++) limiter.tryAcquire();
+
+        limiter.limit(Mono.just("cancelled")).subscribe().dispose();
+        limiter.release(FAST, true);
+
+        assertEquals(3, limiter.inFlight());
+        assertEquals(0.0, meterRegistry.get("ingestion.persistence.concurrency.rejected").counter().count());
+    }
+
+    @Test
+    void shouldNotBackOffOnOutcomesTheCallerHandled() {
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+
+        StepVerifier.create(limiter.limit(Mono.just("stale"), "failed"::equals)).expectNext("stale").verifyComplete();
+        assertEquals(4, limiter.currentLimit());
+
+        StepVerifier.create(limiter.limit(Mono.just("failed"), "failed"::equals)).expectNext("failed").verifyComplete();
+        assertEquals(2, limiter.currentLimit());
+    }
+
+    @Test
+    void shouldIncreaseLimitWhileSaturatedAndFast() {
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+
+        for (int i = 0; i < 4; i++) limiter.tryAcquire();
+        limiter.release(FAST, true);
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+
+        assertEquals(6, limiter.currentLimit());
+        assertEquals(6.0, meterRegistry.get("ingestion.persistence.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void shouldNotIncreaseLimitWhenMostlyIdle() {
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+
+        assertEquals(4, limiter.currentLimit());
+    }
+
+    @Test
+    void shouldBackOffOnSlowOrFailedWritesDownToMinimum() {
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, true);
+        assertEquals(2, limiter.currentLimit());
+
+        limiter.tryAcquire();
+        limiter.release(FAST, false);
+        assertEquals(2, limiter.currentLimit());
+    }
+
+    @Test
+    void shouldReleaseSlotWhenOperationTerminates() {
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+
+        StepVerifier.create(limiter.limit(Mono.just("ok"))).expectNext("ok").verifyComplete();
+        StepVerifier.create(limiter.limit(Mono.error(new IllegalStateException("boom"))))
+                .verifyError(IllegalStateException.class);
+
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void shouldFailOperationWhenNoSlotBecomesAvailable() {
+        settings.setAcquireTimeout(Duration.ofMillis(10));
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+        for (int i = 0; i < 4; i++) limiter.tryAcquire();
+
+        StepVerifier.create(limiter.limit(Mono.just("ok"))).verifyError(RejectedExecutionException.class);
+    }
+
+    @Test
+    void shouldPassThroughWhenDisabled() {
+        settings.setEnabled(false);
+        settings.setAcquireTimeout(Duration.ZERO);
+        var limiter = new AdaptiveConcurrencyLimiter(settings, meterRegistry);
+        for (int i = 0; i < 4; i++) limiter.tryAcquire();
+
+        StepVerifier.create(limiter.limit(Mono.just("ok"))).expectNext("ok").verifyComplete();
+    }
+}
@@ -0,0 +1,123 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkWriteBufferTest {
+
+    private final List<List<WriteModel<Document>>> writes = new ArrayList<>();
+    private IngestionProperties.CollectionSettings settings;
+    private VirtualTimeScheduler scheduler;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        settings = new IngestionProperties.CollectionSettings();
+        settings.setMaxDocuments(3);
+        settings.setMaxBytes(DataSize.ofBytes(1_000));
+        settings.setMaxLatency(Duration.ofMillis(100));
+        scheduler = VirtualTimeScheduler.create();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldFlushWhenDocumentLimitIsReached() {
+        var buffer = buffer(models -> Mono.just(BulkWriteOutcome.success()));
+
+        buffer.add(model(1), 10);
+        buffer.add(model(2), 10);
+        assertTrue(writes.isEmpty());
+        buffer.add(model(3), 10);
+
+        assertEquals(1, writes.size());
+        assertEquals(3, writes.get(0).size());
+        assertEquals(0, buffer.pendingCount());
+        assertEquals(1, meterRegistry.get("ingestion.bulk.flush.size").tag("trigger", "documents").summary().count());
+    }
+
+    @Test
+    void shouldFlushWhenByteLimitIsReached() {
+        var buffer = buffer(models -> Mono.just(BulkWriteOutcome.success()));
+
+        buffer.add(model(1), 600);
+        buffer.add(model(2), 600);
+
+        assertEquals(1, writes.size());
+        assertEquals(1, meterRegistry.get("ingestion.bulk.flush.size").tag("trigger", "bytes").summary().count());
+    }
+
+    @Test
+    void shouldFlushWhenLatencyElapses() {
+        var buffer = buffer(models -> Mono.just(BulkWriteOutcome.success()));
+        var completion = buffer.add(model(1), 10);
+
+        scheduler.advanceTimeBy(Duration.ofMillis(99));
+        assertTrue(writes.isEmpty());
+        scheduler.advanceTimeBy(Duration.ofMillis(1));
+
+        assertEquals(1, writes.size());
+        StepVerifier.create(completion).verifyComplete();
+        assertEquals(1, meterRegistry.get("ingestion.bulk.flush.latency").timer().count());
+    }
+
+    @Test
+    void shouldSignalPerDocumentFailuresFromBulkOutcome() {
+        var buffer = buffer(models -> Mono.just(new BulkWriteOutcome(Map.of(1, new IllegalStateException("duplicate")), 0, Integer.MAX_VALUE)));
+
+        var first = buffer.add(model(1), 10);
+        var second = buffer.add(model(2), 10);
+        var third = buffer.add(model(3), 10);
+
+        StepVerifier.create(first).verifyComplete();
+        StepVerifier.create(second).expectErrorMessage("duplicate").verify();
+        StepVerifier.create(third).verifyComplete();
+    }
+
+    @Test
+    void shouldFailEveryDocumentWhenBulkWriteFails() {
+        var buffer = buffer(models -> Mono.error(new RuntimeException("Mongo unavailable")));
+
+        var first = buffer.add(model(1), 10);
+        buffer.flush("shutdown");
+
+        StepVerifier.create(first).expectErrorMessage("Mongo unavailable").verify();
+    }
+
+    private BulkWriteBuffer buffer(java.util.function.Function<List<WriteModel<Document>>, Mono<BulkWriteOutcome>> writer) {
+        return new BulkWriteBuffer("clients", settings, models -> {
+            writes.add(models);
+            return writer.apply(models);
+        }, scheduler, meterRegistry);
+    }
+
+    private static WriteModel<Document> model(int id) {
+        return new InsertOneModel<>(new Document("_id", id));
+    }
+
+    @Test
+    void shouldCompleteStaleDocumentsAndCountThem() {
+        var buffer = buffer(models -> Mono.just(new BulkWriteOutcome(Map.of(), 2, Integer.MAX_VALUE)));
+
+        var first = buffer.add(model(1), 10);
+        buffer.flush("shutdown");
+
+        StepVerifier.create(first).verifyComplete();
+        assertEquals(2.0, meterRegistry.get("ingestion.persistence.stale.skipped").counter().count());
+    }
+}
@@ -0,0 +1,167 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.reactivestreams.client.ListCollectionsPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CollectionInitializerTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MongoDatabase mongoDatabase;
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+    private IngestionProperties properties;
+    private CollectionInitializer collectionInitializer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        var logOffsets = properties.getPersistence().settingsFor("log_offsets");
+        logOffsets.setStorage(IngestionProperties.Storage.TIME_SERIES);
+        logOffsets.getTimeSeries().setTimeField("timestamp");
+        logOffsets.getTimeSeries().setMetaFields(List.of("topic", "partition", "consumerGroup"));
+        logOffsets.getTimeSeries().setGranularity(TimeSeriesGranularity.MINUTES);
+        logOffsets.getTimeSeries().setExpireAfter(Duration.ofDays(7));
+        collectionInitializer = new CollectionInitializer(mongoTemplate, properties);
+    }
+
+    @Test
+    void shouldCreateCollectionOnceWithTimeSeriesOptions() {
+        when(mongoTemplate.getMongoDatabase()).thenReturn(Mono.just(mongoDatabase));
+        when(mongoDatabase.createCollection(eq("log_offsets"), any(CreateCollectionOptions.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(collectionInitializer.ensureInitialized("log_offsets")).verifyComplete();
+        StepVerifier.create(collectionInitializer.ensureInitialized("log_offsets")).verifyComplete();
+
+        ArgumentCaptor<CreateCollectionOptions> options = ArgumentCaptor.forClass(CreateCollectionOptions.class);
+        verify(mongoDatabase, times(1)).createCollection(eq("log_offsets"), options.capture());
+        var timeSeries = options.getValue().getTimeSeriesOptions();
+        assertEquals("timestamp", timeSeries.getTimeField());
+        assertEquals("meta", timeSeries.getMetaField());
+        assertEquals(TimeSeriesGranularity.MINUTES, timeSeries.getGranularity());
+        assertEquals(7, options.getValue().getExpireAfter(TimeUnit.DAYS));
+    }
+
+    @Test
+    void shouldTolerateExistingTimeSeriesCollection() {
+        existingCollectionOfType("timeseries");
+
+        StepVerifier.create(collectionInitializer.ensureInitialized("log_offsets")).verifyComplete();
+    }
+
+    @Test
+    void shouldRefuseExistingDocumentCollectionConfiguredAsTimeSeries() {
+        existingCollectionOfType("collection");
+
+        StepVerifier.create(collectionInitializer.ensureInitialized("log_offsets"))
+                .verifyErrorMessage("Collection 'log_offsets' already exists as a collection collection but is "
+                        + "configured with TIME_SERIES storage; migrate it or set its storage to DOCUMENT");
+        // Not marked as initialized, so the next write checks again
+        StepVerifier.create(collectionInitializer.ensureInitialized("log_offsets")).expectError().verify();
+    }
+
+    @Test
+    void shouldIndexKafkaCoordinatesOfOffsetGuardedCollections() {
+        properties.getPersistence().settingsFor("clients").setWriteMode(IngestionProperties.WriteMode.OFFSET_GUARDED);
+        when(mongoTemplate.getCollection("clients")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.createIndex(any(Bson.class), any(IndexOptions.class))).thenReturn(Mono.just("kafka_coordinates"));
+
+        StepVerifier.create(collectionInitializer.ensureInitialized("clients")).verifyComplete();
+
+        ArgumentCaptor<Bson> keys = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<IndexOptions> options = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(mongoCollection).createIndex(keys.capture(), options.capture());
+        assertEquals(BsonDocument.parse("{'_kafka.topic': 1, '_kafka.partition': 1, '_kafka.offset': -1}"),
+                keys.getValue().toBsonDocument());
+        assertEquals("kafka_coordinates", options.getValue().getName());
+    }
+
+    @Test
+    void shouldSkipDocumentCollections() {
+        StepVerifier.create(collectionInitializer.ensureInitialized("clients")).verifyComplete();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldMoveMetaFieldsAndStampMissingTime() {
+        var document = new Document("_id", "OFFSET-001")
+                .append("topic", "clients")
+                .append("partition", 0)
+                .append("offset", 12345L)
+                .append("status", "PROCESSED");
+
+        var measurement = CollectionInitializer.toMeasurement(document,
+                properties.getPersistence().settingsFor("log_offsets").getTimeSeries());
+
+        assertEquals(new Document("topic", "clients").append("partition", 0), measurement.get("meta"));
+        assertEquals(12345L, measurement.get("offset"));
+        assertInstanceOf(Date.class, measurement.get("timestamp"));
+    }
+
+    @Test
+    void shouldRejectTimeStringsThatAreNotIsoInstants() {
+        var document = new Document("topic", "clients").append("timestamp", "20/10/2024 10:30");
+
+        var error = assertThrows(PayloadConversionException.class, () -> CollectionInitializer.toMeasurement(document,
+                properties.getPersistence().settingsFor("log_offsets").getTimeSeries()));
+        assertTrue(error.getMessage().startsWith("Time field 'timestamp' is not an ISO-8601 instant"));
+    }
+
+    @Test
+    void shouldTurnIsoTimeStringsOfPassThroughDocumentsIntoDates() {
+        var document = new Document("topic", "clients").append("timestamp", "2024-10-20T10:30:00Z");
+
+        var measurement = CollectionInitializer.toMeasurement(document,
+                properties.getPersistence().settingsFor("log_offsets").getTimeSeries());
+
+        assertEquals(Date.from(Instant.parse("2024-10-20T10:30:00Z")), measurement.get("timestamp"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void existingCollectionOfType(String type) {
+        var namespaceExists = new MongoCommandException(new BsonDocument("code", new BsonInt32(48))
+                .append("errmsg", new BsonString("Collection already exists")), new ServerAddress());
+        ListCollectionsPublisher<Document> collections = mock(ListCollectionsPublisher.class);
+        when(mongoTemplate.getMongoDatabase()).thenReturn(Mono.just(mongoDatabase));
+        when(mongoDatabase.createCollection(eq("log_offsets"), any(CreateCollectionOptions.class)))
+                .thenReturn(Mono.error(namespaceExists));
+        when(mongoDatabase.listCollections()).thenReturn(collections);
+        when(collections.filter(any())).thenReturn(collections);
+        when(collections.first()).thenReturn(Mono.just(new Document("name", "log_offsets").append("type", type)));
+    }
+}
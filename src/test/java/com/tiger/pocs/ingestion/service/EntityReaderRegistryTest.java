@@ -0,0 +1,60 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.UserAccessEntity;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityReaderRegistryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void shouldProvideAReaderForEveryEntityEventType() {
+        var registry = new EntityReaderRegistry(objectMapper, new IngestionProperties());
+
+        for (EventType eventType : EventType.values()) {
+            if (eventType == EventType.UNKNOWN) {
+                assertNull(registry.readerFor(eventType));
+            } else {
+                assertNotNull(registry.readerFor(eventType), eventType.name());
+            }
+        }
+    }
+
+    @Test
+    void shouldConvertTheSameWithAndWithoutBlackbird() throws IOException {
+        var properties = new IngestionProperties();
+        properties.getConversion().setBlackbirdEnabled(true);
+        var blackbird = new EntityReaderRegistry(objectMapper, properties);
+        var reflective = new EntityReaderRegistry(objectMapper, new IngestionProperties());
+        String payload = """
+                {"id": "UA-1", "userId": "U-1", "accessTime": "2024-01-15T10:00:00Z", "success": true}
+                """;
+
+        UserAccessEntity generated = blackbird.readerFor(EventType.USER_ACCESS).readValue(payload);
+        UserAccessEntity plain = reflective.readerFor(EventType.USER_ACCESS).readValue(payload);
+
+        assertEquals(plain, generated);
+        assertEquals(Instant.parse("2024-01-15T10:00:00Z"), generated.getAccessTime());
+        assertEquals(ClientEntity.class, EntityReaderRegistry.ENTITY_TYPES.get(EventType.CLIENT));
+    }
+
+    @Test
+    void shouldLeaveTheSharedMapperUntouched() {
+        var properties = new IngestionProperties();
+        properties.getConversion().setBlackbirdEnabled(true);
+        int modules = objectMapper.getRegisteredModuleIds().size();
+
+        new EntityReaderRegistry(objectMapper, properties);
+
+        assertEquals(modules, objectMapper.getRegisteredModuleIds().size());
+    }
+}
@@ -0,0 +1,96 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvelopeSplitterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IngestionProperties properties = new IngestionProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EnvelopeSplitter splitter = new EnvelopeSplitter(objectMapper, properties, meterRegistry);
+
+    @Test
+    void shouldSplitTheSampleExportIntoRecordsPerEventType() throws IOException {
+        String payload;
+        try (InputStream input = getClass().getResourceAsStream("/data-test.json")) {
+            payload = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Map<EventType, Integer> counts = new EnumMap<>(EventType.class);
+        List<String> clients = new ArrayList<>();
+
+        assertTrue(splitter.isEnvelope(payload));
+        int records = splitter.split(payload, (eventType, record) -> {
+            counts.merge(eventType, 1, Integer::sum);
+            if (eventType == EventType.CLIENT) clients.add(record);
+        });
+
+        assertEquals(23, records);
+        assertEquals(Map.of(EventType.CLIENT, 4, EventType.ACCOUNT, 4, EventType.USER, 4,
+                EventType.USER_ACCESS, 5, EventType.LOG_OFFSET, 6), counts);
+        assertEquals("Acme Corporation", objectMapper.readTree(clients.get(0)).get("clientName").asText());
+        assertEquals(23.0, meterRegistry.get("ingestion.envelope.records").summary().totalAmount());
+    }
+
+    @Test
+    void shouldNotTreatSingleRecordsAsEnvelopes() {
+        assertFalse(splitter.isEnvelope("{\"id\": \"CLI-1\", \"clients\": []}"));
+        assertFalse(splitter.isEnvelope("{\"clients\": {\"id\": \"CLI-1\"}}"));
+        assertFalse(splitter.isEnvelope("[{\"id\": 1}]"));
+        assertFalse(splitter.isEnvelope("not json"));
+        assertFalse(splitter.isEnvelope(null));
+
+        properties.getEnvelope().setEnabled(false);
+        assertFalse(splitter.isEnvelope("{\"clients\": [{\"id\": 1}]}"));
+    }
+
+    @Test
+    void shouldSkipFieldsThatHoldNoRecords() throws IOException {
+        var seen = new ArrayList<EventType>();
+
+        int records = splitter.split("""
+                {"clients": [{"id": 1}], "exportedAt": "2024-01-01", "meta": {"users": [1]}, "users": [{"id": 2}]}
+                """, (eventType, record) -> seen.add(eventType));
+
+        assertEquals(2, records);
+        assertEquals(List.of(EventType.CLIENT, EventType.USER), seen);
+    }
+
+    @Test
+    void shouldStreamLargeEnvelopesRecordByRecord() throws IOException {
+        var payload = new StringBuilder("{\"logOffsets\": [");
+        for (int i = 0; i < 10_000; i++) {
+            if (i > 0) payload.append(',');
+            payload.append("{\"id\": \"LOG-").append(i).append("\", \"offset\": ").append(i).append('}');
+        }
+        payload.append("]}");
+        var last = new String[1];
+
+        int records = splitter.split(payload.toString(), (eventType, record) -> last[0] = record);
+
+        assertEquals(10_000, records);
+        assertEquals("{\"id\":\"LOG-9999\",\"offset\":9999}", last[0]);
+    }
+
+    @Test
+    void shouldFailOnTruncatedEnvelopeAfterHandingOverCompleteRecords() {
+        var handed = new ArrayList<String>();
+
+        assertThrows(IOException.class, () ->
+                splitter.split("{\"clients\": [{\"id\": 1}, {\"id\": ", (eventType, record) -> handed.add(record)));
+        assertEquals(List.of("{\"id\":1}"), handed);
+    }
+}
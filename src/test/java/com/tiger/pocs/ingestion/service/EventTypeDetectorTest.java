@@ -1,5 +1,8 @@
 package com.tiger.pocs.ingestion.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.Message;
 import com.tiger.pocs.ingestion.domain.MessageProcessedEvent;
 import com.tiger.pocs.ingestion.support.IngestionTestParameterResolver;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +11,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,7 +27,7 @@ class EventTypeDetectorTest {
 
     @BeforeEach
     void setUp() {
-        detector = new EventTypeDetector(topicMapping);
+        detector = new EventTypeDetector(topicMapping, new ObjectMapper(), new IngestionProperties());
         setupMockTopicMappings();
     }
     
@@ -127,4 +133,80 @@ class EventTypeDetectorTest {
         assertEquals(EventTypeDetector.EventType.UNKNOWN, result);
         verify(topicMapping).getEventTypeForTopic(null);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldDetectFromEventTypeHeaderBeforeTopic() {
+        MessageProcessedEvent event = createEvent("clients", Map.of("eventType", "userAccess"), "{\"id\":\"UA-1\"}");
+
+        EventTypeDetector.EventType result = detector.detectEventType(event);
+
+        assertEquals(EventTypeDetector.EventType.USER_ACCESS, result);
+        verify(topicMapping, never()).getEventTypeForTopic(any());
+    }
+
+    @Test
+    void shouldFallBackToPayloadDiscriminatorForMultiplexedTopic() {
+        String payload = """
+                {"id":"ACC-001","nested":{"eventType":"CLIENT"},"eventType":"accounts","accountName":"Primary"}
+                """;
+        MessageProcessedEvent event = createEvent("unknown-topic", Map.of(), payload);
+
+        EventTypeDetector.EventType result = detector.detectEventType(event);
+
+        assertEquals(EventTypeDetector.EventType.ACCOUNT, result);
+    }
+
+    @Test
+    void shouldIgnoreUnrecognizedHeaderAndUseTopic() {
+        MessageProcessedEvent event = createEvent("accounts", Map.of("eventType", "something-else"), "{}");
+
+        EventTypeDetector.EventType result = detector.detectEventType(event);
+
+        assertEquals(EventTypeDetector.EventType.ACCOUNT, result);
+    }
+
+    @Test
+    void shouldReturnUnknownWhenPayloadPeekDisabled() {
+        var properties = new IngestionProperties();
+        properties.getDetection().setPayloadPeekEnabled(false);
+        var strictDetector = new EventTypeDetector(topicMapping, new ObjectMapper(), properties);
+        MessageProcessedEvent event = createEvent("unknown-topic", Map.of(), "{\"eventType\":\"USER\"}");
+
+        assertEquals(EventTypeDetector.EventType.UNKNOWN, strictDetector.detectEventType(event));
+    }
+
+    @Test
+    void shouldReturnNullDiscriminatorForMalformedOrNonObjectPayload() {
+        assertNull(detector.peekDiscriminator("{ invalid json }"));
+        assertNull(detector.peekDiscriminator("[{\"eventType\":\"USER\"}]"));
+        assertNull(detector.peekDiscriminator("{\"eventType\":42}"));
+    }
+
+    @Test
+    void shouldResolveEventTypeAliases() {
+        assertEquals(EventTypeDetector.EventType.CLIENT, EventTypeDetector.EventType.fromValue("clients"));
+        assertEquals(EventTypeDetector.EventType.USER_ACCESS, EventTypeDetector.EventType.fromValue("USER_ACCESS"));
+        assertEquals(EventTypeDetector.EventType.LOG_OFFSET, EventTypeDetector.EventType.fromValue("log-offsets"));
+        assertEquals(EventTypeDetector.EventType.UNKNOWN, EventTypeDetector.EventType.fromValue(null));
+        assertEquals(EventTypeDetector.EventType.UNKNOWN, EventTypeDetector.EventType.fromValue("orders"));
+    }
+
+    private static MessageProcessedEvent createEvent(String topic, Map<String, String> headers, String payload) {
+        Message<String> message = Message.<String>builder()
+                .key("test-key")
+                .value(payload)
+                .topic(topic)
+                .partition(0)
+                .offset(100L)
+                .timestamp(Instant.now())
+                .headers(headers)
+                .build();
+
+        return MessageProcessedEvent.builder()
+                .message(message)
+                .handlerName("TestHandler")
+                .processingTime(0L)
+                .processedBy("test")
+                .build();
+    }
+}
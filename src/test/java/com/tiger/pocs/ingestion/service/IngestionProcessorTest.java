@@ -1,15 +1,29 @@
 package com.tiger.pocs.ingestion.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
 import com.tiger.pocs.ingestion.domain.MessageProcessedEvent;
 import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
 import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.sink.PersistenceSinkRouter;
 import com.tiger.pocs.ingestion.support.IngestionTestParameterResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,8 +42,21 @@ class IngestionProcessorTest {
     private PayloadConverter payloadConverter;
 
     @Mock
-    private PersistenceService persistenceService;
+    private PersistenceSinkRouter sinkRouter;
+
+    @Mock
+    private WriteCoalescer writeCoalescer;
+
+    @Mock
+    private QuarantineStore quarantineStore;
+
+    @Mock
+    private EnvelopeSplitter envelopeSplitter;
 
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LatencyTracker latencyTracker = new LatencyTracker(new IngestionProperties(), meterRegistry);
+    private final PipelineLogger pipelineLogger = new PipelineLogger(new IngestionProperties());
+    private final IngestionProperties properties = new IngestionProperties();
     private IngestionProcessor processor;
 
     @BeforeEach
@@ -38,8 +65,16 @@ class IngestionProcessorTest {
                 payloadValidator,
                 eventTypeDetector,
                 payloadConverter,
-                persistenceService
+                sinkRouter,
+                writeCoalescer,
+                quarantineStore,
+                envelopeSplitter,
+                latencyTracker,
+                pipelineLogger,
+                properties
         );
+        properties.getPersistence().getRetry().setMaxRetries(0);
+        lenient().when(sinkRouter.persistEntity(any(), any(), any())).thenReturn(Mono.empty());
     }
 
     @Test
@@ -48,22 +83,41 @@ class IngestionProcessorTest {
         String payload = "{\"id\":1}";
         when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
         when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
-        when(payloadConverter.convertToEntity(payload, EventType.CLIENT)).thenReturn(clientEntity);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
 
         // When
         processor.processKafkaEvent(event);
 
         // Then
-        InOrder inOrder = inOrder(payloadValidator, eventTypeDetector, payloadConverter, persistenceService);
+        InOrder inOrder = inOrder(payloadValidator, eventTypeDetector, payloadConverter, sinkRouter);
         inOrder.verify(payloadValidator).validateAndExtractPayload(event);
         inOrder.verify(eventTypeDetector).detectEventType(event);
-        inOrder.verify(payloadConverter).convertToEntity(payload, EventType.CLIENT);
-        inOrder.verify(persistenceService).persistEntity(
-                eq(clientEntity), 
-                eq(EventType.CLIENT), 
-                anyString(), 
-                anyString()
-        );
+        inOrder.verify(payloadConverter).convertToEntity(eq(payload), eq(EventType.CLIENT), any());
+        inOrder.verify(sinkRouter).persistEntity(eq(clientEntity), eq(EventType.CLIENT), any());
+    }
+
+    @Test
+    void shouldRecordLatencyOncePersisted(MessageProcessedEvent event, ClientEntity clientEntity) {
+        // Given
+        String payload = "{\"id\":1}";
+        event.getMessage().setTimings(RecordTimings.received(System.currentTimeMillis()));
+        Sinks.Empty<Void> write = Sinks.empty();
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
+        when(sinkRouter.persistEntity(any(), any(), any())).thenReturn(write.asMono());
+
+        // When
+        processor.processKafkaEvent(event);
+
+        // Then
+        String topic = event.getMessage().getTopic();
+        assertNull(meterRegistry.find("ingestion.latency").tag("topic", topic).timer());
+        write.tryEmitEmpty();
+        for (String segment : List.of("transit", "dispatch", "conversion", "persistence", "service", "end-to-end")) {
+            assertEquals(1, meterRegistry.get("ingestion.latency").tag("topic", topic).tag("segment", segment).timer().count(),
+                    segment);
+        }
     }
 
     @Test
@@ -77,8 +131,8 @@ class IngestionProcessorTest {
         // Then
         verify(payloadValidator).validateAndExtractPayload(event);
         verify(eventTypeDetector, never()).detectEventType(any());
-        verify(payloadConverter, never()).convertToEntity(any(), any());
-        verify(persistenceService, never()).persistEntity(any(), any(), any(), any());
+        verify(payloadConverter, never()).convertToEntity(any(), any(), any());
+        verify(sinkRouter, never()).persistEntity(any(), any(), any());
     }
 
     @Test
@@ -111,7 +165,7 @@ class IngestionProcessorTest {
         assertEquals("Detection failed", exception.getMessage());
         verify(payloadValidator).validateAndExtractPayload(event);
         verify(eventTypeDetector).detectEventType(event);
-        verify(payloadConverter, never()).convertToEntity(any(), any());
+        verify(payloadConverter, never()).convertToEntity(any(), any(), any());
     }
 
     @Test
@@ -121,7 +175,7 @@ class IngestionProcessorTest {
         when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
         when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
         RuntimeException conversionError = new RuntimeException("Conversion failed");
-        when(payloadConverter.convertToEntity(payload, EventType.CLIENT)).thenThrow(conversionError);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenThrow(conversionError);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> 
@@ -130,8 +184,8 @@ class IngestionProcessorTest {
         assertEquals("Conversion failed", exception.getMessage());
         verify(payloadValidator).validateAndExtractPayload(event);
         verify(eventTypeDetector).detectEventType(event);
-        verify(payloadConverter).convertToEntity(payload, EventType.CLIENT);
-        verify(persistenceService, never()).persistEntity(any(), any(), any(), any());
+        verify(payloadConverter).convertToEntity(eq(payload), eq(EventType.CLIENT), any());
+        verify(sinkRouter, never()).persistEntity(any(), any(), any());
     }
 
     @Test
@@ -140,10 +194,10 @@ class IngestionProcessorTest {
         String payload = "{\"test\":\"data\"}";
         when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
         when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
-        when(payloadConverter.convertToEntity(payload, EventType.CLIENT)).thenReturn(clientEntity);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
         
         RuntimeException persistenceError = new RuntimeException("Persistence failed");
-        doThrow(persistenceError).when(persistenceService).persistEntity(any(), any(), any(), any());
+        doThrow(persistenceError).when(sinkRouter).persistEntity(any(), any(), any());
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> 
@@ -152,8 +206,8 @@ class IngestionProcessorTest {
         assertEquals("Persistence failed", exception.getMessage());
         verify(payloadValidator).validateAndExtractPayload(event);
         verify(eventTypeDetector).detectEventType(event);
-        verify(payloadConverter).convertToEntity(payload, EventType.CLIENT);
-        verify(persistenceService).persistEntity(eq(clientEntity), eq(EventType.CLIENT), anyString(), anyString());
+        verify(payloadConverter).convertToEntity(eq(payload), eq(EventType.CLIENT), any());
+        verify(sinkRouter).persistEntity(eq(clientEntity), eq(EventType.CLIENT), any());
     }
 
     @Test
@@ -163,7 +217,7 @@ class IngestionProcessorTest {
         String payload = "test-payload";
         when(payloadValidator.validateAndExtractPayload(eventWithNullMessage)).thenReturn(payload);
         when(eventTypeDetector.detectEventType(eventWithNullMessage)).thenReturn(EventType.UNKNOWN);
-        when(payloadConverter.convertToEntity(payload, EventType.UNKNOWN)).thenReturn("raw-data");
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.UNKNOWN), any())).thenReturn("raw-data");
 
         // When
         processor.processKafkaEvent(eventWithNullMessage);
@@ -171,13 +225,8 @@ class IngestionProcessorTest {
         // Then
         verify(payloadValidator).validateAndExtractPayload(eventWithNullMessage);
         verify(eventTypeDetector).detectEventType(eventWithNullMessage);
-        verify(payloadConverter).convertToEntity(payload, EventType.UNKNOWN);
-        verify(persistenceService).persistEntity(
-                eq("raw-data"), 
-                eq(EventType.UNKNOWN), 
-                eq("unknown"), 
-                eq("unknown")
-        );
+        verify(payloadConverter).convertToEntity(eq(payload), eq(EventType.UNKNOWN), any());
+        verify(sinkRouter).persistEntity(eq("raw-data"), eq(EventType.UNKNOWN), isNull());
     }
 
     @Test
@@ -191,16 +240,17 @@ class IngestionProcessorTest {
             String payload = "{\"data\":\"test\"}";
             when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
             when(eventTypeDetector.detectEventType(event)).thenReturn(eventType);
-            when(payloadConverter.convertToEntity(payload, eventType)).thenReturn(clientEntity);
+            when(payloadConverter.convertToEntity(eq(payload), eq(eventType), any())).thenReturn(clientEntity);
 
             // When
             processor.processKafkaEvent(event);
 
             // Then
-            verify(persistenceService).persistEntity(eq(clientEntity), eq(eventType), anyString(), anyString());
+            verify(sinkRouter).persistEntity(eq(clientEntity), eq(eventType), any());
             
             // Reset mocks for next iteration
-            reset(payloadValidator, eventTypeDetector, payloadConverter, persistenceService);
+            reset(payloadValidator, eventTypeDetector, payloadConverter, sinkRouter);
+            lenient().when(sinkRouter.persistEntity(any(), any(), any())).thenReturn(Mono.empty());
         }
     }
 
@@ -210,7 +260,7 @@ class IngestionProcessorTest {
         String emptyPayload = "";
         when(payloadValidator.validateAndExtractPayload(event)).thenReturn(emptyPayload);
         when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
-        when(payloadConverter.convertToEntity(emptyPayload, EventType.CLIENT)).thenReturn("empty");
+        when(payloadConverter.convertToEntity(eq(emptyPayload), eq(EventType.CLIENT), any())).thenReturn("empty");
 
         // When
         processor.processKafkaEvent(event);
@@ -218,8 +268,8 @@ class IngestionProcessorTest {
         // Then
         verify(payloadValidator).validateAndExtractPayload(event);
         verify(eventTypeDetector).detectEventType(event);
-        verify(payloadConverter).convertToEntity(emptyPayload, EventType.CLIENT);
-        verify(persistenceService).persistEntity(eq("empty"), eq(EventType.CLIENT), anyString(), anyString());
+        verify(payloadConverter).convertToEntity(eq(emptyPayload), eq(EventType.CLIENT), any());
+        verify(sinkRouter).persistEntity(eq("empty"), eq(EventType.CLIENT), any());
     }
 
     @Test
@@ -228,17 +278,16 @@ class IngestionProcessorTest {
         String payload = "{\"id\":1}";
         when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
         when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
-        when(payloadConverter.convertToEntity(payload, EventType.CLIENT)).thenReturn(clientEntity);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
 
         // When
         processor.processKafkaEvent(event);
 
         // Then
-        verify(persistenceService).persistEntity(
-                eq(clientEntity), 
-                eq(EventType.CLIENT), 
-                eq("clients"), // Should extract topic from event
-                eq("test-key") // Should extract key from event
+        verify(sinkRouter).persistEntity(
+                eq(clientEntity),
+                eq(EventType.CLIENT),
+                eq(event.getMessage()) // Should hand over the record with its topic and key
         );
     }
 
@@ -248,7 +297,7 @@ class IngestionProcessorTest {
         String payload = "{\"test\":\"data\"}";
         when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
         when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
-        when(payloadConverter.convertToEntity(payload, EventType.CLIENT)).thenReturn(null);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(null);
 
         // When
         processor.processKafkaEvent(event);
@@ -256,7 +305,169 @@ class IngestionProcessorTest {
         // Then
         verify(payloadValidator).validateAndExtractPayload(event);
         verify(eventTypeDetector).detectEventType(event);
-        verify(payloadConverter).convertToEntity(payload, EventType.CLIENT);
-        verify(persistenceService).persistEntity(isNull(), eq(EventType.CLIENT), anyString(), anyString());
+        verify(payloadConverter).convertToEntity(eq(payload), eq(EventType.CLIENT), any());
+        verify(sinkRouter).persistEntity(isNull(), eq(EventType.CLIENT), any());
+    }
+
+    @Test
+    void shouldRouteCoalescableEntitiesToWriteCoalescer(MessageProcessedEvent event, ClientEntity clientEntity) {
+        // Given
+        String payload = "{\"id\":1,\"version\":2}";
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
+        when(writeCoalescer.accepts(clientEntity, EventType.CLIENT)).thenReturn(true);
+
+        // When
+        processor.processKafkaEvent(event);
+
+        // Then
+        verify(writeCoalescer).submit(eq(clientEntity), eq(EventType.CLIENT), eq(event.getMessage()), any());
+        verify(sinkRouter, never()).persistEntity(any(), any(), any());
+    }
+
+    @Test
+    void shouldAcknowledgeOnlyAfterPersistenceCompletes(MessageProcessedEvent event, ClientEntity clientEntity) {
+        // Given
+        String payload = "{\"id\":1}";
+        var acknowledgment = MessageAcknowledgment.of(() -> { });
+        event.getMessage().setAcknowledgment(acknowledgment);
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
+        Sinks.Empty<Void> written = Sinks.empty();
+        when(sinkRouter.persistEntity(any(), any(), any())).thenReturn(written.asMono());
+
+        // When
+        processor.processKafkaEvent(event);
+
+        // Then
+        assertTrue(acknowledgment.isDeferred());
+        assertFalse(acknowledgment.isAcknowledged());
+        written.tryEmitEmpty();
+        assertTrue(acknowledgment.isAcknowledged());
+    }
+
+    @Test
+    void shouldQuarantineRecordWhoseWriteKeepsFailing(MessageProcessedEvent event, ClientEntity clientEntity) {
+        // Given
+        String payload = "{\"id\":1}";
+        var acknowledgment = MessageAcknowledgment.of(() -> { });
+        event.getMessage().setAcknowledgment(acknowledgment);
+        var writeError = new RuntimeException("Mongo down");
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenReturn(clientEntity);
+        when(sinkRouter.persistEntity(any(), any(), any())).thenReturn(Mono.error(writeError));
+
+        // When
+        processor.processKafkaEvent(event);
+
+        // Then
+        assertTrue(acknowledgment.isDeferred());
+        assertFalse(acknowledgment.isAcknowledged());
+        verify(quarantineStore).quarantine(payload, EventType.CLIENT, event.getMessage(), writeError);
+    }
+
+    @Test
+    void shouldQuarantineUnconvertiblePayloadsInsteadOfPersisting(MessageProcessedEvent event) {
+        // Given
+        String payload = "{ invalid json }";
+        var conversionError = new PayloadConversionException(EventType.CLIENT, new IllegalArgumentException("Unexpected character"));
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
+        when(payloadConverter.convertToEntity(eq(payload), eq(EventType.CLIENT), any())).thenThrow(conversionError);
+
+        // When
+        assertDoesNotThrow(() -> processor.processKafkaEvent(event));
+
+        // Then
+        verify(quarantineStore).quarantine(payload, EventType.CLIENT, event.getMessage(), conversionError);
+        verify(sinkRouter, never()).persistEntity(any(), any(), any());
+        verify(writeCoalescer, never()).submit(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldIngestEachEnvelopeRecordAndAcknowledgeEnvelopeAfterAllWrites(MessageProcessedEvent event,
+                                                                            ClientEntity clientEntity) {
+        // Given
+        String payload = """
+                {"clients": [{"id": "1"}, {"id": "2"}], "users": [{"id": "3"}]}
+                """;
+        var acknowledgment = MessageAcknowledgment.of(() -> { });
+        event.getMessage().setAcknowledgment(acknowledgment);
+        var envelopeProcessor = new IngestionProcessor(payloadValidator, eventTypeDetector, payloadConverter,
+                sinkRouter, writeCoalescer, quarantineStore, realEnvelopeSplitter(), latencyTracker, pipelineLogger, properties);
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.UNKNOWN);
+        when(payloadConverter.convertToEntity(anyString(), any(), any())).thenReturn(clientEntity);
+        List<Sinks.Empty<Void>> writes = new ArrayList<>();
+        when(sinkRouter.persistEntity(any(), any(), any())).thenAnswer(invocation -> {
+            Sinks.Empty<Void> write = Sinks.empty();
+            writes.add(write);
+            return write.asMono();
+        });
+
+        // When
+        envelopeProcessor.processKafkaEvent(event);
+
+        // Then
+        verify(payloadConverter).convertToEntity(eq("{\"id\":\"1\"}"), eq(EventType.CLIENT), any());
+        verify(payloadConverter).convertToEntity(eq("{\"id\":\"3\"}"), eq(EventType.USER), any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<?>> recordMessages = ArgumentCaptor.forClass(Message.class);
+        verify(sinkRouter, times(2)).persistEntity(eq(clientEntity), eq(EventType.CLIENT), recordMessages.capture());
+        assertEquals(List.of(1, 2), recordMessages.getAllValues().stream().map(Message::getEnvelopeIndex).toList());
+        assertEquals(event.getMessage().getOffset(), recordMessages.getValue().getOffset());
+        assertEquals(3, writes.size());
+        assertTrue(acknowledgment.isDeferred());
+
+        writes.get(0).tryEmitEmpty();
+        writes.get(1).tryEmitEmpty();
+        assertFalse(acknowledgment.isAcknowledged());
+        writes.get(2).tryEmitEmpty();
+        assertTrue(acknowledgment.isAcknowledged());
+    }
+
+    @Test
+    void shouldQuarantineMalformedEnvelope(MessageProcessedEvent event, ClientEntity clientEntity) {
+        // Given
+        String payload = "{\"clients\": [{\"id\": \"1\"}, {\"id\": ";
+        var envelopeProcessor = new IngestionProcessor(payloadValidator, eventTypeDetector, payloadConverter,
+                sinkRouter, writeCoalescer, quarantineStore, realEnvelopeSplitter(), latencyTracker, pipelineLogger, properties);
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.UNKNOWN);
+        when(payloadConverter.convertToEntity(anyString(), any(), any())).thenReturn(clientEntity);
+
+        // When
+        envelopeProcessor.processKafkaEvent(event);
+
+        // Then
+        verify(sinkRouter).persistEntity(eq(clientEntity), eq(EventType.CLIENT), any());
+        verify(quarantineStore).quarantine(eq(payload), eq(EventType.UNKNOWN), eq(event.getMessage()),
+                any(PayloadConversionException.class));
+    }
+
+    @Test
+    void shouldNotSplitRecordOfKnownTypeShapedLikeEnvelope(MessageProcessedEvent event, ClientEntity clientEntity) {
+        // Given
+        String payload = "{\"accounts\": [{\"id\": \"ACC-1\"}], \"id\": \"CLI-1\"}";
+        var envelopeProcessor = new IngestionProcessor(payloadValidator, eventTypeDetector, payloadConverter,
+                sinkRouter, writeCoalescer, quarantineStore, realEnvelopeSplitter(), latencyTracker, pipelineLogger, properties);
+        when(payloadValidator.validateAndExtractPayload(event)).thenReturn(payload);
+        when(eventTypeDetector.detectEventType(event)).thenReturn(EventType.CLIENT);
+        when(payloadConverter.convertToEntity(payload, EventType.CLIENT, event.getMessage())).thenReturn(clientEntity);
+        when(sinkRouter.persistEntity(clientEntity, EventType.CLIENT, event.getMessage())).thenReturn(Mono.empty());
+
+        // When
+        envelopeProcessor.processKafkaEvent(event);
+
+        // Then
+        verify(payloadConverter).convertToEntity(payload, EventType.CLIENT, event.getMessage());
+        verify(payloadConverter, never()).convertToEntity(anyString(), eq(EventType.ACCOUNT), any());
+    }
+
+    private static EnvelopeSplitter realEnvelopeSplitter() {
+        return new EnvelopeSplitter(new ObjectMapper(), new IngestionProperties(), new SimpleMeterRegistry());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.ingestion.domain.RecordTimings.Stage;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTrackerTest {
+
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private LatencyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new LatencyTracker(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldRecordEverySegmentPerTopic() {
+        var timings = RecordTimings.received(System.currentTimeMillis() - 25);
+        timings.mark(Stage.DISPATCHED);
+        timings.mark(Stage.CONVERTED);
+
+        tracker.recordPersisted("clientsTopic", timings);
+
+        assertTrue(timings.isMarked(Stage.PERSISTED));
+        for (var segment : LatencyTracker.Segment.values()) {
+            assertEquals(1, timer("clientsTopic", segment).count(), segment.tag());
+        }
+        assertTrue(timer("clientsTopic", LatencyTracker.Segment.TRANSIT).totalTime(TimeUnit.MILLISECONDS) >= 25);
+        assertTrue(timer("clientsTopic", LatencyTracker.Segment.END_TO_END).totalTime(TimeUnit.NANOSECONDS)
+                >= timer("clientsTopic", LatencyTracker.Segment.SERVICE).totalTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void shouldSkipProducerSegmentsWithoutRecordTimestamp() {
+        var timings = RecordTimings.received(-1);
+        timings.mark(Stage.DISPATCHED);
+
+        tracker.recordPersisted("usersTopic", timings);
+
+        assertEquals(0, timer("usersTopic", LatencyTracker.Segment.TRANSIT).count());
+        assertEquals(0, timer("usersTopic", LatencyTracker.Segment.END_TO_END).count());
+        // Never converted, e.g. a raw record, so only the segments around it are known
+        assertEquals(0, timer("usersTopic", LatencyTracker.Segment.CONVERSION).count());
+        assertEquals(1, timer("usersTopic", LatencyTracker.Segment.DISPATCH).count());
+        assertEquals(1, timer("usersTopic", LatencyTracker.Segment.SERVICE).count());
+    }
+
+    @Test
+    void shouldExposePercentilesPerTopicAndSegment() {
+        for (int i = 0; i < 10; i++) {
+            tracker.recordPersisted("accountsTopic", RecordTimings.received(System.currentTimeMillis()));
+        }
+
+        var segments = tracker.snapshot().get("accountsTopic");
+
+        var service = segments.get("service");
+        assertEquals(10.0, service.get("count"));
+        assertTrue(service.keySet().containsAll(List.of("p50", "p99", "p999", "max")));
+        assertFalse(segments.containsKey("conversion"));
+    }
+
+    @Test
+    void shouldIgnoreRecordsWhenDisabled() {
+        properties.getLatency().setEnabled(false);
+
+        tracker.recordPersisted("clientsTopic", RecordTimings.received(System.currentTimeMillis()));
+        tracker.recordPersisted("clientsTopic", null);
+
+        assertNull(meterRegistry.find("ingestion.latency").timer());
+        assertTrue(tracker.snapshot().isEmpty());
+    }
+
+    @Test
+    void shouldKeepStagesIndependentInCopies() {
+        var timings = RecordTimings.received(System.currentTimeMillis());
+        timings.mark(Stage.DISPATCHED);
+
+        var copy = timings.copy();
+        copy.mark(Stage.CONVERTED);
+
+        assertTrue(copy.isMarked(Stage.DISPATCHED));
+        assertFalse(timings.isMarked(Stage.CONVERTED));
+        assertEquals(-1, timings.nanosBetween(Stage.RECEIVED, Stage.CONVERTED));
+    }
+
+    @Test
+    void shouldLabelPercentiles() {
+        assertEquals("50", LatencyTracker.percentileLabel(0.5));
+        assertEquals("99", LatencyTracker.percentileLabel(0.99));
+        assertEquals("999", LatencyTracker.percentileLabel(0.999));
+    }
+
+    private Timer timer(String topic, LatencyTracker.Segment segment) {
+        return meterRegistry.get("ingestion.latency").tag("topic", topic).tag("segment", segment.tag()).timer();
+    }
+}
@@ -6,6 +6,9 @@ import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
 import com.tiger.pocs.ingestion.support.IngestionTestParameterResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,7 +20,7 @@ class PayloadConverterTest {
 
     @BeforeEach
     void setUp(ObjectMapper testObjectMapper) {
-        this.converter = new PayloadConverter(testObjectMapper);
+        this.converter = new PayloadConverter(new EntityReaderRegistry(testObjectMapper, new IngestionProperties()));
     }
 
     @Test
@@ -91,6 +94,46 @@ class PayloadConverterTest {
         }
     }
 
+    @Test
+    void shouldMapUserAccessTimeAndMetaFields() {
+        String payload = """
+                {
+                    "id": "ACCESS-001",
+                    "userId": 123,
+                    "accessType": "LOGIN",
+                    "resourceId": "dashboard",
+                    "action": "VIEW",
+                    "accessTime": "2024-10-20T10:30:00Z",
+                    "success": true
+                }
+                """;
+        var entity = assertInstanceOf(UserAccessEntity.class, converter.convertToEntity(payload, EventType.USER_ACCESS));
+        assertEquals("123", entity.getUserId());
+        assertEquals("dashboard", entity.getResourceId());
+        assertEquals(Instant.parse("2024-10-20T10:30:00Z"), entity.getAccessTime());
+    }
+
+    @Test
+    void shouldMapLogOffsetTimeAndMetaFields() {
+        String payload = """
+                {
+                    "id": "OFFSET-001",
+                    "topic": "clients",
+                    "partition": 0,
+                    "offset": 12345,
+                    "timestamp": "2024-10-20T10:30:00Z",
+                    "consumerGroup": "ingestion-service",
+                    "status": "PROCESSED"
+                }
+                """;
+        var entity = assertInstanceOf(LogOffsetEntity.class, converter.convertToEntity(payload, EventType.LOG_OFFSET));
+        assertEquals("clients", entity.getTopic());
+        assertEquals(0, entity.getPartition());
+        assertEquals(12345L, entity.getOffset());
+        assertEquals("ingestion-service", entity.getConsumerGroup());
+        assertEquals(Instant.parse("2024-10-20T10:30:00Z"), entity.getTimestamp());
+    }
+
     @Test
     void shouldConvertToLogOffsetEntity() {
         String payload = """
@@ -109,6 +152,23 @@ class PayloadConverterTest {
         }
     }
 
+    @Test
+    void shouldPassConfiguredEventTypesThroughAsRawDocuments(ObjectMapper testObjectMapper) {
+        var properties = new IngestionProperties();
+        properties.getConversion().getPassThroughEventTypes().add(EventType.CLIENT);
+        var passThrough = new PayloadConverter(new EntityReaderRegistry(testObjectMapper, properties));
+
+        Object result = passThrough.convertToEntity("{\"id\": 1, \"clientName\": \"Acme\", \"extra\": {\"a\": 1}}", EventType.CLIENT);
+
+        var raw = assertInstanceOf(RawEntity.class, result);
+        assertEquals(ClientEntity.class, raw.entityType());
+        assertEquals("1", raw.id());
+        assertEquals("Acme", raw.document().getString("clientName"));
+        assertFalse(raw.document().containsKey("id"));
+        assertInstanceOf(AccountEntity.class, passThrough.convertToEntity("{\"id\": \"ACC-1\"}", EventType.ACCOUNT));
+        assertThrows(PayloadConversionException.class, () -> passThrough.convertToEntity("{ broken", EventType.CLIENT));
+    }
+
     @Test
     void shouldReturnNullForUnknownEventType() {
         String payload = "{\"data\": \"test\"}";
@@ -117,10 +177,12 @@ class PayloadConverterTest {
     }
 
     @Test
-    void shouldFallbackToRawStringForInvalidJson() {
+    void shouldRejectInvalidJson() {
         String invalidJson = "{ invalid json }";
-        Object result = converter.convertToEntity(invalidJson, EventType.CLIENT);
-        assertEquals(invalidJson, result);
+        var error = assertThrows(PayloadConversionException.class,
+                () -> converter.convertToEntity(invalidJson, EventType.CLIENT));
+        assertEquals(EventType.CLIENT, error.getEventType());
+        assertFalse(error.getMessage().contains(invalidJson));
     }
 
     @Test
@@ -192,18 +254,15 @@ class PayloadConverterTest {
     }
 
     @Test
-    void shouldHandleNumericStringAsPayload() {
+    void shouldRejectNumericStringAsPayload() {
         String numericPayload = "12345";
-        Object result = converter.convertToEntity(numericPayload, EventType.CLIENT);
-        // Numeric string might be converted to entity with id set to the number, or remain as string
-        assertTrue(result instanceof ClientEntity || result.equals(numericPayload));
+        assertThrows(PayloadConversionException.class, () -> converter.convertToEntity(numericPayload, EventType.CLIENT));
     }
 
     @Test
-    void shouldHandleArrayAsPayload() {
+    void shouldRejectArrayAsPayload() {
         String arrayPayload = "[1, 2, 3]";
-        Object result = converter.convertToEntity(arrayPayload, EventType.CLIENT);
-        assertEquals(arrayPayload, result);
+        assertThrows(PayloadConversionException.class, () -> converter.convertToEntity(arrayPayload, EventType.CLIENT));
     }
 
     @Test
@@ -253,12 +312,11 @@ class PayloadConverterTest {
     void shouldHandleAllEventTypesWithInvalidPayloads() {
         String invalidPayload = "invalid-json";
         
-        // All entity types should fallback to string for invalid JSON
-        assertEquals(invalidPayload, converter.convertToEntity(invalidPayload, EventType.CLIENT));
-        assertEquals(invalidPayload, converter.convertToEntity(invalidPayload, EventType.ACCOUNT));
-        assertEquals(invalidPayload, converter.convertToEntity(invalidPayload, EventType.USER));
-        assertEquals(invalidPayload, converter.convertToEntity(invalidPayload, EventType.USER_ACCESS));
-        assertEquals(invalidPayload, converter.convertToEntity(invalidPayload, EventType.LOG_OFFSET));
+        // All entity types should reject invalid JSON
+        for (EventType eventType : List.of(EventType.CLIENT, EventType.ACCOUNT, EventType.USER,
+                EventType.USER_ACCESS, EventType.LOG_OFFSET)) {
+            assertThrows(PayloadConversionException.class, () -> converter.convertToEntity(invalidPayload, eventType));
+        }
     }
 
     @Test
@@ -309,11 +367,12 @@ class PayloadConverterTest {
         // Force different types of exceptions for each entity type
         String malformedJson = "{\"field\": }"; // Malformed JSON
         
-        // Each should catch exception and return original payload
-        assertEquals(malformedJson, converter.convertToEntity(malformedJson, EventType.CLIENT));
-        assertEquals(malformedJson, converter.convertToEntity(malformedJson, EventType.ACCOUNT));
-        assertEquals(malformedJson, converter.convertToEntity(malformedJson, EventType.USER));
-        assertEquals(malformedJson, converter.convertToEntity(malformedJson, EventType.USER_ACCESS));
-        assertEquals(malformedJson, converter.convertToEntity(malformedJson, EventType.LOG_OFFSET));
+        // Each should wrap the parser error without the payload
+        for (EventType eventType : List.of(EventType.CLIENT, EventType.ACCOUNT, EventType.USER,
+                EventType.USER_ACCESS, EventType.LOG_OFFSET)) {
+            var error = assertThrows(PayloadConversionException.class,
+                    () -> converter.convertToEntity(malformedJson, eventType));
+            assertEquals(eventType, error.getEventType());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.IngestionProperties.WriteMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PersistenceJournalTest {
+
+    @TempDir
+    Path directory;
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+    private SimpleMeterRegistry meterRegistry;
+    private PersistenceJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new IngestionProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory.toString());
+        meterRegistry = new SimpleMeterRegistry();
+        journal = new PersistenceJournal(mongoTemplate, properties, meterRegistry,
+                new CollectionInitializer(mongoTemplate, properties), new DurabilityPolicy(properties.getPersistence()));
+        journal.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void shouldDrainLatestJournaledWritePerDocument() {
+        when(mongoTemplate.getCollection("clients")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.withWriteConcern(any())).thenReturn(mongoCollection);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        journal.append("clients", WriteMode.REPLACE, new Document("_id", "CLI-001").append("name", "old"));
+        journal.append("clients", WriteMode.REPLACE, new Document("_id", "CLI-001").append("name", "new"));
+        journal.append("clients", WriteMode.REPLACE, new Document("_id", "CLI-002").append("name", "other"));
+        assertTrue(journal.hasBacklog());
+
+        journal.drain();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        assertEquals(2, models.getValue().size());
+        assertEquals("new", ((ReplaceOneModel<Document>) models.getValue().get(0)).getReplacement().get("name"));
+        assertFalse(journal.hasBacklog());
+        assertEquals(3.0, meterRegistry.get("ingestion.journal.drained").counter().count());
+    }
+
+    @Test
+    void shouldDrainHighestJournaledVersionPerDocument() {
+        when(mongoTemplate.getCollection("clients")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.withWriteConcern(any())).thenReturn(mongoCollection);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        journal.append("clients", WriteMode.VERSION_GUARDED, new Document("_id", "CLI-001").append("version", 3L));
+        journal.append("clients", WriteMode.VERSION_GUARDED, new Document("_id", "CLI-001").append("version", 2L));
+
+        journal.drain();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        assertEquals(1, models.getValue().size());
+        assertEquals(3L, ((ReplaceOneModel<Document>) models.getValue().get(0)).getReplacement().get("version"));
+    }
+
+    @Test
+    void shouldKeepBacklogWhileMongoIsUnavailable() {
+        when(mongoTemplate.getCollection("clients"))
+                .thenReturn(Mono.error(new MongoSocketException("down", new ServerAddress())));
+        journal.append("clients", WriteMode.VERSION_GUARDED, new Document("_id", "CLI-001").append("version", 2L));
+
+        journal.drain();
+
+        assertTrue(journal.hasBacklog());
+        assertEquals(0.0, meterRegistry.get("ingestion.journal.drained").counter().count());
+    }
+
+    @Test
+    void shouldClassifyConnectivityFailuresAsRetryable() {
+        assertTrue(PersistenceJournal.isRetryable(new MongoSocketException("down", new ServerAddress())));
+        assertFalse(PersistenceJournal.isRetryable(new IllegalArgumentException("bad document")));
+        assertFalse(PersistenceJournal.isRetryable(new RejectedExecutionException("concurrency limit reached")));
+    }
+}
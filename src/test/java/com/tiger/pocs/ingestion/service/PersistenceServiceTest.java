@@ -1,22 +1,61 @@
 package com.tiger.pocs.ingestion.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.WriteConcern;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
 import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.RawEntity;
+import com.tiger.pocs.ingestion.domain.UserAccessEntity;
 import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,18 +63,33 @@ class PersistenceServiceTest {
 
     @Mock
     private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+    @Mock
+    private MongoDatabase mongoDatabase;
+    @Mock
+    private PersistenceJournal journal;
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
     private PersistenceService persistenceService;
 
     @BeforeEach
     void setUp() {
-        persistenceService = new PersistenceService(mongoTemplate);
+        properties = new IngestionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        persistenceService = new PersistenceService(mongoTemplate, properties, meterRegistry, journal,
+                new CollectionInitializer(mongoTemplate, properties),
+                new AdaptiveConcurrencyLimiter(properties.getPersistence().getConcurrency(), meterRegistry),
+                new DurabilityPolicy(properties.getPersistence()));
+        lenient().when(mongoTemplate.getCollectionName(any())).thenReturn("clients");
     }
 
     @ParameterizedTest
     @MethodSource("provideSuccessfulPersistenceScenarios")
     void shouldPersistEntitySuccessfully(ClientEntity clientEntity, EventType eventType, String topic, String key) {
         when(mongoTemplate.save(clientEntity)).thenReturn(Mono.just(clientEntity));
-        persistenceService.persistEntity(clientEntity, eventType, topic, key);
+        StepVerifier.create(persistenceService.persistEntity(clientEntity, eventType, message(topic, key)))
+                .verifyComplete();
         verify(mongoTemplate).save(clientEntity);
     }
 
@@ -57,7 +111,9 @@ class PersistenceServiceTest {
     @MethodSource("provideErrorScenarios")
     void shouldHandlePersistenceError(ClientEntity clientEntity, Exception error, String description) {
         when(mongoTemplate.save(clientEntity)).thenReturn(Mono.error(error));
-        persistenceService.persistEntity(clientEntity, EventType.CLIENT, "clients", "test-key");
+        StepVerifier.create(persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "test-key")))
+                .expectErrorMessage(error.getMessage())
+                .verify();
         verify(mongoTemplate).save(clientEntity);
     }
 
@@ -74,7 +130,8 @@ class PersistenceServiceTest {
 
     @Test
     void shouldSkipPersistenceForNullEntity() {
-        persistenceService.persistEntity(null, EventType.CLIENT, "clients", "test-key");
+        StepVerifier.create(persistenceService.persistEntity(null, EventType.CLIENT, message("clients", "test-key")))
+                .verifyComplete();
         verify(mongoTemplate, never()).save(any());
     }
 
@@ -89,7 +146,7 @@ class PersistenceServiceTest {
             }
         };
         when(mongoTemplate.save(complexEntity)).thenReturn(Mono.just(complexEntity));
-        persistenceService.persistEntity(complexEntity, EventType.USER, "users", "user-key");
+        persistenceService.persistEntity(complexEntity, EventType.USER, message("users", "user-key")).block();
         verify(mongoTemplate).save(complexEntity);
     }
 
@@ -101,9 +158,353 @@ class PersistenceServiceTest {
                 .build();
         
         when(mongoTemplate.save(clientEntity)).thenReturn(Mono.just(clientEntity));
-        persistenceService.persistEntity(clientEntity, EventType.CLIENT, "clients", "key1");
-        persistenceService.persistEntity(clientEntity, EventType.CLIENT, "clients", "key2");
-        persistenceService.persistEntity(clientEntity, EventType.CLIENT, "clients", "key3");
+        Mono.when(
+                persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "key1")),
+                persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "key2")),
+                persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "key3"))
+        ).block();
         verify(mongoTemplate, times(3)).save(clientEntity);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSaveBatchAndCompleteAfterAllWrites() {
+        ClientEntity first = ClientEntity.builder().id("CLI-001").version(2L).build();
+        ClientEntity second = ClientEntity.builder().id("CLI-002").version(1L).build();
+        when(mongoTemplate.save(first)).thenReturn(Mono.just(first));
+        when(mongoTemplate.save(second)).thenReturn(Mono.just(second));
+
+        persistenceService.saveAll(List.of(first, second)).block();
+
+        verify(mongoTemplate).save(first);
+        verify(mongoTemplate).save(second);
+    }
+
+    @Test
+    void shouldUpsertBufferedEntitiesAsOneUnorderedBulkWrite() {
+        enableBulkWrites(2);
+        ClientEntity first = ClientEntity.builder().id("CLI-001").version(1L).build();
+        ClientEntity second = ClientEntity.builder().id("CLI-002").version(1L).build();
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        StepVerifier.create(Mono.when(
+                        persistenceService.persistEntity(first, EventType.CLIENT, message("clients", "key1")),
+                        persistenceService.persistEntity(second, EventType.CLIENT, message("clients", "key2"))))
+                .verifyComplete();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        assertEquals(2, models.getValue().size());
+        assertInstanceOf(ReplaceOneModel.class, models.getValue().get(0));
+        verify(mongoTemplate, never()).save(any());
+        assertEquals(1, meterRegistry.get("ingestion.bulk.flush.size").tag("trigger", "documents").summary().count());
+    }
+
+    @Test
+    void shouldGuardUpsertsWithStoredVersionAndReportStaleWritesAsSkipped() {
+        enableBulkWrites(2);
+        properties.getPersistence().setBulkEnabled(false);
+        properties.getPersistence().settingsFor("clients").setWriteMode(IngestionProperties.WriteMode.VERSION_GUARDED);
+        ClientEntity stale = ClientEntity.builder().id("CLI-001").version(1L).build();
+        ClientEntity fresh = ClientEntity.builder().id("CLI-002").version(4L).build();
+        var duplicateKey = new BulkWriteError(11000,
+                "E11000 duplicate key error collection: pocs.clients index: _id_ dup key: { _id: \"CLI-001\" }",
+                new BsonDocument(), 0);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.error(new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(duplicateKey), null, new ServerAddress(), Set.of())));
+
+        StepVerifier.create(Mono.when(
+                        persistenceService.persistEntity(stale, EventType.CLIENT, message("clients", "key1")),
+                        persistenceService.persistEntity(fresh, EventType.CLIENT, message("clients", "key2"))))
+                .verifyComplete();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        var guarded = (ReplaceOneModel<Document>) models.getValue().get(1);
+        assertEquals(Filters.and(Filters.eq("_id", "CLI-002"),
+                Filters.or(Filters.lt("version", 4L), Filters.exists("version", false))), guarded.getFilter());
+        verify(mongoTemplate, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("ingestion.persistence.stale.skipped").counter().count());
+    }
+
+    @Test
+    void shouldFailDuplicateKeyOnOtherUniqueIndexInVersionGuardedMode() {
+        var duplicateEmail = new BulkWriteError(11000,
+                "E11000 duplicate key error collection: pocs.clients index: email_1 dup key: { email: \"a@b.c\" }",
+                new BsonDocument("keyPattern", new BsonDocument("email", new BsonInt32(1))), 0);
+        var duplicateId = new BulkWriteError(11000, "E11000 duplicate key error",
+                new BsonDocument("keyPattern", new BsonDocument("_id", new BsonInt32(1))), 1);
+        var exception = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(duplicateEmail, duplicateId), null, new ServerAddress(), Set.of());
+
+        var outcome = BulkWriteOutcome.from(exception, true, false);
+
+        assertInstanceOf(IllegalStateException.class, outcome.failureAt(0));
+        assertNull(outcome.failureAt(1));
+        assertEquals(1, outcome.staleSkipped());
+    }
+
+    @Test
+    void shouldFailDuplicateKeyErrorsOutsideVersionGuardedMode() {
+        enableBulkWrites(1);
+        var duplicateKey = new BulkWriteError(11000,
+                "E11000 duplicate key error collection: pocs.clients index: _id_ dup key: { _id: \"CLI-001\" }",
+                new BsonDocument(), 0);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.error(new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(duplicateKey), null, new ServerAddress(), Set.of())));
+
+        StepVerifier.create(persistenceService.persistEntity(
+                        ClientEntity.builder().id("CLI-001").version(1L).build(), EventType.CLIENT, message("clients", "key1")))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldApplyCollectionDurabilityToBulkWrites() {
+        enableBulkWrites(1);
+        var durability = properties.getPersistence().settingsFor("clients").getDurability();
+        durability.setW("majority");
+        durability.setJournal(true);
+        durability.setWtimeout(Duration.ofSeconds(2));
+        durability.setOrdered(true);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        StepVerifier.create(persistenceService.persistEntity(
+                        ClientEntity.builder().id("CLI-001").build(), EventType.CLIENT, message("clients", "key1")))
+                .verifyComplete();
+
+        ArgumentCaptor<WriteConcern> writeConcern = ArgumentCaptor.forClass(WriteConcern.class);
+        ArgumentCaptor<BulkWriteOptions> options = ArgumentCaptor.forClass(BulkWriteOptions.class);
+        verify(mongoCollection).withWriteConcern(writeConcern.capture());
+        verify(mongoCollection).bulkWrite(anyList(), options.capture());
+        assertEquals(WriteConcern.MAJORITY.withJournal(true).withWTimeout(2, TimeUnit.SECONDS), writeConcern.getValue());
+        assertTrue(options.getValue().isOrdered());
+    }
+
+    @Test
+    void shouldResolveSaveWriteConcernPerCollection() {
+        properties.getPersistence().settingsFor("log_offsets").getDurability().setW("1");
+        properties.getPersistence().settingsFor("log_offsets").getDurability().setJournal(false);
+        var resolver = new DurabilityPolicy(properties.getPersistence());
+
+        assertEquals(WriteConcern.W1.withJournal(false), resolver.writeConcernFor("log_offsets", WriteConcern.ACKNOWLEDGED));
+        assertEquals(WriteConcern.MAJORITY, resolver.writeConcernFor("clients", WriteConcern.MAJORITY));
+        verify(mongoTemplate, never()).setWriteConcernResolver(any());
+    }
+
+    @Test
+    void shouldFailDocumentsAfterFirstErrorOfOrderedBulkWrite() {
+        var error = new BulkWriteError(121, "Document failed validation", new BsonDocument(), 1);
+        var exception = new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of());
+
+        var ordered = BulkWriteOutcome.from(exception, false, true);
+        var unordered = BulkWriteOutcome.from(exception, false, false);
+
+        assertNull(ordered.failureAt(0));
+        assertNotNull(ordered.failureAt(1));
+        assertNotNull(ordered.failureAt(2));
+        assertNull(unordered.failureAt(2));
+    }
+
+    @Test
+    void shouldInsertTimeSeriesMeasurementsAfterCreatingCollection() {
+        var collectionSettings = properties.getPersistence().settingsFor("user_access");
+        collectionSettings.setStorage(IngestionProperties.Storage.TIME_SERIES);
+        collectionSettings.setMaxDocuments(1);
+        collectionSettings.getTimeSeries().setTimeField("accessTime");
+        collectionSettings.getTimeSeries().setMetaFields(List.of("userId", "resourceId"));
+        when(mongoTemplate.getCollectionName(UserAccessEntity.class)).thenReturn("user_access");
+        when(mongoTemplate.getConverter())
+                .thenReturn(mongoConverter());
+        when(mongoTemplate.getMongoDatabase()).thenReturn(Mono.just(mongoDatabase));
+        when(mongoDatabase.createCollection(eq("user_access"), any(CreateCollectionOptions.class))).thenReturn(Mono.empty());
+        when(mongoTemplate.getCollection("user_access")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.withWriteConcern(any())).thenReturn(mongoCollection);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        var access = UserAccessEntity.builder().id("ACCESS-001").userId("123").resourceId("dashboard")
+                .action("VIEW").accessTime(Instant.parse("2024-10-20T10:30:00Z")).build();
+
+        StepVerifier.create(persistenceService.persistEntity(access, EventType.USER_ACCESS, message("user-access", "key1")))
+                .verifyComplete();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        var measurement = ((InsertOneModel<Document>) models.getValue().get(0)).getDocument();
+        assertEquals(new Document("userId", "123").append("resourceId", "dashboard"), measurement.get("meta"));
+        assertFalse(measurement.containsKey("userId"));
+        assertEquals(Date.from(Instant.parse("2024-10-20T10:30:00Z")), measurement.get("accessTime"));
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    @Test
+    void shouldStoreKafkaCoordinatesAndGuardUpsertWithThem() {
+        enableBulkWrites(1);
+        properties.getPersistence().settingsFor("clients").setWriteMode(IngestionProperties.WriteMode.OFFSET_GUARDED);
+        when(mongoCollection.createIndex(any(Bson.class), any(IndexOptions.class))).thenReturn(Mono.just("kafka_coordinates"));
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        var message = Message.<String>builder().topic("clients").partition(2).offset(41L).key("key1").build();
+
+        StepVerifier.create(persistenceService.persistEntity(
+                        ClientEntity.builder().id("CLI-001").build(), EventType.CLIENT, message))
+                .verifyComplete();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        var upsert = (ReplaceOneModel<Document>) models.getValue().get(0);
+        assertEquals(new Document("topic", "clients").append("partition", 2).append("offset", 41L),
+                upsert.getReplacement().get("_kafka"));
+        assertEquals(Filters.and(Filters.eq("_id", "CLI-001"), Filters.nor(Filters.and(
+                        Filters.eq("_kafka.topic", "clients"),
+                        Filters.eq("_kafka.partition", 2),
+                        Filters.gte("_kafka.offset", 41L)))),
+                upsert.getFilter());
+        verify(mongoCollection).createIndex(any(Bson.class), any(IndexOptions.class));
+    }
+
+    @Test
+    void shouldOrderEnvelopeRecordsSharingAnOffsetByTheirIndex() {
+        enableBulkWrites(1);
+        properties.getPersistence().settingsFor("clients").setWriteMode(IngestionProperties.WriteMode.OFFSET_GUARDED);
+        when(mongoCollection.createIndex(any(Bson.class), any(IndexOptions.class))).thenReturn(Mono.just("kafka_coordinates"));
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        var message = Message.<String>builder().topic("clients").partition(2).offset(41L).envelopeIndex(3).build();
+
+        StepVerifier.create(persistenceService.persistEntity(
+                        ClientEntity.builder().id("CLI-001").build(), EventType.CLIENT, message))
+                .verifyComplete();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        var upsert = (ReplaceOneModel<Document>) models.getValue().get(0);
+        assertEquals(3, upsert.getReplacement().get("_kafka", Document.class).get("envelopeIndex"));
+        assertEquals(Filters.and(Filters.eq("_id", "CLI-001"), Filters.nor(Filters.and(
+                        Filters.eq("_kafka.topic", "clients"),
+                        Filters.eq("_kafka.partition", 2),
+                        Filters.or(
+                                Filters.gt("_kafka.offset", 41L),
+                                Filters.and(
+                                        Filters.eq("_kafka.offset", 41L),
+                                        Filters.gte("_kafka.envelopeIndex", 3)))))),
+                upsert.getFilter());
+    }
+
+    @Test
+    void shouldSaveRawDocumentToEntityCollectionWithoutMapping() {
+        var raw = RawEntity.parse(ClientEntity.class, "{\"id\": 7, \"clientName\": \"Acme\"}");
+        when(mongoTemplate.getCollectionName(ClientEntity.class)).thenReturn("clients");
+        when(mongoTemplate.save(raw.document(), "clients")).thenReturn(Mono.just(raw.document()));
+
+        StepVerifier.create(persistenceService.persistEntity(raw, EventType.CLIENT, message("clients", "key1")))
+                .verifyComplete();
+
+        verify(mongoTemplate).save(raw.document(), "clients");
+        verify(mongoTemplate, never()).getConverter();
+    }
+
+    @Test
+    void shouldUpsertRawDocumentsByPayloadIdInBulk() {
+        properties.getPersistence().setBulkEnabled(true);
+        properties.getPersistence().settingsFor("clients").setMaxDocuments(1);
+        when(mongoTemplate.getCollectionName(ClientEntity.class)).thenReturn("clients");
+        when(mongoTemplate.getCollection("clients")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.withWriteConcern(any())).thenReturn(mongoCollection);
+        when(mongoCollection.bulkWrite(anyList(), any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        var raw = RawEntity.parse(ClientEntity.class, "{\"id\": 7, \"clientName\": \"Acme\"}");
+
+        StepVerifier.create(persistenceService.persistEntity(raw, EventType.CLIENT, message("clients", "key1")))
+                .verifyComplete();
+
+        ArgumentCaptor<List<WriteModel<Document>>> models = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection).bulkWrite(models.capture(), any());
+        var upsert = (ReplaceOneModel<Document>) models.getValue().get(0);
+        assertEquals(new Document("_id", "7").append("clientName", "Acme"), upsert.getReplacement());
+        assertEquals(Filters.eq("_id", "7"), upsert.getFilter());
+        verify(mongoTemplate, never()).getConverter();
+    }
+
+    @Test
+    void shouldReadLastAppliedOffsetOfPartition() {
+        FindPublisher<Document> findPublisher = mock(FindPublisher.class);
+        when(mongoTemplate.getCollection("clients")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.find(any(Bson.class))).thenReturn(findPublisher);
+        when(findPublisher.sort(any())).thenReturn(findPublisher);
+        when(findPublisher.projection(any())).thenReturn(findPublisher);
+        when(findPublisher.first()).thenReturn(Mono.just(
+                new Document("_kafka", new Document("topic", "clients").append("partition", 2).append("offset", 99L))));
+
+        StepVerifier.create(persistenceService.lastAppliedOffset(ClientEntity.class, "clients", 2))
+                .expectNext(99L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldJournalWriteWhenMongoIsUnreachable() {
+        ClientEntity clientEntity = ClientEntity.builder().id("CLI-001").version(1L).build();
+        when(mongoTemplate.save(clientEntity)).thenReturn(Mono.error(new MongoSocketException("down", new ServerAddress())));
+        when(mongoTemplate.getConverter())
+                .thenReturn(mongoConverter());
+        when(journal.append(eq("clients"), eq(IngestionProperties.WriteMode.REPLACE), any())).thenReturn(true);
+
+        StepVerifier.create(persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "key1")))
+                .verifyComplete();
+
+        ArgumentCaptor<Document> journaled = ArgumentCaptor.forClass(Document.class);
+        verify(journal).append(eq("clients"), eq(IngestionProperties.WriteMode.REPLACE), journaled.capture());
+        assertEquals("CLI-001", journaled.getValue().get("_id"));
+    }
+
+    @Test
+    void shouldReportOriginalFailureWhenJournalRejectsWrite() {
+        ClientEntity clientEntity = ClientEntity.builder().id("CLI-001").build();
+        when(mongoTemplate.save(clientEntity)).thenReturn(Mono.error(new MongoSocketException("down", new ServerAddress())));
+        when(mongoTemplate.getConverter())
+                .thenReturn(mongoConverter());
+
+        StepVerifier.create(persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "key1")))
+                .expectError(MongoSocketException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldQueueBehindJournalBacklog() {
+        ClientEntity clientEntity = ClientEntity.builder().id("CLI-001").build();
+        when(journal.hasBacklog()).thenReturn(true);
+        when(mongoTemplate.getConverter())
+                .thenReturn(mongoConverter());
+        when(journal.append(eq("clients"), any(), any())).thenReturn(true);
+
+        StepVerifier.create(persistenceService.persistEntity(clientEntity, EventType.CLIENT, message("clients", "key1")))
+                .verifyComplete();
+
+        verify(mongoTemplate, never()).save(any());
+    }
+
+    private void enableBulkWrites(int maxDocuments) {
+        properties.getPersistence().setBulkEnabled(true);
+        properties.getPersistence().settingsFor("clients").setMaxDocuments(maxDocuments);
+        properties.getPersistence().settingsFor("clients").setMaxLatency(Duration.ofMinutes(1));
+        when(mongoTemplate.getCollectionName(ClientEntity.class)).thenReturn("clients");
+        when(mongoTemplate.getConverter())
+                .thenReturn(mongoConverter());
+        when(mongoTemplate.getCollection("clients")).thenReturn(Mono.just(mongoCollection));
+        when(mongoCollection.withWriteConcern(any())).thenReturn(mongoCollection);
+    }
+
+    private static MappingMongoConverter mongoConverter() {
+        var conversions = new MongoCustomConversions(List.of());
+        var mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        var converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static Message<String> message(String topic, String key) {
+        return Message.<String>builder()
+                .topic(topic)
+                .key(key)
+                .value("{\"id\":\"CLI-001\"}")
+                .build();
+    }
+}
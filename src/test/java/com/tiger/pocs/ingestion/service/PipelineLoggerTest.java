@@ -0,0 +1,112 @@
+package com.tiger.pocs.ingestion.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.RecordTimings;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineLoggerTest {
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(PipelineLogger.class);
+    private Level previousLevel;
+    private IngestionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void shouldLogOneStructuredLinePerSampledRecord() {
+        properties.getLogging().setSampleRate(1.0);
+        var pipelineLogger = new PipelineLogger(properties);
+
+        pipelineLogger.persisted(EventType.CLIENT, new KafkaCoordinates("clientsTopic", 2, 42L), "client-1",
+                RecordTimings.received(-1));
+
+        assertEquals(1, appender.list.size());
+        var line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("PIPELINE: outcome=persisted type=CLIENT topic=clientsTopic partition=2 offset=42 key=client-1"));
+        assertTrue(line.endsWith("serviceMs=-"));
+    }
+
+    @Test
+    void shouldSkipRecordsOfUnsampledTopics() {
+        properties.getLogging().setSampleRate(1.0);
+        properties.getLogging().setTopics(Map.of("logOffsetsTopic", 0.0));
+        var pipelineLogger = new PipelineLogger(properties);
+
+        for (int i = 0; i < 100; i++) {
+            pipelineLogger.persisted(EventType.LOG_OFFSET, new KafkaCoordinates("logOffsetsTopic", 0, i), null, null);
+        }
+
+        assertTrue(appender.list.isEmpty());
+        assertFalse(pipelineLogger.sampled("logOffsetsTopic"));
+        assertTrue(pipelineLogger.sampled("clientsTopic"));
+    }
+
+    @Test
+    void shouldAlwaysLogFailuresAndQuarantinedRecords() {
+        properties.getLogging().setSampleRate(0.0);
+        var pipelineLogger = new PipelineLogger(properties);
+        var message = Message.<String>builder().key("k").topic("clientsTopic").partition(1).offset(7L).build();
+
+        pipelineLogger.quarantined(EventType.CLIENT, message, new IllegalArgumentException("bad payload"));
+        pipelineLogger.failed("persist", EventType.CLIENT, message, new IllegalStateException("write timed out"));
+
+        assertEquals(2, appender.list.size());
+        assertEquals(Level.WARN, appender.list.get(0).getLevel());
+        assertTrue(appender.list.get(0).getFormattedMessage().contains("outcome=quarantined type=CLIENT topic=clientsTopic partition=1 offset=7"));
+        assertEquals(Level.ERROR, appender.list.get(1).getLevel());
+        assertTrue(appender.list.get(1).getFormattedMessage().contains("stage=persist"));
+        assertNotNull(appender.list.get(1).getThrowableProxy());
+    }
+
+    @Test
+    void shouldChangeRatesAtRuntime() {
+        var pipelineLogger = new PipelineLogger(properties);
+
+        pipelineLogger.setSampleRate("clientsTopic", 0.5);
+        pipelineLogger.setDefaultSampleRate(0.0);
+
+        assertEquals(Map.of("clientsTopic", 0.5, "default", 0.0), pipelineLogger.sampleRates());
+
+        pipelineLogger.clearSampleRate("clientsTopic");
+
+        assertEquals(0.0, pipelineLogger.sampleRate("clientsTopic"));
+    }
+
+    @Test
+    void shouldRejectRatesOutsideZeroToOne() {
+        var pipelineLogger = new PipelineLogger(properties);
+
+        assertThrows(IllegalArgumentException.class, () -> pipelineLogger.setSampleRate("clientsTopic", 2.0));
+        assertThrows(IllegalArgumentException.class, () -> pipelineLogger.setDefaultSampleRate(Double.NaN));
+        properties.getLogging().setSampleRate(-1);
+        assertThrows(IllegalArgumentException.class, () -> new PipelineLogger(properties));
+    }
+}
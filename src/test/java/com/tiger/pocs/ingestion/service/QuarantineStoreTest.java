@@ -0,0 +1,171 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.domain.MessageAcknowledgment;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuarantineStoreTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+
+    private final IngestionProperties properties = new IngestionProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private QuarantineStore quarantineStore;
+
+    @BeforeEach
+    void setUp() {
+        quarantineStore = new QuarantineStore(mongoTemplate, properties, meterRegistry);
+        lenient().when(mongoTemplate.getCollection("quarantine")).thenReturn(Mono.just(mongoCollection));
+    }
+
+    @Test
+    void shouldInsertBatchWithCoordinatesAndErrorThenAcknowledge() {
+        when(mongoCollection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.just(InsertManyResult.unacknowledged()));
+        var first = record("{ broken", 7L);
+        var second = record("[1, 2]", 8L);
+
+        quarantineStore.flush(List.of(first, second)).block();
+
+        ArgumentCaptor<List<Document>> documents = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection, times(1)).insertMany(documents.capture(), any(InsertManyOptions.class));
+        var stored = documents.getValue().get(0);
+        assertEquals("clients", stored.getString("topic"));
+        assertEquals(3, stored.getInteger("partition"));
+        assertEquals(7L, stored.getLong("offset"));
+        assertEquals("CLIENT", stored.getString("eventType"));
+        assertEquals("Unexpected character", stored.getString("error"));
+        assertEquals("{ broken", stored.getString("payload"));
+        assertTrue(first.acknowledgment().isAcknowledged());
+        assertTrue(second.acknowledgment().isAcknowledged());
+        assertEquals(2.0, meterRegistry.get("ingestion.quarantine.stored").counter().count());
+    }
+
+    @Test
+    void shouldRetryFailedInsertAndAcknowledgeOnlyOnceStored() {
+        properties.getQuarantine().setRetryBackoff(Duration.ofMillis(50));
+        Sinks.One<InsertManyResult> recovered = Sinks.one();
+        when(mongoCollection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.error(new MongoSocketException("down", new ServerAddress())))
+                .thenReturn(recovered.asMono());
+        var record = record("{ broken", 7L);
+
+        StepVerifier.create(quarantineStore.flush(List.of(record)))
+                .expectSubscription()
+                .then(() -> assertFalse(record.acknowledgment().isAcknowledged()))
+                .thenAwait(Duration.ofMillis(100))
+                .then(() -> recovered.tryEmitValue(InsertManyResult.unacknowledged()))
+                .verifyComplete();
+
+        verify(mongoCollection, times(2)).insertMany(anyList(), any(InsertManyOptions.class));
+        assertTrue(record.acknowledgment().isAcknowledged());
+    }
+
+    @Test
+    void shouldDropAndAcknowledgeBatchOnceRetriesAreExhausted() {
+        properties.getQuarantine().setMaxRetries(2);
+        properties.getQuarantine().setRetryBackoff(Duration.ofMillis(1));
+        when(mongoCollection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.error(new MongoSocketException("down", new ServerAddress())));
+        var record = record("{ broken", 7L);
+
+        StepVerifier.create(quarantineStore.flush(List.of(record))).verifyComplete();
+
+        verify(mongoCollection, times(3)).insertMany(anyList(), any(InsertManyOptions.class));
+        assertTrue(record.acknowledgment().isAcknowledged());
+        assertEquals(1.0, meterRegistry.get("ingestion.quarantine.discarded").counter().count());
+        assertEquals(0.0, meterRegistry.get("ingestion.quarantine.stored").counter().count());
+    }
+
+    @Test
+    void shouldDropAndAcknowledgeRecordsBeyondQueueCapacity() {
+        properties.getQuarantine().setQueueCapacity(1);
+        var store = new QuarantineStore(mongoTemplate, properties, meterRegistry);
+        var queued = MessageAcknowledgment.of(() -> { });
+        var overflowing = MessageAcknowledgment.of(() -> { });
+
+        store.quarantine("{ broken", EventType.CLIENT, Message.<String>builder().topic("clients")
+                .acknowledgment(queued).build(), new IllegalStateException("bad"));
+        store.quarantine("[1, 2]", EventType.CLIENT, Message.<String>builder().topic("clients")
+                .acknowledgment(overflowing).build(), new IllegalStateException("bad"));
+
+        assertFalse(queued.isAcknowledged());
+        assertTrue(overflowing.isAcknowledged());
+        assertEquals(1.0, meterRegistry.get("ingestion.quarantine.discarded").counter().count());
+    }
+
+    @Test
+    void shouldTruncateOversizedPayloads() {
+        var document = QuarantineStore.toDocument(record("x".repeat(100), 1L), 10);
+
+        assertEquals("x".repeat(10), document.getString("payload"));
+        assertEquals(100, document.getInteger("payloadBytes"));
+        assertTrue(document.getBoolean("truncated"));
+    }
+
+    @Test
+    void shouldDeferAcknowledgmentUntilStored() {
+        var acknowledgment = MessageAcknowledgment.of(() -> { });
+        var message = Message.<String>builder().topic("clients").acknowledgment(acknowledgment).build();
+
+        quarantineStore.quarantine("{ broken", EventType.CLIENT, message, new IllegalStateException("bad"));
+
+        assertTrue(acknowledgment.isDeferred());
+        assertFalse(acknowledgment.isAcknowledged());
+    }
+
+    @Test
+    void shouldSkipAndAcknowledgeWhenDisabled() {
+        properties.getQuarantine().setEnabled(false);
+        var acknowledgment = MessageAcknowledgment.of(() -> { });
+        var message = Message.<String>builder().topic("clients").acknowledgment(acknowledgment).build();
+
+        quarantineStore.quarantine("{ broken", EventType.CLIENT, message, new IllegalStateException("bad"));
+
+        assertFalse(acknowledgment.isDeferred());
+        assertTrue(acknowledgment.isAcknowledged());
+        assertEquals(1.0, meterRegistry.get("ingestion.quarantine.dropped").counter().count());
+        verifyNoInteractions(mongoCollection);
+    }
+
+    private static QuarantineStore.QuarantinedRecord record(String payload, long offset) {
+        var message = Message.<String>builder()
+                .topic("clients").partition(3).offset(offset).key("key-" + offset)
+                .headers(Map.of())
+                .build();
+        return new QuarantineStore.QuarantinedRecord(payload, EventType.CLIENT, message, "Unexpected character",
+                MessageAcknowledgment.of(() -> { }));
+    }
+}
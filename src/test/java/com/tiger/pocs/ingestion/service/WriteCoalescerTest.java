@@ -0,0 +1,224 @@
+package com.tiger.pocs.ingestion.service;
+
+import com.tiger.pocs.ingestion.domain.*;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import com.tiger.pocs.ingestion.sink.PersistenceSinkRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteCoalescerTest {
+
+    @Mock
+    private PersistenceSinkRouter sinkRouter;
+
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private WriteCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        properties.getCoalescing().setEnabled(true);
+        properties.getCoalescing().setWindow(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new WriteCoalescer(sinkRouter, properties, new LatencyTracker(properties, meterRegistry),
+                new PipelineLogger(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.stop();
+    }
+
+    @Test
+    void shouldKeepHighestVersionPerCollectionAndId() {
+        var batch = List.of(
+                pending(client("1", 1L)),
+                pending(client("1", 3L)),
+                pending(client("1", 2L)),
+                pending(account("1", 1L)),
+                pending(client("2", 1L)));
+
+        var latest = WriteCoalescer.coalesce(batch);
+
+        assertEquals(3, latest.size());
+        assertEquals(3L, latest.get(new WriteCoalescer.CoalescingKey(ClientEntity.class, "1")).entity().getVersion());
+        assertInstanceOf(AccountEntity.class, latest.get(new WriteCoalescer.CoalescingKey(AccountEntity.class, "1")).entity());
+    }
+
+    @Test
+    void shouldPreferLatestArrivalOnEqualOrMissingVersions() {
+        var first = client("1", null);
+        var second = client("1", null);
+
+        var latest = WriteCoalescer.coalesce(List.of(pending(first), pending(second)));
+
+        assertSame(second, latest.values().iterator().next().entity());
+    }
+
+    @Test
+    void shouldAcknowledgeEveryCoalescedRecordAfterSuccessfulWrite() {
+        var acknowledged = new AtomicInteger();
+        var batch = List.of(
+                new WriteCoalescer.PendingWrite(client("1", 1L), EventType.CLIENT, null, MessageAcknowledgment.of(acknowledged::incrementAndGet), null, null),
+                new WriteCoalescer.PendingWrite(client("1", 2L), EventType.CLIENT, null, MessageAcknowledgment.of(acknowledged::incrementAndGet), null, null));
+        when(sinkRouter.saveAll(any(), anyMap())).thenReturn(Mono.empty());
+
+        coalescer.flush(batch).block();
+
+        assertEquals(2, acknowledged.get());
+        ArgumentCaptor<Map<?, KafkaCoordinates>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(sinkRouter).saveAll(eq(EventType.CLIENT), captor.capture());
+        assertEquals(1, captor.getValue().size());
+    }
+
+    @Test
+    void shouldWriteCoordinatesOfTheWinningRecord() {
+        var older = new KafkaCoordinates("clients", 0, 10L);
+        var newer = new KafkaCoordinates("clients", 0, 11L);
+        var winner = client("1", 2L);
+        when(sinkRouter.saveAll(any(), anyMap())).thenReturn(Mono.empty());
+
+        coalescer.flush(List.of(
+                new WriteCoalescer.PendingWrite(winner, EventType.CLIENT, newer, null, null, null),
+                new WriteCoalescer.PendingWrite(client("1", 1L), EventType.CLIENT, older, null, null, null))).block();
+
+        ArgumentCaptor<Map<?, KafkaCoordinates>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(sinkRouter).saveAll(eq(EventType.CLIENT), captor.capture());
+        assertEquals(Map.of(winner, newer), captor.getValue());
+    }
+
+    @Test
+    void shouldRecordLatencyOfSupersededRecordsWithTheWinningWrite() {
+        var coordinates = new KafkaCoordinates("clients", 0, 10L);
+        when(sinkRouter.saveAll(any(), anyMap())).thenReturn(Mono.empty());
+
+        coalescer.flush(List.of(
+                new WriteCoalescer.PendingWrite(client("1", 1L), EventType.CLIENT, coordinates, null,
+                        RecordTimings.received(System.currentTimeMillis()), null),
+                new WriteCoalescer.PendingWrite(client("1", 2L), EventType.CLIENT, coordinates, null,
+                        RecordTimings.received(System.currentTimeMillis()), null))).block();
+
+        assertEquals(2, meterRegistry.get("ingestion.latency").tag("topic", "clients").tag("segment", "service")
+                .timer().count());
+    }
+
+    @Test
+    void shouldRouteEachEventTypeToItsSink() {
+        var client = client("1", 1L);
+        var account = account("1", 1L);
+        when(sinkRouter.saveAll(any(), anyMap())).thenReturn(Mono.empty());
+
+        coalescer.flush(List.of(pending(client), pending(account))).block();
+
+        verify(sinkRouter).saveAll(eq(EventType.CLIENT), argThat(entities -> entities.keySet().equals(Set.of(client))));
+        verify(sinkRouter).saveAll(eq(EventType.ACCOUNT), argThat(entities -> entities.keySet().equals(Set.of(account))));
+    }
+
+    @Test
+    void shouldRetryFailedWriteThenHandEveryRecordToItsFailureHandler() {
+        properties.getPersistence().getRetry().setMaxRetries(1);
+        properties.getPersistence().getRetry().setBackoff(Duration.ofMillis(1));
+        var acknowledgment = MessageAcknowledgment.of(() -> fail("Must not acknowledge a failed write"));
+        var failures = new ArrayList<Throwable>();
+        when(sinkRouter.saveAll(any(), anyMap())).thenReturn(Mono.error(new RuntimeException("Mongo down")));
+
+        assertDoesNotThrow(() -> coalescer.flush(List.of(
+                new WriteCoalescer.PendingWrite(client("1", 1L), EventType.CLIENT, null, acknowledgment, null, failures::add),
+                new WriteCoalescer.PendingWrite(client("1", 2L), EventType.CLIENT, null, null, null, failures::add)))
+                .block());
+
+        verify(sinkRouter, times(2)).saveAll(eq(EventType.CLIENT), anyMap());
+        assertFalse(acknowledgment.isAcknowledged());
+        assertEquals(2, failures.size());
+        assertEquals("Mongo down", failures.get(0).getMessage());
+    }
+
+    @Test
+    void shouldOnlyRetryEventTypeWhoseWriteFailed() {
+        properties.getPersistence().getRetry().setMaxRetries(1);
+        properties.getPersistence().getRetry().setBackoff(Duration.ofMillis(1));
+        when(sinkRouter.saveAll(eq(EventType.CLIENT), anyMap()))
+                .thenReturn(Mono.error(new RuntimeException("Mongo down")))
+                .thenReturn(Mono.empty());
+        when(sinkRouter.saveAll(eq(EventType.ACCOUNT), anyMap())).thenReturn(Mono.empty());
+
+        coalescer.flush(List.of(pending(client("1", 1L)), pending(account("1", 1L)))).block();
+
+        verify(sinkRouter, times(2)).saveAll(eq(EventType.CLIENT), anyMap());
+        verify(sinkRouter, times(1)).saveAll(eq(EventType.ACCOUNT), anyMap());
+    }
+
+    @Test
+    void shouldDeferAcknowledgmentAndFlushWithinWindow() throws InterruptedException {
+        var flushed = new CountDownLatch(1);
+        var written = new ArrayList<Object>();
+        when(sinkRouter.saveAll(any(), anyMap())).thenAnswer(invocation -> {
+            written.addAll(invocation.<Map<?, ?>>getArgument(1).keySet());
+            flushed.countDown();
+            return Mono.empty();
+        });
+        coalescer.start();
+
+        var acknowledgments = new ArrayList<MessageAcknowledgment>();
+        for (long version = 1; version <= 3; version++) {
+            var acknowledgment = MessageAcknowledgment.of(() -> { });
+            acknowledgments.add(acknowledgment);
+            coalescer.submit(client("1", version), EventType.CLIENT, Message.<String>builder().acknowledgment(acknowledgment).build(),
+                    error -> fail(error));
+        }
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, written.size());
+        assertEquals(3L, ((ClientEntity) written.get(0)).getVersion());
+        acknowledgments.forEach(acknowledgment -> assertTrue(acknowledgment.isDeferred()));
+    }
+
+    @Test
+    void shouldOnlyAcceptConfiguredVersionedEntities() {
+        assertTrue(coalescer.accepts(client("1", 1L), EventType.CLIENT));
+        assertFalse(coalescer.accepts(client(null, 1L), EventType.CLIENT));
+        assertFalse(coalescer.accepts(UserAccessEntity.builder().id("UA-1").build(), EventType.USER_ACCESS));
+        assertFalse(coalescer.accepts("raw-payload", EventType.CLIENT));
+
+        properties.getCoalescing().setEnabled(false);
+        assertFalse(coalescer.accepts(client("1", 1L), EventType.CLIENT));
+    }
+
+    private static WriteCoalescer.PendingWrite pending(VersionedEntity entity) {
+        return new WriteCoalescer.PendingWrite(entity,
+                entity instanceof AccountEntity ? EventType.ACCOUNT : EventType.CLIENT, null, null, null, null);
+    }
+
+    private static ClientEntity client(String id, Long version) {
+        return ClientEntity.builder().id(id).version(version).build();
+    }
+
+    private static AccountEntity account(String id, Long version) {
+        return AccountEntity.builder().id(id).version(version).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySinkTest {
+
+    @Test
+    void shouldCountEntitiesPerEventType() {
+        var sink = sink(10);
+
+        StepVerifier.create(sink.persistEntity(client("1"), EventType.CLIENT, null)).verifyComplete();
+        StepVerifier.create(sink.saveAll(EventType.ACCOUNT, entities(client("2"), client("3")))).verifyComplete();
+
+        assertEquals(1, sink.count(EventType.CLIENT));
+        assertEquals(2, sink.count(EventType.ACCOUNT));
+        assertEquals(3, sink.totalCount());
+    }
+
+    @Test
+    void shouldRetainOnlyTheMostRecentEntities() {
+        var sink = sink(2);
+        var second = client("2");
+        var third = client("3");
+
+        sink.saveAll(EventType.CLIENT, entities(client("1"), second, third)).block();
+
+        assertEquals(List.of(second, third), sink.retained());
+        assertEquals(3, sink.count(EventType.CLIENT));
+    }
+
+    @Test
+    void shouldIgnoreNullEntitiesAndResetOnClear() {
+        var sink = sink(10);
+
+        sink.persistEntity(null, EventType.CLIENT, null).block();
+        assertEquals(0, sink.totalCount());
+
+        sink.persistEntity(client("1"), EventType.CLIENT, null).block();
+        sink.clear();
+        assertEquals(0, sink.totalCount());
+        assertTrue(sink.retained().isEmpty());
+    }
+
+    private static InMemorySink sink(int maxRetained) {
+        var properties = new IngestionProperties();
+        properties.getSinks().getMemory().setMaxRetained(maxRetained);
+        return new InMemorySink(properties);
+    }
+
+    private static Map<Object, KafkaCoordinates> entities(Object... entities) {
+        Map<Object, KafkaCoordinates> map = new LinkedHashMap<>();
+        for (Object entity : entities) {
+            map.put(entity, null);
+        }
+        return map;
+    }
+
+    private static ClientEntity client(String id) {
+        return ClientEntity.builder().id(id).version(1L).build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.ingestion.domain.ClientEntity;
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.domain.KafkaCoordinates;
+import com.tiger.pocs.ingestion.domain.Message;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonFileSinkTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private NdjsonFileSink sink;
+
+    @AfterEach
+    void tearDown() {
+        if (sink != null) {
+            sink.close();
+        }
+    }
+
+    @Test
+    void shouldAppendOneLinePerEntityWithCoordinates() throws IOException {
+        sink = sink(DataSize.ofMegabytes(1));
+        var message = Message.<String>builder().topic("clients").partition(2).offset(42L).build();
+
+        StepVerifier.create(sink.persistEntity(client("1"), EventType.CLIENT, message)).verifyComplete();
+        StepVerifier.create(sink.persistEntity(client("2"), EventType.CLIENT, null)).verifyComplete();
+
+        var lines = Files.readAllLines(directory.resolve("client").resolve("segment-000000.ndjson"));
+        assertEquals(2, lines.size());
+        var first = objectMapper.readTree(lines.get(0));
+        assertEquals("1", first.get("id").asText());
+        assertEquals(42L, first.at("/_kafka/offset").asLong());
+        assertEquals("clients", first.at("/_kafka/topic").asText());
+        assertFalse(objectMapper.readTree(lines.get(1)).has(KafkaCoordinates.FIELD));
+    }
+
+    @Test
+    void shouldRollToANewSegmentOnceFull() throws IOException {
+        sink = sink(DataSize.ofBytes(64));
+        Map<Object, KafkaCoordinates> entities = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            entities.put(client(String.valueOf(i)), null);
+        }
+
+        sink.saveAll(EventType.CLIENT, entities).block();
+
+        List<Path> segments = segments(directory.resolve("client"));
+        assertTrue(segments.size() > 1);
+        long lines = 0;
+        for (Path segment : segments) {
+            lines += Files.readAllLines(segment).size();
+        }
+        assertEquals(5, lines);
+    }
+
+    @Test
+    void shouldStartAFreshSegmentAfterReopening() throws IOException {
+        sink = sink(DataSize.ofMegabytes(1));
+        sink.persistEntity(client("1"), EventType.ACCOUNT, null).block();
+        sink.close();
+
+        sink = sink(DataSize.ofMegabytes(1));
+        sink.persistEntity(client("2"), EventType.ACCOUNT, null).block();
+
+        assertEquals(List.of("segment-000000.ndjson", "segment-000001.ndjson"),
+                segments(directory.resolve("account")).stream().map(path -> path.getFileName().toString()).toList());
+    }
+
+    private NdjsonFileSink sink(DataSize segmentSize) {
+        var properties = new IngestionProperties();
+        properties.getSinks().getFile().setDirectory(directory.toString());
+        properties.getSinks().getFile().setSegmentSize(segmentSize);
+        return new NdjsonFileSink(objectMapper, properties);
+    }
+
+    private static List<Path> segments(Path typeDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(typeDirectory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static ClientEntity client(String id) {
+        return ClientEntity.builder().id(id).version(1L).build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.tiger.pocs.ingestion.sink;
+
+import com.tiger.pocs.ingestion.domain.IngestionProperties;
+import com.tiger.pocs.ingestion.service.EventTypeDetector.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceSinkRouterTest {
+
+    private final IngestionProperties properties = new IngestionProperties();
+    private final InMemorySink memory = new InMemorySink(properties);
+
+    @Test
+    void shouldRouteConfiguredEventTypesAndDefaultTheRest() {
+        properties.getSinks().setDefaultSink("memory");
+        var other = new InMemorySink(properties) {
+            @Override
+            public String name() {
+                return "other";
+            }
+        };
+        properties.getSinks().getEventTypes().put(EventType.USER_ACCESS, "other");
+
+        var router = new PersistenceSinkRouter(List.of(memory, other), properties);
+
+        assertSame(other, router.sinkFor(EventType.USER_ACCESS));
+        assertSame(memory, router.sinkFor(EventType.CLIENT));
+        assertSame(memory, router.sinkFor(EventType.UNKNOWN));
+    }
+
+    @Test
+    void shouldDelegateWritesToTheResolvedSink() {
+        properties.getSinks().setDefaultSink("memory");
+        var router = new PersistenceSinkRouter(List.of(memory), properties);
+
+        router.persistEntity("entity", EventType.CLIENT, null).block();
+
+        assertEquals(1, memory.count(EventType.CLIENT));
+    }
+
+    @Test
+    void shouldFailFastOnUnknownSinkNames() {
+        properties.getSinks().setDefaultSink("memory");
+        properties.getSinks().getEventTypes().put(EventType.CLIENT, "cassandra");
+
+        var error = assertThrows(IllegalStateException.class,
+                () -> new PersistenceSinkRouter(List.of(memory), properties));
+        assertTrue(error.getMessage().contains("cassandra"));
+    }
+}
@@ -18,7 +18,7 @@ import java.util.Map;
  */
 public class IngestionTestParameterResolver implements ParameterResolver {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
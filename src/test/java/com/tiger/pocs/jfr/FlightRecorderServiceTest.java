@@ -0,0 +1,87 @@
+package com.tiger.pocs.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    private FlightRecorderService flightRecorderService;
+
+    @BeforeEach
+    void setUp() {
+        flightRecorderService = new FlightRecorderService(directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        flightRecorderService.stop();
+    }
+
+    @Test
+    void shouldReportNoRecordingBeforeStart() {
+        assertEquals("NONE", flightRecorderService.status().get("state"));
+        assertThrows(IllegalStateException.class, flightRecorderService::dump);
+    }
+
+    @Test
+    void shouldRejectSecondStart() {
+        flightRecorderService.start("default", Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> flightRecorderService.start("default", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void shouldRejectUnknownSettings() {
+        assertThrows(IllegalArgumentException.class, () -> flightRecorderService.start("verbose", Duration.ofMinutes(1)));
+        assertEquals("NONE", flightRecorderService.status().get("state"));
+    }
+
+    @Test
+    void shouldDumpPipelineEvents() throws Exception {
+        var status = flightRecorderService.start("default", Duration.ofMinutes(1));
+        assertEquals("RUNNING", status.get("state"));
+        assertTrue(RecordPersistedEvent.isRecording());
+
+        var event = new RecordPersistedEvent();
+        event.begin();
+        event.record("clientsTopic", 2, 42L, 128);
+        event.outcome("clients", true);
+        event.commit();
+
+        Path file = flightRecorderService.dump();
+
+        assertTrue(Files.size(file) > 0);
+        assertEquals(directory, file.getParent());
+        RecordedEvent persisted = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("com.tiger.pocs.RecordPersisted"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("clientsTopic", persisted.getString("topic"));
+        assertEquals(42L, persisted.getLong("offset"));
+        assertEquals("clients", persisted.getString("collection"));
+        assertTrue(persisted.getBoolean("succeeded"));
+    }
+
+    @Test
+    void shouldStopRecording() {
+        flightRecorderService.start("profile", Duration.ofMinutes(1));
+
+        flightRecorderService.stop();
+
+        assertEquals("NONE", flightRecorderService.status().get("state"));
+        assertFalse(RecordPersistedEvent.isRecording());
+    }
+}
@@ -0,0 +1,125 @@
+package com.tiger.pocs.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldReadAppendedRecordsInOrderUntilCommitted() {
+        var journal = open(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        journal.append(bytes("first"));
+        journal.append(bytes("second"));
+
+        var batch = journal.read(10);
+        assertEquals(List.of("first", "second"), strings(batch));
+        assertEquals(2, journal.read(10).size());
+
+        journal.commit(batch);
+        assertTrue(journal.read(10).isEmpty());
+        assertFalse(journal.hasPending());
+        assertEquals(2.0, meterRegistry.get("journal.records.committed").counter().count());
+    }
+
+    @Test
+    void shouldResumeFromCheckpointAfterReopening() {
+        var journal = open(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        journal.append(bytes("consumed"));
+        journal.commit(journal.read(1));
+        journal.append(bytes("pending"));
+        journal.close();
+
+        var reopened = open(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        assertEquals(List.of("pending"), strings(reopened.read(10)));
+
+        reopened.append(bytes("after-restart"));
+        assertEquals(List.of("pending", "after-restart"), strings(reopened.read(10)));
+    }
+
+    @Test
+    void shouldRollSegmentsAndDeleteThemOnceConsumed() throws IOException {
+        var journal = open(DataSize.ofBytes(64), DataSize.ofKilobytes(4));
+        for (int i = 0; i < 6; i++) {
+            assertTrue(journal.append(bytes("record-%02d-padding".formatted(i))));
+        }
+        assertTrue(segmentCount() > 1);
+
+        var batch = journal.read(100);
+        assertEquals(6, batch.size());
+        journal.commit(batch);
+
+        assertEquals(1, segmentCount());
+    }
+
+    @Test
+    void shouldRejectAppendsWhenSizeLimitIsReached() {
+        var journal = open(DataSize.ofBytes(64), DataSize.ofBytes(128));
+        int accepted = 0;
+        while (journal.append(bytes("record-with-padding")) && accepted < 100) {
+            accepted++;
+        }
+
+        assertEquals(4, accepted);
+        assertEquals(1.0, meterRegistry.get("journal.records.rejected").counter().count());
+        assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[128]));
+    }
+
+    @Test
+    void shouldDropTornRecordOnRecovery() throws IOException {
+        var journal = open(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        journal.append(bytes("intact"));
+        journal.append(bytes("torn"));
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory);
+             FileChannel channel = FileChannel.open(files.filter(this::isSegment).findFirst().orElseThrow(),
+                     StandardOpenOption.WRITE)) {
+            // Corrupt the checksum of the second record
+            channel.write(ByteBuffer.allocate(4).putInt(0, 42), 8 + "intact".length() + 4);
+        }
+
+        var reopened = open(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        assertEquals(List.of("intact"), strings(reopened.read(10)));
+    }
+
+    private WriteAheadJournal open(DataSize segmentSize, DataSize maxSize) {
+        return new WriteAheadJournal("test", directory, segmentSize, maxSize, false, meterRegistry);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment).count();
+        }
+    }
+
+    private boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(".log");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(WriteAheadJournal.Batch batch) {
+        return batch.records().stream().map(record -> new String(record, StandardCharsets.UTF_8)).toList();
+    }
+}
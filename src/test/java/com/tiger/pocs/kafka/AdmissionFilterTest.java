@@ -0,0 +1,247 @@
+package com.tiger.pocs.kafka;
+
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import com.tiger.pocs.kafka.support.KafkaTestParameterResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(KafkaTestParameterResolver.class)
+class AdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger passed = new AtomicInteger();
+    private final WebFilterChain chain = exchange -> {
+        passed.incrementAndGet();
+        return Mono.empty();
+    };
+    private KafkaProperties kafkaProperties;
+
+    @BeforeEach
+    void setUp(KafkaProperties testKafkaProperties) {
+        kafkaProperties = testKafkaProperties;
+        kafkaProperties.getAdmission().setEnabled(true);
+    }
+
+    @Test
+    void shouldRejectCallerOverItsBucketWithRetryAfter() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(0.5);
+        kafkaProperties.getAdmission().getCaller().setBurst(2);
+        var filter = filter();
+
+        assertNull(publish(filter, "clientsTopic", "key-a", "10.0.0.1").getStatusCode());
+        assertNull(publish(filter, "clientsTopic", "key-a", "10.0.0.2").getStatusCode());
+        var rejected = publish(filter, "clientsTopic", "key-a", "10.0.0.3");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals("2", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        // Another caller has a bucket of its own
+        assertNull(publish(filter, "clientsTopic", "key-b", "10.0.0.3").getStatusCode());
+        assertEquals(3, passed.get());
+        assertEquals(1.0, meterRegistry.get("kafka.admission.rejected").tag("reason", "caller").counter().count());
+    }
+
+    @Test
+    void shouldIdentifyCallersWithoutKeyByAddress() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(1);
+        kafkaProperties.getAdmission().getCaller().setBurst(1);
+        var filter = filter();
+
+        assertNull(publishFrom(filter, "10.0.0.1").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, publishFrom(filter, "10.0.0.1").getStatusCode());
+        assertNull(publishFrom(filter, "10.0.0.2").getStatusCode());
+    }
+
+    @Test
+    void shouldIdentifyCallersBehindTrustedProxyByForwardedAddress() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(1);
+        kafkaProperties.getAdmission().getCaller().setBurst(1);
+        kafkaProperties.getAdmission().setTrustedProxies(List.of("10.0.0.100"));
+        var filter = filter();
+
+        assertNull(publishThrough(filter, "10.0.0.100", "192.168.1.1").getStatusCode());
+        assertNull(publishThrough(filter, "10.0.0.100", "192.168.1.2").getStatusCode());
+        // Only the entry the trusted proxy appended counts, not what the client put in front of it
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                publishThrough(filter, "10.0.0.100", "192.168.1.3, 192.168.1.1").getStatusCode());
+    }
+
+    @Test
+    void shouldIgnoreForwardedAddressFromUntrustedPeer() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(1);
+        kafkaProperties.getAdmission().getCaller().setBurst(1);
+        var filter = filter();
+
+        assertNull(publishThrough(filter, "10.0.0.1", "192.168.1.1").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, publishThrough(filter, "10.0.0.1", "192.168.1.2").getStatusCode());
+    }
+
+    @Test
+    void shouldLimitAddressOfCallersSendingNewKeys() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(1);
+        kafkaProperties.getAdmission().getCaller().setBurst(2);
+        var filter = filter();
+
+        assertNull(publish(filter, "clientsTopic", "key-1", "10.0.0.1").getStatusCode());
+        assertNull(publish(filter, "clientsTopic", "key-2", "10.0.0.1").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                publish(filter, "clientsTopic", "key-3", "10.0.0.1").getStatusCode());
+        // The rejected key did not lose its token to the address limit
+        assertNull(publish(filter, "clientsTopic", "key-3", "10.0.0.2").getStatusCode());
+        assertNull(publish(filter, "clientsTopic", "key-3", "10.0.0.3").getStatusCode());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedCallersOverCap() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(0.001);
+        kafkaProperties.getAdmission().getCaller().setBurst(1);
+        kafkaProperties.getAdmission().setMaxTrackedCallers(2);
+        var filter = filter();
+
+        assertNull(publish(filter, "clientsTopic", "key-a", "10.0.0.1").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                publish(filter, "clientsTopic", "key-a", "10.0.0.1").getStatusCode());
+        assertNull(publish(filter, "clientsTopic", "key-b", "10.0.0.2").getStatusCode());
+
+        // Both buckets of the first caller were evicted, so it starts over from full ones
+        assertNull(publish(filter, "clientsTopic", "key-a", "10.0.0.1").getStatusCode());
+    }
+
+    @Test
+    void shouldLimitTopicsOverAllCallers() {
+        var rateLimit = new KafkaProperties.RateLimit();
+        rateLimit.setRatePerSecond(1);
+        rateLimit.setBurst(1);
+        kafkaProperties.getTopics().get("clientsTopic").setRateLimit(rateLimit);
+        var filter = filter();
+
+        assertNull(publish(filter, "clientsTopic", "key-a").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, publish(filter, "clientsTopic", "key-b").getStatusCode());
+        assertNull(publish(filter, "accountsTopic", "key-b").getStatusCode());
+
+        filter.clearTopicLimit("clientsTopic");
+        assertNull(publish(filter, "clientsTopic", "key-c").getStatusCode());
+    }
+
+    @Test
+    void shouldGiveBackCallerTokenWhenTopicRejects() {
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(0.001);
+        kafkaProperties.getAdmission().getCaller().setBurst(2);
+        var rateLimit = new KafkaProperties.RateLimit();
+        rateLimit.setRatePerSecond(0.001);
+        rateLimit.setBurst(1);
+        kafkaProperties.getTopics().get("clientsTopic").setRateLimit(rateLimit);
+        var filter = filter();
+
+        assertNull(publish(filter, "clientsTopic", "key-a").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, publish(filter, "clientsTopic", "key-a").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, publish(filter, "clientsTopic", "key-a").getStatusCode());
+
+        assertNull(publish(filter, "accountsTopic", "key-a").getStatusCode());
+        assertEquals(2.0, meterRegistry.get("kafka.admission.rejected").tag("reason", "topic").counter().count());
+    }
+
+    @Test
+    void shouldRejectOverConcurrencyCapUntilRequestsComplete() {
+        kafkaProperties.getAdmission().setMaxConcurrent(1);
+        kafkaProperties.getAdmission().setRetryAfter(Duration.ofSeconds(3));
+        var filter = filter();
+        Sinks.Empty<Void> firstRequest = Sinks.empty();
+
+        var first = exchange("clientsTopic", "key-a");
+        filter.filter(first, exchange -> firstRequest.asMono()).subscribe();
+        assertEquals(1, filter.limits().get("inFlight"));
+
+        var rejected = publish(filter, "clientsTopic", "key-b");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals("3", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        firstRequest.tryEmitEmpty();
+        assertEquals(0, filter.limits().get("inFlight"));
+        assertNull(publish(filter, "clientsTopic", "key-b").getStatusCode());
+    }
+
+    @Test
+    void shouldApplyLimitsChangedAtRuntime() {
+        var filter = filter();
+        assertNull(publish(filter, "clientsTopic", "key-a").getStatusCode());
+
+        filter.setCallerLimit(1, 1);
+        assertNull(publish(filter, "clientsTopic", "key-a").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, publish(filter, "clientsTopic", "key-a").getStatusCode());
+
+        filter.setCallerLimit(0, 0);
+        assertNull(publish(filter, "clientsTopic", "key-a").getStatusCode());
+        assertThrows(IllegalArgumentException.class, () -> filter.setTopicLimit("clientsTopic", 5, 0));
+    }
+
+    @Test
+    void shouldOnlyGuardPublishRequests() {
+        kafkaProperties.getAdmission().setMaxConcurrent(1);
+        kafkaProperties.getAdmission().getCaller().setRatePerSecond(1);
+        kafkaProperties.getAdmission().getCaller().setBurst(1);
+        var filter = filter();
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/kafka/health")), chain).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/kafka/health")), chain).block();
+        kafkaProperties.getAdmission().setEnabled(false);
+        publish(filter, "clientsTopic", "key-a");
+        publish(filter, "clientsTopic", "key-a");
+
+        assertEquals(4, passed.get());
+    }
+
+    private AdmissionFilter filter() {
+        return new AdmissionFilter(kafkaProperties, meterRegistry);
+    }
+
+    private ServerHttpResponse publish(AdmissionFilter filter, String topic, String apiKey) {
+        var exchange = exchange(topic, apiKey);
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse();
+    }
+
+    private ServerHttpResponse publish(AdmissionFilter filter, String topic, String apiKey, String address) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/kafka?topic=" + topic)
+                .header("X-API-Key", apiKey)
+                .remoteAddress(new InetSocketAddress(address, 40000)));
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse();
+    }
+
+    private ServerHttpResponse publishFrom(AdmissionFilter filter, String address) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/kafka?topic=clientsTopic")
+                .remoteAddress(new InetSocketAddress(address, 40000)));
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse();
+    }
+
+    private ServerHttpResponse publishThrough(AdmissionFilter filter, String proxy, String forwardedFor) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/kafka?topic=clientsTopic")
+                .header("X-Forwarded-For", forwardedFor)
+                .remoteAddress(new InetSocketAddress(proxy, 40000)));
+        filter.filter(exchange, chain).block();
+        return exchange.getResponse();
+    }
+
+    private static MockServerWebExchange exchange(String topic, String apiKey) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/kafka?topic=" + topic)
+                .header("X-API-Key", apiKey));
+    }
+}
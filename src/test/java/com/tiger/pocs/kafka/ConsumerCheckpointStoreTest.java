@@ -0,0 +1,172 @@
+package com.tiger.pocs.kafka;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumerCheckpointStoreTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MongoCollection<Document> mongoCollection;
+    private ConsumerCheckpointStore checkpointStore;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new KafkaProperties();
+        properties.getCheckpoint().setEnabled(true);
+        checkpointStore = new ConsumerCheckpointStore(mongoTemplate, properties, new SimpleMeterRegistry());
+        lenient().when(mongoTemplate.getCollection("consumer_checkpoints")).thenReturn(Mono.just(mongoCollection));
+    }
+
+    @Test
+    void shouldFlushContiguousWatermarkPerPartitionAsMonotonicUpsert() {
+        when(mongoCollection.bulkWrite(anyList())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        var first = checkpointStore.track("ingestion-service", "clients", 0, 10L);
+        checkpointStore.track("ingestion-service", "clients", 0, 11L);
+        var third = checkpointStore.track("ingestion-service", "clients", 0, 12L);
+        checkpointStore.track("ingestion-service", "clients", 1, 3L).run();
+
+        // Offset 12 completed before 11, which holds the checkpoint of partition 0 back
+        first.run();
+        third.run();
+        checkpointStore.flush();
+        checkpointStore.flush();
+
+        ArgumentCaptor<List<WriteModel<Document>>> updates = ArgumentCaptor.forClass(List.class);
+        verify(mongoCollection, times(1)).bulkWrite(updates.capture());
+        assertEquals(2, updates.getValue().size());
+        var partitionZero = update(updates.getValue(), "ingestion-service:clients:0");
+        assertEquals(11L, ((Bson) partitionZero.getUpdate()).toBsonDocument().getDocument("$max").getInt64("offset").getValue());
+        assertTrue(partitionZero.getOptions().isUpsert());
+        assertEquals(4L, ((Bson) update(updates.getValue(), "ingestion-service:clients:1").getUpdate()).toBsonDocument()
+                .getDocument("$max").getInt64("offset").getValue());
+    }
+
+    @Test
+    void shouldNeverFlushBelowStoredCheckpoint() {
+        when(mongoCollection.bulkWrite(anyList())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        checkpointStore.track("ingestion-service", "clients", 0, 10L).run();
+        checkpointStore.flush();
+
+        // Redelivered after a seek: in flight again, but below what was already stored
+        checkpointStore.track("ingestion-service", "clients", 0, 5L);
+        checkpointStore.flush();
+
+        verify(mongoCollection, times(1)).bulkWrite(anyList());
+    }
+
+    @Test
+    void shouldRetryPendingCheckpointsAfterFailedFlush() {
+        when(mongoCollection.bulkWrite(anyList()))
+                .thenReturn(Mono.error(new MongoSocketException("down", new ServerAddress())))
+                .thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        checkpointStore.track("ingestion-service", "clients", 0, 12L).run();
+
+        checkpointStore.flush();
+        checkpointStore.flush();
+        checkpointStore.flush();
+
+        verify(mongoCollection, times(2)).bulkWrite(anyList());
+    }
+
+    @Test
+    void shouldStoreAndForgetRevokedPartitions() {
+        when(mongoCollection.bulkWrite(anyList())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        var late = checkpointStore.track("ingestion-service", "clients", 0, 12L);
+        checkpointStore.track("ingestion-service", "clients", 0, 11L);
+
+        checkpointStore.release("ingestion-service", List.of(new TopicPartition("clients", 0)));
+        late.run();
+        checkpointStore.flush();
+
+        verify(mongoCollection, times(1)).bulkWrite(anyList());
+    }
+
+    @Test
+    void shouldForgetRevokedPartitionsWhenStoringTheirCheckpointTimesOut() {
+        var properties = new KafkaProperties();
+        properties.getCheckpoint().setEnabled(true);
+        properties.getCheckpoint().setTimeout(Duration.ofMillis(20));
+        var store = new ConsumerCheckpointStore(mongoTemplate, properties, new SimpleMeterRegistry());
+        when(mongoCollection.bulkWrite(anyList())).thenReturn(Mono.never());
+        var late = store.track("ingestion-service", "clients", 0, 11L);
+        store.track("ingestion-service", "clients", 0, 10L).run();
+
+        assertDoesNotThrow(() -> store.release("ingestion-service", List.of(new TopicPartition("clients", 0))));
+        late.run();
+        store.flush();
+
+        verify(mongoCollection, times(1)).bulkWrite(anyList());
+    }
+
+    @Test
+    void shouldNotOverlapRevocationWithFlushStillRunning() {
+        var properties = new KafkaProperties();
+        properties.getCheckpoint().setEnabled(true);
+        properties.getCheckpoint().setTimeout(Duration.ofMillis(20));
+        var store = new ConsumerCheckpointStore(mongoTemplate, properties, new SimpleMeterRegistry());
+        when(mongoCollection.bulkWrite(anyList())).thenReturn(Mono.never());
+        store.track("ingestion-service", "clients", 0, 10L).run();
+
+        store.flush();
+        store.release("ingestion-service", List.of(new TopicPartition("clients", 0)));
+
+        verify(mongoCollection, times(1)).bulkWrite(anyList());
+    }
+
+    @Test
+    void shouldLoadStoredOffsetsOfAssignedPartitions() {
+        FindPublisher<Document> findPublisher = mock(FindPublisher.class);
+        when(mongoCollection.find(any(Bson.class))).thenReturn(findPublisher);
+        doAnswer(invocation -> {
+            Flux.just(new Document("_id", "ingestion-service:clients:0")
+                            .append("topic", "clients").append("partition", 0).append("offset", 42L))
+                    .subscribe(invocation.<Subscriber<Document>>getArgument(0));
+            return null;
+        }).when(findPublisher).subscribe(any());
+
+        var offsets = checkpointStore.load("ingestion-service",
+                List.of(new TopicPartition("clients", 0), new TopicPartition("clients", 1)));
+
+        assertEquals(Map.of(new TopicPartition("clients", 0), 42L), offsets);
+    }
+
+    private static UpdateOneModel<Document> update(List<WriteModel<Document>> updates, String id) {
+        return updates.stream()
+                .map(model -> (UpdateOneModel<Document>) model)
+                .filter(model -> model.getFilter().toBsonDocument().getString("_id").getValue().equals(id))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -1,5 +1,6 @@
 package com.tiger.pocs.kafka;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tiger.pocs.kafka.config.KafkaConfigUtils;
 import com.tiger.pocs.kafka.domain.KafkaProperties;
 import com.tiger.pocs.kafka.domain.KafkaResponse;
@@ -34,7 +35,9 @@ class KafkaControllerTest {
     @BeforeEach
     void setUp(KafkaProperties testKafkaProperties) {
         this.kafkaProperties = testKafkaProperties;
-        this.kafkaController = new KafkaController(kafkaProducer, kafkaProperties, kafkaTemplate);
+        kafkaProperties.getTopics().get("clientsTopic").setKeyPointer("/id");
+        this.kafkaController = new KafkaController(kafkaProducer, kafkaProperties, kafkaTemplate,
+                new RecordKeyExtractor(kafkaProperties, new ObjectMapper()));
     }
 
     @Test
@@ -88,6 +91,28 @@ class KafkaControllerTest {
         verify(kafkaProducer).validateAndPublishPayload(topic, null, payload);
     }
 
+    @Test
+    void shouldDeriveKeyFromPayloadWhenNoneIsGiven() {
+        Map<String, Object> payload = Map.of("id", 42, "clientName", "Acme");
+        when(kafkaProducer.validateAndPublishPayload("clientsTopic", "42", payload)).thenReturn(true);
+
+        ResponseEntity<KafkaResponse.PublishResponse> response =
+                kafkaController.publishPayload("clientsTopic", null, payload);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("42", response.getBody().getKey());
+    }
+
+    @Test
+    void shouldKeepKeyGivenByPublisher() {
+        Map<String, Object> payload = Map.of("id", 42);
+        when(kafkaProducer.validateAndPublishPayload("clientsTopic", "custom", payload)).thenReturn(true);
+
+        kafkaController.publishPayload("clientsTopic", "custom", payload);
+
+        verify(kafkaProducer).validateAndPublishPayload("clientsTopic", "custom", payload);
+    }
+
     @Test
     void shouldReturnSanitizedKafkaConfiguration() {
         KafkaProperties sanitizedProps = new KafkaProperties();
@@ -14,6 +14,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
 
 import java.util.concurrent.CompletableFuture;
@@ -34,13 +35,15 @@ class KafkaProducerTest {
     private SendResult<String, Object> sendResult;
     @Mock
     private RecordMetadata recordMetadata;
+    @Mock
+    private ProducerOutbox producerOutbox;
     private KafkaProducer kafkaProducer;
     private KafkaProperties kafkaProperties;
 
     @BeforeEach
     void setUp(KafkaProperties testKafkaProperties) {
         this.kafkaProperties = testKafkaProperties;
-        this.kafkaProducer = new KafkaProducer(kafkaTemplate, kafkaProperties, applicationContext);
+        this.kafkaProducer = new KafkaProducer(kafkaTemplate, kafkaProperties, applicationContext, producerOutbox);
         lenient().when(applicationContext.getBean(KafkaProducer.class)).thenReturn(kafkaProducer);
     }
 
@@ -299,4 +302,82 @@ class KafkaProducerTest {
             verify(kafkaTemplate).send(any(ProducerRecord.class));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnSendFutureWithoutTopicValidation() {
+        // Given
+        CompletableFuture<SendResult<String, Object>> future = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(sendResult.getRecordMetadata()).thenReturn(recordMetadata);
+
+        try (MockedStatic<KafkaConfigUtils> mockedUtils = mockStatic(KafkaConfigUtils.class)) {
+            // When
+            var result = kafkaProducer.send("clientsTopic", "key", "payload");
+            assertFalse(result.isDone());
+            future.complete(sendResult);
+
+            // Then
+            assertSame(sendResult, result.join());
+            mockedUtils.verifyNoInteractions();
+        }
+    }
+
+    @Test
+    void shouldBufferInOutboxWhenClusterIsUnreachable() {
+        when(producerOutbox.isEnabled()).thenReturn(true);
+        when(producerOutbox.append("clientsTopic", "key", "payload")).thenReturn(true);
+
+        try (MockedStatic<KafkaConfigUtils> mockedUtils = mockStatic(KafkaConfigUtils.class)) {
+            mockedUtils.when(() -> KafkaConfigUtils.topicExists("clientsTopic", kafkaProperties))
+                    .thenThrow(new KafkaException("timed out"));
+
+            assertTrue(kafkaProducer.validateAndPublishPayload("clientsTopic", "key", "payload"));
+            verify(producerOutbox).append("clientsTopic", "key", "payload");
+            verifyNoInteractions(kafkaTemplate);
+        }
+    }
+
+    @Test
+    void shouldQueueBehindOutboxBacklog() {
+        when(producerOutbox.isEnabled()).thenReturn(true);
+        when(producerOutbox.hasBacklog()).thenReturn(true);
+        when(producerOutbox.append("clientsTopic", "key", "payload")).thenReturn(true);
+
+        try (MockedStatic<KafkaConfigUtils> mockedUtils = mockStatic(KafkaConfigUtils.class)) {
+            assertTrue(kafkaProducer.validateAndPublishPayload("clientsTopic", "key", "payload"));
+            mockedUtils.verifyNoInteractions();
+            verifyNoInteractions(kafkaTemplate);
+        }
+    }
+
+    @Test
+    void shouldNotBufferMissingOrUnconfiguredTopics() {
+        when(producerOutbox.isEnabled()).thenReturn(true);
+
+        try (MockedStatic<KafkaConfigUtils> mockedUtils = mockStatic(KafkaConfigUtils.class)) {
+            mockedUtils.when(() -> KafkaConfigUtils.topicExists("clientsTopic", kafkaProperties)).thenReturn(false);
+
+            assertFalse(kafkaProducer.validateAndPublishPayload("clientsTopic", "key", "payload"));
+            assertFalse(kafkaProducer.validateAndPublishPayload("randomTopic", "key", "payload"));
+            verify(producerOutbox, never()).append(anyString(), any(), any());
+        }
+    }
+
+    @Test
+    void shouldBufferFailedSendInOutbox() {
+        CompletableFuture<SendResult<String, Object>> future = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(producerOutbox.isEnabled()).thenReturn(true);
+        when(producerOutbox.append("clientsTopic", "key", "payload")).thenReturn(true);
+
+        try (MockedStatic<KafkaConfigUtils> mockedUtils = mockStatic(KafkaConfigUtils.class)) {
+            mockedUtils.when(() -> KafkaConfigUtils.topicExists("clientsTopic", kafkaProperties)).thenReturn(true);
+
+            assertTrue(kafkaProducer.validateAndPublishPayload("clientsTopic", "key", "payload"));
+            verify(producerOutbox, never()).append(anyString(), any(), any());
+
+            future.completeExceptionally(new RuntimeException("Send failed"));
+            verify(producerOutbox).append("clientsTopic", "key", "payload");
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.tiger.pocs.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProducerOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private SendResult<String, Object> sendResult;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KafkaProperties properties;
+    private ProducerOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KafkaProperties();
+        properties.getOutbox().setEnabled(true);
+        properties.getOutbox().setDirectory(directory.toString());
+        properties.getOutbox().setSegmentSize(DataSize.ofKilobytes(4));
+        properties.getOutbox().setMaxSize(DataSize.ofKilobytes(64));
+        properties.getOutbox().setDrainBatchSize(2);
+        properties.getOutbox().setDrainTimeout(Duration.ofSeconds(1));
+        outbox = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.close();
+    }
+
+    @Test
+    void shouldReplayBufferedRecordsInOrder() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(sendResult));
+        assertTrue(outbox.append("clients", "1", Map.of("id", 1, "version", 1)));
+        assertTrue(outbox.append("clients", "1", Map.of("id", 1, "version", 2)));
+        assertTrue(outbox.append("accounts", null, Map.of("id", "ACC-001")));
+        assertTrue(outbox.hasBacklog());
+
+        outbox.drain();
+
+        List<ProducerRecord<String, Object>> records = sentRecords(3);
+        assertEquals(List.of("clients", "clients", "accounts"), records.stream().map(ProducerRecord::topic).toList());
+        assertEquals("1", records.get(0).key());
+        assertNull(records.get(2).key());
+        assertEquals(1, ((JsonNode) records.get(0).value()).get("version").asInt());
+        assertEquals(2, ((JsonNode) records.get(1).value()).get("version").asInt());
+        assertFalse(outbox.hasBacklog());
+        assertEquals(3.0, meterRegistry.get("kafka.outbox.replayed").counter().count());
+    }
+
+    @Test
+    void shouldKeepBatchWhenKafkaIsStillUnavailable() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(sendResult))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+        outbox.append("clients", "1", Map.of("id", 1));
+        outbox.append("clients", "2", Map.of("id", 2));
+
+        outbox.drain();
+
+        assertTrue(outbox.hasBacklog());
+        assertEquals(0.0, meterRegistry.get("kafka.outbox.replayed").counter().count());
+
+        reset(kafkaTemplate);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(sendResult));
+        outbox.drain();
+
+        assertEquals(List.of("1", "2"), sentRecords(2).stream().map(ProducerRecord::key).toList());
+        assertFalse(outbox.hasBacklog());
+    }
+
+    @Test
+    void shouldWaitForBatchStillInFlightInsteadOfResendingIt() {
+        properties.getOutbox().setDrainTimeout(Duration.ofMillis(20));
+        CompletableFuture<SendResult<String, Object>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(pending);
+        outbox.append("clients", "1", Map.of("id", 1));
+
+        outbox.drain();
+        outbox.drain();
+
+        assertTrue(outbox.hasBacklog());
+        sentRecords(1);
+
+        pending.complete(sendResult);
+        outbox.drain();
+
+        assertFalse(outbox.hasBacklog());
+        sentRecords(1);
+        assertEquals(1.0, meterRegistry.get("kafka.outbox.replayed").counter().count());
+    }
+
+    @Test
+    void shouldReplayAfterReopening() {
+        outbox.append("clients", "1", Map.of("id", 1));
+        outbox.close();
+
+        outbox = open();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(sendResult));
+        assertTrue(outbox.hasBacklog());
+        outbox.drain();
+
+        assertEquals("1", sentRecords(1).get(0).key());
+    }
+
+    @Test
+    void shouldDropRecordsOnceDiskBudgetIsUsed() {
+        String payload = "x".repeat(1000);
+        int appended = 0;
+        while (outbox.append("clients", "1", payload)) {
+            appended++;
+        }
+
+        assertTrue(appended > 0);
+        assertEquals(1.0, meterRegistry.get("kafka.outbox.dropped").counter().count());
+    }
+
+    @Test
+    void shouldRejectRecordsWhenDisabled() {
+        outbox.close();
+        properties.getOutbox().setEnabled(false);
+        outbox = open();
+
+        assertFalse(outbox.isEnabled());
+        assertFalse(outbox.append("clients", "1", Map.of("id", 1)));
+        assertFalse(outbox.hasBacklog());
+        outbox.drain();
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private ProducerOutbox open() {
+        var opened = new ProducerOutbox(kafkaTemplate, properties, new ObjectMapper(), meterRegistry);
+        opened.open();
+        return opened;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProducerRecord<String, Object>> sentRecords(int count) {
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(count)).send(captor.capture());
+        return captor.getAllValues();
+    }
+}
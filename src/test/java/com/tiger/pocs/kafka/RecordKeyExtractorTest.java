@@ -0,0 +1,63 @@
+package com.tiger.pocs.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import com.tiger.pocs.kafka.support.KafkaTestParameterResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(KafkaTestParameterResolver.class)
+class RecordKeyExtractorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RecordKeyExtractor extractor;
+
+    @BeforeEach
+    void setUp(KafkaProperties kafkaProperties) {
+        kafkaProperties.getTopics().get("clientsTopic").setKeyPointer("/id");
+        kafkaProperties.getTopics().get("accountsTopic").setKeyPointer("/owner/ids/1");
+        extractor = new RecordKeyExtractor(kafkaProperties, objectMapper);
+    }
+
+    @Test
+    void shouldReadKeyFromDecodedPayload() {
+        assertEquals("42", extractor.extractKey("clientsTopic", Map.of("id", 42, "clientName", "Acme")));
+        assertEquals("B", extractor.extractKey("accountsTopic", Map.of("owner", Map.of("ids", List.of("A", "B")))));
+    }
+
+    @Test
+    void shouldStreamKeyFromRawJson() {
+        String json = "{\"externalReferences\":[{\"id\":\"nested\"}],\"clientName\":\"Acme\",\"id\":7}";
+
+        assertEquals("7", extractor.extractKey("clientsTopic", json));
+        assertEquals("7", extractor.extractKey("clientsTopic", json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("C", extractor.extractKey("accountsTopic", "{\"owner\":{\"ids\":[\"A\",\"C\"]}}"));
+    }
+
+    @Test
+    void shouldReadKeyFromTreeAndObjects() throws Exception {
+        assertEquals("9", extractor.extractKey("clientsTopic", objectMapper.readTree("{\"id\":9}")));
+        assertEquals("ACC-001", extractor.extractKey("clientsTopic", new Identified("ACC-001")));
+    }
+
+    @Test
+    void shouldReturnNullWithoutRuleOrScalarValue() {
+        assertNull(extractor.extractKey("unknownTopic", Map.of("id", 1)));
+        assertNull(extractor.extractKey("clientsTopic", Map.of("clientName", "Acme")));
+        assertNull(extractor.extractKey("clientsTopic", Map.of("id", Map.of("value", 1))));
+        assertNull(extractor.extractKey("clientsTopic", "{\"id\":null}"));
+        assertNull(extractor.extractKey("clientsTopic", "not json"));
+        assertNull(extractor.extractKey("accountsTopic", Map.of("owner", Map.of("ids", List.of("A")))));
+        assertNull(extractor.extractKey("clientsTopic", null));
+    }
+
+    record Identified(String id) {
+    }
+}
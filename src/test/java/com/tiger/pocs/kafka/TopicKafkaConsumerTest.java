@@ -2,7 +2,9 @@ package com.tiger.pocs.kafka;
 
 import com.tiger.pocs.kafka.domain.KafkaMessage;
 import com.tiger.pocs.kafka.processor.*;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,12 +13,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaUtils;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +44,15 @@ class TopicKafkaConsumerTest {
     @Mock
     private UserAccessEventProcessor userAccessEventProcessor;
     
+    @Mock
+    private ConsumerCheckpointStore checkpointStore;
+
+    @Mock
+    private TransactionalCommitter transactionalCommitter;
+
+    @Mock
+    private Consumer<?, ?> kafkaConsumer;
+
     @Mock
     private Acknowledgment acknowledgment;
     
@@ -49,7 +65,9 @@ class TopicKafkaConsumerTest {
             accountEventProcessor, 
             userEventProcessor,
             logOffsetEventProcessor,
-            userAccessEventProcessor
+            userAccessEventProcessor,
+            checkpointStore,
+            transactionalCommitter
         );
     }
 
@@ -60,7 +78,7 @@ class TopicKafkaConsumerTest {
         ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
 
         // When
-        consumer.handleClientsMessage(record, acknowledgment);
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(clientEventProcessor).processClientMessage(messageCaptor.capture());
@@ -74,6 +92,97 @@ class TopicKafkaConsumerTest {
         assertEquals(100L, capturedMessage.getOffset());
     }
 
+    @Test
+    void shouldTrackRecordFromReceiptAndCompleteItWhenAcknowledgingInCheckpointMode() {
+        ConsumerRecord<String, String> record = createConsumerRecord("clients-topic", "client-key", "client-value");
+        Runnable processed = mock(Runnable.class);
+        when(checkpointStore.isEnabled()).thenReturn(true);
+        when(checkpointStore.track("ingestion-service", "clients-topic", record.partition(), record.offset()))
+                .thenReturn(processed);
+        KafkaUtils.setConsumerGroupId("ingestion-service");
+        try {
+            consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
+        } finally {
+            KafkaUtils.clearConsumerGroupId();
+        }
+
+        var inOrder = inOrder(checkpointStore, clientEventProcessor, processed, acknowledgment);
+        inOrder.verify(checkpointStore).track("ingestion-service", "clients-topic", record.partition(), record.offset());
+        inOrder.verify(clientEventProcessor).processClientMessage(any());
+        inOrder.verify(processed).run();
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void shouldStoreAndReleaseCheckpointsOfRevokedPartitions() {
+        var revoked = List.of(new TopicPartition("clients-topic", 0));
+        when(checkpointStore.isEnabled()).thenReturn(true);
+        KafkaUtils.setConsumerGroupId("ingestion-service");
+        try {
+            consumer.onPartitionsRevoked(revoked);
+        } finally {
+            KafkaUtils.clearConsumerGroupId();
+        }
+
+        verify(checkpointStore).release("ingestion-service", revoked);
+    }
+
+    @Test
+    void shouldSeekAssignedPartitionsToCheckpointedOffsets() {
+        var checkpointed = new TopicPartition("clients-topic", 0);
+        var fresh = new TopicPartition("clients-topic", 1);
+        var callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+        when(checkpointStore.isEnabled()).thenReturn(true);
+        when(checkpointStore.load(eq("ingestion-service"), any())).thenReturn(Map.of(checkpointed, 42L));
+
+        KafkaUtils.setConsumerGroupId("ingestion-service");
+        try {
+            consumer.onPartitionsAssigned(Map.of(checkpointed, 10L, fresh, 0L), callback);
+        } finally {
+            KafkaUtils.clearConsumerGroupId();
+        }
+
+        verify(callback).seek("clients-topic", 0, 42L);
+        verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    void shouldKeepKafkaOffsetsWhenCheckpointsAreDisabled() {
+        var callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+
+        consumer.onPartitionsAssigned(Map.of(new TopicPartition("clients-topic", 0), 10L), callback);
+
+        verifyNoInteractions(callback);
+        verify(checkpointStore, never()).load(any(), any());
+    }
+
+    @Test
+    void shouldQueueRecordForTransactionInsteadOfAcknowledging() {
+        ConsumerRecord<String, String> record = createConsumerRecord("clients-topic", "client-key", "client-value");
+        when(transactionalCommitter.isEnabled()).thenReturn(true);
+        var processed = mock(Runnable.class);
+        when(transactionalCommitter.track(kafkaConsumer, record, acknowledgment)).thenReturn(processed);
+
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
+
+        verify(processed).run();
+        verifyNoInteractions(acknowledgment, checkpointStore);
+    }
+
+    @Test
+    void shouldCommitProcessedRecordsWhenPartitionsAreRevokedInTransactionalMode() {
+        when(transactionalCommitter.isEnabled()).thenReturn(true);
+
+        KafkaUtils.setConsumerGroupId("ingestion-service");
+        try {
+            consumer.onPartitionsRevoked(List.of(new TopicPartition("clients-topic", 0)));
+        } finally {
+            KafkaUtils.clearConsumerGroupId();
+        }
+
+        verify(transactionalCommitter).release("ingestion-service", List.of(new TopicPartition("clients-topic", 0)));
+    }
+
     @Test
     void shouldHandleAccountsMessageSuccessfully() {
         // Given
@@ -81,7 +190,7 @@ class TopicKafkaConsumerTest {
         ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
 
         // When
-        consumer.handleAccountsMessage(record, acknowledgment);
+        consumer.handleAccountsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(accountEventProcessor).processAccountMessage(messageCaptor.capture());
@@ -98,7 +207,7 @@ class TopicKafkaConsumerTest {
         ConsumerRecord<String, String> record = createConsumerRecord("users-topic", "user-key", "user-value");
 
         // When
-        consumer.handleUsersMessage(record, acknowledgment);
+        consumer.handleUsersMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(userEventProcessor).processUserMessage(any(KafkaMessage.class));
@@ -111,7 +220,7 @@ class TopicKafkaConsumerTest {
         ConsumerRecord<String, String> record = createConsumerRecord("log-offset-topic", "log-key", "log-value");
 
         // When
-        consumer.handleLogOffsetMessage(record, acknowledgment);
+        consumer.handleLogOffsetMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(logOffsetEventProcessor).processLogOffsetMessage(any(KafkaMessage.class));
@@ -124,7 +233,7 @@ class TopicKafkaConsumerTest {
         ConsumerRecord<String, String> record = createConsumerRecord("user-access-topic", "access-key", "access-value");
 
         // When
-        consumer.handleUserAccessMessage(record, acknowledgment);
+        consumer.handleUserAccessMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(userAccessEventProcessor).processUserAccessMessage(any(KafkaMessage.class));
@@ -143,7 +252,7 @@ class TopicKafkaConsumerTest {
         );
 
         // When
-        consumer.handleClientsMessage(record, acknowledgment);
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
@@ -164,7 +273,7 @@ class TopicKafkaConsumerTest {
         doThrow(new RuntimeException("Processing failed")).when(clientEventProcessor).processClientMessage(any());
 
         // When
-        consumer.handleClientsMessage(record, acknowledgment);
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(clientEventProcessor).processClientMessage(any(KafkaMessage.class));
@@ -178,7 +287,7 @@ class TopicKafkaConsumerTest {
         doThrow(new RuntimeException("Account processing failed")).when(accountEventProcessor).processAccountMessage(any());
 
         // When
-        consumer.handleAccountsMessage(record, acknowledgment);
+        consumer.handleAccountsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(accountEventProcessor).processAccountMessage(any(KafkaMessage.class));
@@ -192,7 +301,7 @@ class TopicKafkaConsumerTest {
         doThrow(new RuntimeException("User processing failed")).when(userEventProcessor).processUserMessage(any());
 
         // When
-        consumer.handleUsersMessage(record, acknowledgment);
+        consumer.handleUsersMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(userEventProcessor).processUserMessage(any(KafkaMessage.class));
@@ -206,7 +315,7 @@ class TopicKafkaConsumerTest {
         doThrow(new RuntimeException("Log offset processing failed")).when(logOffsetEventProcessor).processLogOffsetMessage(any());
 
         // When
-        consumer.handleLogOffsetMessage(record, acknowledgment);
+        consumer.handleLogOffsetMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(logOffsetEventProcessor).processLogOffsetMessage(any(KafkaMessage.class));
@@ -220,7 +329,7 @@ class TopicKafkaConsumerTest {
         doThrow(new RuntimeException("User access processing failed")).when(userAccessEventProcessor).processUserAccessMessage(any());
 
         // When
-        consumer.handleUserAccessMessage(record, acknowledgment);
+        consumer.handleUserAccessMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         verify(userAccessEventProcessor).processUserAccessMessage(any(KafkaMessage.class));
@@ -235,7 +344,7 @@ class TopicKafkaConsumerTest {
         );
 
         // When
-        consumer.handleClientsMessage(record, acknowledgment);
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
@@ -254,7 +363,7 @@ class TopicKafkaConsumerTest {
         );
 
         // When
-        consumer.handleClientsMessage(record, acknowledgment);
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
@@ -274,7 +383,7 @@ class TopicKafkaConsumerTest {
         );
 
         // When
-        consumer.handleClientsMessage(record, acknowledgment);
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
 
         // Then
         ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
@@ -284,6 +393,29 @@ class TopicKafkaConsumerTest {
         assertEquals(Instant.ofEpochMilli(timestamp), message.getTimestamp());
     }
 
+    @Test
+    void shouldLeaveAcknowledgmentToPipelineWhenDeferred() {
+        // Given
+        ConsumerRecord<String, String> record = createConsumerRecord("clients-topic", "client-key", "client-value");
+        ArgumentCaptor<KafkaMessage<String>> messageCaptor = ArgumentCaptor.forClass(KafkaMessage.class);
+        doAnswer(invocation -> {
+            KafkaMessage<String> message = invocation.getArgument(0);
+            message.getAcknowledgment().defer();
+            return null;
+        }).when(clientEventProcessor).processClientMessage(any());
+
+        // When
+        consumer.handleClientsMessage(record, acknowledgment, kafkaConsumer);
+
+        // Then
+        verify(clientEventProcessor).processClientMessage(messageCaptor.capture());
+        verify(acknowledgment, never()).acknowledge();
+
+        messageCaptor.getValue().getAcknowledgment().acknowledge();
+        messageCaptor.getValue().getAcknowledgment().acknowledge();
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
     private ConsumerRecord<String, String> createConsumerRecord(String topic, String key, String value) {
         return new ConsumerRecord<String, String>(topic, 0, 100L, key, value);
     }
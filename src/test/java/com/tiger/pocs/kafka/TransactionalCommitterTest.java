@@ -0,0 +1,216 @@
+package com.tiger.pocs.kafka;
+
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionalCommitterTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> transactionalTemplate;
+
+    @Mock
+    private KafkaOperations<String, Object> operations;
+
+    @Mock
+    private ObjectProvider<KafkaTemplate<String, Object>> templateProvider;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private static final ConsumerGroupMetadata GROUP_A =
+            new ConsumerGroupMetadata("group-a", 3, "member-a", Optional.empty());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Consumer<?, ?> groupA = consumerOf(GROUP_A);
+    private KafkaProperties properties;
+    private TransactionalCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KafkaProperties();
+        properties.getTransactions().setEnabled(true);
+        properties.getTransactions().setBatchSize(2);
+        when(templateProvider.getIfAvailable()).thenReturn(transactionalTemplate);
+        committer = new TransactionalCommitter(templateProvider, properties, meterRegistry);
+    }
+
+    @Test
+    void shouldCommitNotificationsAndOffsetsInBatchedTransactions() {
+        runTransactions();
+        var groupB = consumerOf(new ConsumerGroupMetadata("group-b", 2, "member-b", Optional.empty()));
+        committer.track(groupA, record("clients", 0, 10, "1"), acknowledgment).run();
+        committer.track(groupA, record("clients", 0, 11, "2"), acknowledgment).run();
+        committer.track(groupB, record("accounts", 1, 5, "ACC-001"), acknowledgment).run();
+
+        committer.flush();
+
+        // Lowest offsets first; the clients partition cut by the batch size stops at its first record left out
+        verify(transactionalTemplate, times(2)).executeInTransaction(any());
+        var inOrder = inOrder(operations);
+        inOrder.verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("accounts", 1), new OffsetAndMetadata(6)), groupB.groupMetadata());
+        inOrder.verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 0), new OffsetAndMetadata(11)), GROUP_A);
+        inOrder.verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 0), new OffsetAndMetadata(12)), GROUP_A);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> notifications = ArgumentCaptor.forClass(Map.class);
+        verify(operations, times(3)).send(eq("ingestion.processed"), anyString(), notifications.capture());
+        assertEquals(List.of(5L, 10L, 11L), notifications.getAllValues().stream().map(n -> n.get("offset")).toList());
+        assertEquals("accounts", notifications.getAllValues().get(0).get("topic"));
+        assertEquals(3.0, meterRegistry.get("kafka.transactions.records.committed").counter().count());
+    }
+
+    @Test
+    void shouldOnlyCommitUpToLowestRecordStillInFlight() {
+        runTransactions();
+        properties.getTransactions().setBatchSize(10);
+        var first = committer.track(groupA, record("clients", 0, 10, "1"), acknowledgment);
+        committer.track(groupA, record("clients", 0, 11, "2"), acknowledgment).run();
+        committer.track(groupA, record("clients", 0, 12, "3"), acknowledgment).run();
+
+        committer.flush();
+        verifyNoInteractions(transactionalTemplate, acknowledgment);
+
+        first.run();
+        committer.flush();
+
+        verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 0), new OffsetAndMetadata(13)), GROUP_A);
+        verify(operations, times(3)).send(eq("ingestion.processed"), anyString(), any());
+
+        committer.flush();
+        verify(transactionalTemplate).executeInTransaction(any());
+        verify(acknowledgment, times(3)).acknowledge();
+    }
+
+    @Test
+    void shouldFenceEachPartitionWithMetadataOfItsOwnConsumer() {
+        runTransactions();
+        var otherMember = new ConsumerGroupMetadata("group-a", 3, "member-b", Optional.empty());
+        committer.track(groupA, record("clients", 0, 10, "1"), acknowledgment).run();
+        committer.track(consumerOf(otherMember), record("clients", 1, 20, "2"), acknowledgment).run();
+
+        committer.flush();
+
+        verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 0), new OffsetAndMetadata(11)), GROUP_A);
+        verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 1), new OffsetAndMetadata(21)), otherMember);
+    }
+
+    @Test
+    void shouldWaitForRevokedRecordsToCompleteBeforeCommitting() throws InterruptedException {
+        runTransactions();
+        properties.getTransactions().setRevokeTimeout(Duration.ofSeconds(10));
+        var inFlight = committer.track(groupA, record("clients", 0, 10, "1"), acknowledgment);
+        var completion = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.run();
+        });
+
+        long start = System.nanoTime();
+        completion.start();
+        committer.release("group-a", List.of(new TopicPartition("clients", 0)));
+        completion.join();
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+        verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 0), new OffsetAndMetadata(11)), GROUP_A);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void shouldRetryAbortedBatchBeforeNewerRecords() {
+        when(transactionalTemplate.executeInTransaction(any()))
+                .thenThrow(new KafkaException("broker unavailable"))
+                .thenAnswer(invocation -> invocation.<KafkaOperations.OperationsCallback<String, Object, Object>>
+                        getArgument(0).doInOperations(operations));
+        committer.track(groupA, record("clients", 0, 10, "1"), acknowledgment).run();
+
+        committer.flush();
+        committer.track(groupA, record("clients", 0, 11, "2"), acknowledgment).run();
+        committer.flush();
+
+        var inOrder = inOrder(operations);
+        inOrder.verify(operations).send(eq("ingestion.processed"), eq("1"), any());
+        inOrder.verify(operations).send(eq("ingestion.processed"), eq("2"), any());
+        assertEquals(1.0, meterRegistry.get("kafka.transactions.aborted").counter().count());
+        assertEquals(2.0, meterRegistry.get("kafka.transactions.records.committed").counter().count());
+    }
+
+    @Test
+    void shouldCommitProcessedRecordsAndForgetRevokedPartitions() {
+        runTransactions();
+        properties.getTransactions().setRevokeTimeout(Duration.ofMillis(20));
+        committer.track(groupA, record("clients", 0, 10, "1"), acknowledgment).run();
+        var stuck = committer.track(groupA, record("clients", 0, 11, "2"), acknowledgment);
+
+        committer.release("group-a", List.of(new TopicPartition("clients", 0)));
+        stuck.run();
+        committer.flush();
+
+        verify(transactionalTemplate).executeInTransaction(any());
+        verify(operations).sendOffsetsToTransaction(
+                Map.of(new TopicPartition("clients", 0), new OffsetAndMetadata(11)), GROUP_A);
+        verify(operations).send(eq("ingestion.processed"), eq("1"), any());
+    }
+
+    @Test
+    void shouldDoNothingWithoutTransactionalTemplate() {
+        when(templateProvider.getIfAvailable()).thenReturn(null);
+        var disabled = new TransactionalCommitter(templateProvider, properties, meterRegistry);
+
+        assertFalse(disabled.isEnabled());
+        disabled.flush();
+        assertTrue(committer.isEnabled());
+        verifyNoInteractions(transactionalTemplate);
+    }
+
+    private void runTransactions() {
+        when(transactionalTemplate.executeInTransaction(any())).thenAnswer(invocation -> invocation
+                .<KafkaOperations.OperationsCallback<String, Object, Object>>getArgument(0).doInOperations(operations));
+    }
+
+    private static Consumer<?, ?> consumerOf(ConsumerGroupMetadata groupMetadata) {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+        lenient().when(consumer.groupMetadata()).thenReturn(groupMetadata);
+        return consumer;
+    }
+
+    private static ConsumerRecord<String, String> record(String topic, int partition, long offset, String key) {
+        return new ConsumerRecord<>(topic, partition, offset, key, "{}");
+    }
+}
@@ -45,6 +45,19 @@ class KafkaConfigurationSupportTest {
         assertTrue(config.get(SaslConfigs.SASL_JAAS_CONFIG).toString().contains("test-key"));
     }
 
+    @Test
+    void shouldReadCommittedAndProduceIdempotentlyInTransactionalMode() {
+        assertFalse(configSupport.buildConsumerConfig(kafkaProperties).containsKey(ConsumerConfig.ISOLATION_LEVEL_CONFIG));
+        kafkaProperties.getTransactions().setEnabled(true);
+
+        assertEquals("read_committed",
+                configSupport.buildConsumerConfig(kafkaProperties).get(ConsumerConfig.ISOLATION_LEVEL_CONFIG));
+        Map<String, Object> producerConfig = configSupport.buildTransactionalProducerConfig(kafkaProperties);
+        assertEquals(true, producerConfig.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals("all", producerConfig.get(ProducerConfig.ACKS_CONFIG));
+        assertTrue(producerConfig.get(SaslConfigs.SASL_JAAS_CONFIG).toString().contains("producer-key"));
+    }
+
     @Test
     void shouldBuildProducerConfigWithDifferentCredentials() {
         Map<String, Object> config = configSupport.buildProducerConfig(kafkaProperties);
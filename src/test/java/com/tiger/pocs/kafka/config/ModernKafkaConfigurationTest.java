@@ -16,7 +16,9 @@ import org.springframework.kafka.listener.ContainerProperties;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -61,9 +63,47 @@ class ModernKafkaConfigurationTest {
     @Test
     void shouldCreateListenerContainerWithManualAck() {
         ConsumerFactory<String, Object> consumerFactory = mock(ConsumerFactory.class);
-        var factory = kafkaConfiguration.kafkaListenerContainerFactory(consumerFactory);
+        var factory = kafkaConfiguration.kafkaListenerContainerFactory(consumerFactory, kafkaProperties);
         assertNotNull(factory);
         assertEquals(ContainerProperties.AckMode.MANUAL_IMMEDIATE, factory.getContainerProperties().getAckMode());
+        assertTrue(factory.getContainerProperties().isAsyncAcks());
+    }
+
+    @Test
+    void shouldCommitAsynchronouslyInCheckpointMode() {
+        ConsumerFactory<String, Object> consumerFactory = mock(ConsumerFactory.class);
+        kafkaProperties.getCheckpoint().setEnabled(true);
+
+        var factory = kafkaConfiguration.kafkaListenerContainerFactory(consumerFactory, kafkaProperties);
+
+        assertEquals(ContainerProperties.AckMode.MANUAL, factory.getContainerProperties().getAckMode());
+        assertFalse(factory.getContainerProperties().isSyncCommits());
+    }
+
+    @Test
+    void shouldCreateTransactionalProducerFactory() {
+        when(configSupport.buildTransactionalProducerConfig(any()))
+                .thenReturn(Map.of("bootstrap.servers", "localhost:9093"));
+        kafkaProperties.getTransactions().setTransactionIdPrefix("test-tx-");
+
+        ProducerFactory<String, Object> factory = kafkaConfiguration.transactionalProducerFactory(kafkaProperties);
+
+        assertTrue(factory.transactionCapable());
+        assertEquals("test-tx-", factory.getTransactionIdPrefix());
+        assertTrue(kafkaConfiguration.transactionalKafkaTemplate(kafkaProperties).isTransactional());
+    }
+
+    @Test
+    void shouldLeaveOffsetCommitsToTransactionsInTransactionalMode() {
+        ConsumerFactory<String, Object> consumerFactory = mock(ConsumerFactory.class);
+        kafkaProperties.getTransactions().setEnabled(true);
+        kafkaProperties.getCheckpoint().setEnabled(true);
+
+        var factory = kafkaConfiguration.kafkaListenerContainerFactory(consumerFactory, kafkaProperties);
+
+        assertEquals(ContainerProperties.AckMode.MANUAL, factory.getContainerProperties().getAckMode());
+        assertTrue(factory.getContainerProperties().isSyncCommits());
+        assertTrue(factory.getContainerProperties().isAsyncAcks());
     }
 
     @Test
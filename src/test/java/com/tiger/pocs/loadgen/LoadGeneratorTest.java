@@ -0,0 +1,130 @@
+package com.tiger.pocs.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiger.pocs.kafka.KafkaProducer;
+import com.tiger.pocs.kafka.domain.KafkaProperties;
+import com.tiger.pocs.kafka.support.KafkaTestParameterResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith({MockitoExtension.class, KafkaTestParameterResolver.class})
+class LoadGeneratorTest {
+
+    // Unthrottled runs send far too many records for Mockito to keep every invocation
+    @Mock(stubOnly = true)
+    private KafkaProducer kafkaProducer;
+
+    @Mock
+    private SendResult<String, Object> sendResult;
+
+    private LoadGenerator loadGenerator;
+
+    @BeforeEach
+    void setUp(KafkaProperties kafkaProperties) {
+        loadGenerator = new LoadGenerator(kafkaProducer, kafkaProperties, new ObjectMapper());
+        lenient().when(kafkaProducer.validateTopicExists(anyString())).thenReturn(true);
+        lenient().when(kafkaProducer.send(anyString(), any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(sendResult));
+    }
+
+    @AfterEach
+    void tearDown() {
+        loadGenerator.stop();
+        loadGenerator.awaitTermination(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldPublishAtMaximumSpeedToConfiguredTopics() {
+        loadGenerator.start(new LoadProfile(0.0, Duration.ofMillis(200), 10, null, 100));
+
+        assertTrue(loadGenerator.awaitTermination(Duration.ofSeconds(5)));
+        var report = loadGenerator.report();
+        long sent = (long) report.get("sent");
+        assertEquals("COMPLETED", report.get("state"));
+        assertTrue(sent > 0);
+        assertEquals(sent, report.get("acknowledged"));
+        assertEquals(0L, report.get("failed"));
+        assertEquals("max", report.get("targetRate"));
+        // Only clientsTopic and accountsTopic are configured in the test properties
+        @SuppressWarnings("unchecked")
+        var sentByTopic = (Map<String, Long>) report.get("sentByTopic");
+        assertTrue(Map.of("clientsTopic", 0L, "accountsTopic", 0L).keySet().containsAll(sentByTopic.keySet()));
+        @SuppressWarnings("unchecked")
+        var latency = (Map<String, Double>) report.get("latencyMs");
+        assertTrue(latency.containsKey("p99"));
+    }
+
+    @Test
+    void shouldHoldTargetRate() {
+        loadGenerator.start(new LoadProfile(200.0, Duration.ofMillis(500), 10, Map.of("clientsTopic", 1), 100));
+
+        assertTrue(loadGenerator.awaitTermination(Duration.ofSeconds(5)));
+        var report = loadGenerator.report();
+        long sent = (long) report.get("sent");
+        assertTrue(sent >= 80 && sent <= 101, "sent " + sent);
+        assertEquals(Map.of("clientsTopic", sent), report.get("sentByTopic"));
+    }
+
+    @Test
+    void shouldCountFailedSends() {
+        when(kafkaProducer.send(anyString(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        loadGenerator.start(new LoadProfile(100.0, Duration.ofMillis(100), 10, Map.of("accountsTopic", 1), 10));
+
+        assertTrue(loadGenerator.awaitTermination(Duration.ofSeconds(5)));
+        var report = loadGenerator.report();
+        assertEquals(report.get("sent"), report.get("failed"));
+        assertEquals(0L, report.get("acknowledged"));
+    }
+
+    @Test
+    void shouldStopEarly() {
+        loadGenerator.start(new LoadProfile(100.0, Duration.ofMinutes(5), 10, null, 10));
+
+        loadGenerator.stop();
+
+        assertTrue(loadGenerator.awaitTermination(Duration.ofSeconds(5)));
+        assertEquals("COMPLETED", loadGenerator.report().get("state"));
+    }
+
+    @Test
+    void shouldRejectSecondRun() {
+        loadGenerator.start(new LoadProfile(10.0, Duration.ofMinutes(5), 10, null, 10));
+
+        assertThrows(IllegalStateException.class, () -> loadGenerator.start(LoadProfile.defaults()));
+    }
+
+    @Test
+    void shouldRejectUnknownOrMissingTopics() {
+        assertThrows(IllegalArgumentException.class,
+                () -> loadGenerator.start(new LoadProfile(10.0, null, null, Map.of("usersTopic", 1), null)));
+
+        when(kafkaProducer.validateTopicExists("clientsTopic")).thenReturn(false);
+        assertThrows(IllegalArgumentException.class,
+                () -> loadGenerator.start(new LoadProfile(10.0, null, null, Map.of("clientsTopic", 1), null)));
+        assertEquals("NONE", loadGenerator.report().get("state"));
+    }
+
+    @Test
+    void shouldRejectInvalidProfile() {
+        assertThrows(IllegalArgumentException.class, () -> new LoadProfile(-1.0, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new LoadProfile(null, Duration.ZERO, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new LoadProfile(null, null, 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new LoadProfile(null, null, null, Map.of("clientsTopic", -1), null));
+    }
+}
@@ -0,0 +1,81 @@
+package com.tiger.pocs.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordTemplatesTest {
+
+    private RecordTemplates templates;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream input = getClass().getResourceAsStream("/data-test.json")) {
+            templates = RecordTemplates.load(new ObjectMapper(), input);
+        }
+    }
+
+    @Test
+    void shouldHaveTemplatesForEveryTopic() {
+        assertEquals(Set.of("clientsTopic", "accountsTopic", "usersTopic", "userAccessTopic", "logOffsetTopic"),
+                templates.topics());
+    }
+
+    @Test
+    void shouldDrawIdsFromKeyCardinality() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            var client = templates.generate("clientsTopic", 5);
+            int id = client.payload().get("id").asInt();
+            assertTrue(id >= 1 && id <= 5);
+            assertEquals(Integer.toString(id), client.key());
+            keys.add(client.key());
+        }
+        assertEquals(5, keys.size());
+
+        var account = templates.generate("accountsTopic", 5);
+        assertTrue(account.key().matches("ACC-00[1-5]"));
+        assertEquals(account.key(), account.payload().get("id").asText());
+    }
+
+    @Test
+    void shouldIncreaseVersions() {
+        long first = templates.generate("usersTopic", 10).payload().get("version").asLong();
+        long second = templates.generate("clientsTopic", 10).payload().get("version").asLong();
+
+        assertTrue(second > first);
+    }
+
+    @Test
+    void shouldRefreshTimestampsAndIpAddresses() {
+        var access = templates.generate("userAccessTopic", 10).payload();
+
+        var accessTime = Instant.parse(access.get("accessTime").asText());
+        assertTrue(Duration.between(accessTime, Instant.now()).abs().toSeconds() < 5);
+        assertTrue(access.get("ipAddress").asText().matches("10\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}"));
+
+        var logOffset = templates.generate("logOffsetTopic", 10).payload();
+        assertTrue(Duration.between(Instant.parse(logOffset.get("timestamp").asText()), Instant.now()).abs().toSeconds() < 5);
+    }
+
+    @Test
+    void shouldNotModifyTemplates() {
+        var first = templates.generate("clientsTopic", 1).payload();
+        first.put("clientName", "changed");
+
+        assertNotEquals("changed", templates.generate("clientsTopic", 1).payload().get("clientName").asText());
+    }
+
+    @Test
+    void shouldRejectTopicWithoutTemplate() {
+        assertThrows(IllegalArgumentException.class, () -> templates.generate("unknownTopic", 1));
+    }
+}